@@ -0,0 +1,71 @@
+package com.bank.rest.benchmark;
+
+import com.bank.rest.dto.TransactionPageDTO;
+import com.bank.rest.repository.impl.AccountRepositoryImpl;
+import com.bank.rest.repository.impl.TransactionRepositoryImpl;
+import com.bank.rest.service.TransactionService;
+import com.bank.rest.service.impl.TransactionServiceImpl;
+import com.bank.rest.util.validators.TransactionValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link TransactionServiceImpl#getAccountHistory} while the rest of the ledger and the account's own history grow.
+ * With the (source, id, transaction_time) and (target, id, transaction_time) indexes a page reads one page of index entries
+ * from the cursor on, so the cost should stay flat across both sizes and for a page deep in the history.
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class AccountHistoryBenchmark {
+
+    private static final int ACCOUNT_ID = 3;
+
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    @Param({"200", "10000", "1000000"})
+    public int accountTransfers;
+
+    private BenchmarkDatabase database;
+    private TransactionService transactionService;
+    private String secondPageAfterId;
+    private String middlePageAfterId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase().seedTransactions(rows);
+        database.ctx().execute("INSERT INTO BANK_SCHEMA.transaction (source, target, amount, transaction_time) " +
+                "SELECT " + ACCOUNT_ID + ", 1, 1, CURRENT_TIMESTAMP() FROM SYSTEM_RANGE(1, " + accountTransfers + ")");
+        transactionService = new TransactionServiceImpl(new TransactionRepositoryImpl(database.ctx(),
+                new AccountRepositoryImpl(database.ctx()), new TransactionValidator()));
+        secondPageAfterId = String.valueOf(transactionService
+                .getAccountHistory(String.valueOf(ACCOUNT_ID), null, null, null, "100").getNextAfterId());
+        // The account's transfers follow the seeded transfer and the rest of the ledger, ids from rows + 2 on
+        middlePageAfterId = String.valueOf(rows + 1 + accountTransfers / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    public TransactionPageDTO firstPage() {
+        return transactionService.getAccountHistory(String.valueOf(ACCOUNT_ID), null, null, null, "100");
+    }
+
+    @Benchmark
+    public TransactionPageDTO secondPage() {
+        return transactionService.getAccountHistory(String.valueOf(ACCOUNT_ID), null, null, secondPageAfterId, "100");
+    }
+
+    @Benchmark
+    public TransactionPageDTO middlePage() {
+        return transactionService.getAccountHistory(String.valueOf(ACCOUNT_ID), null, null, middlePageAfterId, "100");
+    }
+}
@@ -0,0 +1,75 @@
+package com.bank.rest.benchmark;
+
+import com.bank.rest.dto.AccountImportDTO;
+import com.bank.rest.model.AccountModel;
+import com.bank.rest.model.Money;
+import com.bank.rest.repository.AccountRepository;
+import com.bank.rest.repository.impl.AccountRepositoryImpl;
+import com.bank.rest.service.AccountService;
+import com.bank.rest.service.impl.AccountServiceImpl;
+import com.bank.rest.util.json.JsonCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares creating accounts one insert at a time, as POST /accounts does, with the NDJSON import
+ * of POST /accounts/import at several batch sizes. Scores are accounts per millisecond.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountImportBenchmark {
+
+    private static final int ACCOUNTS = 1_000;
+
+    @Param({"1", "100", "1000"})
+    public int batchSize;
+
+    private BenchmarkDatabase database;
+    private AccountRepository accountRepository;
+    private AccountService accountService;
+    private JsonCodec codec;
+    private long nextEmail;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase();
+        accountRepository = new AccountRepositoryImpl(database.ctx());
+        accountService = new AccountServiceImpl(accountRepository, batchSize);
+        codec = new JsonCodec();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACCOUNTS)
+    public void createOneByOne() {
+        for (int i = 0; i < ACCOUNTS; i++) {
+            final AccountModel account = new AccountModel();
+            account.setEmail("bench" + nextEmail++ + "@bank.com");
+            account.setBalance(Money.of(100));
+            accountRepository.create(account);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACCOUNTS)
+    public AccountImportDTO importNdjson() throws IOException {
+        final StringBuilder body = new StringBuilder(ACCOUNTS * 48);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            body.append("{\"email\":\"bench").append(nextEmail++).append("@bank.com\",\"balance\":100}\n");
+        }
+        return accountService.importAccounts(codec.readAccountLines(
+                new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8))));
+    }
+}
@@ -0,0 +1,54 @@
+package com.bank.rest.benchmark;
+
+import com.bank.rest.dto.AccountDTO;
+import com.bank.rest.repository.impl.AccountRepositoryImpl;
+import com.bank.rest.service.AccountService;
+import com.bank.rest.service.impl.AccountServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link AccountServiceImpl#getById} for random accounts, single threaded and with concurrent readers.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountReadBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+
+    private BenchmarkDatabase database;
+    private AccountService accountService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase().seedAccounts(ACCOUNTS);
+        accountService = new AccountServiceImpl(new AccountRepositoryImpl(database.ctx()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public AccountDTO getById() {
+        return accountService.getById(randomId());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public AccountDTO getByIdConcurrent() {
+        return accountService.getById(randomId());
+    }
+
+    private static String randomId() {
+        return String.valueOf(1 + ThreadLocalRandom.current().nextInt(ACCOUNTS));
+    }
+}
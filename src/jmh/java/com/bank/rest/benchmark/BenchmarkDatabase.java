@@ -0,0 +1,103 @@
+package com.bank.rest.benchmark;
+
+import com.bank.rest.util.migration.SchemaMigrations;
+import com.bank.rest.util.pool.ConnectionPool;
+import com.bank.rest.util.pool.ConnectionPoolConfig;
+import org.jooq.Configuration;
+import org.jooq.ConnectionProvider;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.conf.Settings;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.impl.ThreadLocalTransactionProvider;
+
+import java.util.UUID;
+
+/**
+ * Private in-memory H2 database for a single benchmark trial, or a file database that outlives it.
+ * <p>
+ * The schema migrations run on creation, the seed script only when the database is new. An in-memory database lives as long
+ * as the pool holds a connection to it and is dropped on {@link #close()}, a file database is closed and kept.
+ */
+public class BenchmarkDatabase implements AutoCloseable {
+
+    public static final long INITIAL_BALANCE = 1_000_000;
+
+    private final ConnectionPool pool;
+    private final DSLContext ctx;
+
+    public BenchmarkDatabase() {
+        this(new ConnectionPoolConfig());
+    }
+
+    /**
+     * @param poolConfig pool type and sizing, connection settings are filled in here
+     */
+    public BenchmarkDatabase(ConnectionPoolConfig poolConfig) {
+        this(poolConfig, "jdbc:h2:mem:bench-" + UUID.randomUUID());
+    }
+
+    /**
+     * @param poolConfig pool type and sizing, connection settings are filled in here
+     * @param url        H2 URL, e.g. jdbc:h2:file:/tmp/bench to open or create a file database
+     */
+    public BenchmarkDatabase(ConnectionPoolConfig poolConfig, String url) {
+        pool = ConnectionPool.create(poolConfig
+                .withDriverClassName("org.h2.Driver")
+                .withUrl(url)
+                .withUsername("sa")
+                .withPassword(""));
+
+        final ConnectionProvider cp = pool.getConnectionProvider();
+        final Configuration configuration = new DefaultConfiguration()
+                .set(cp)
+                .set(SQLDialect.H2)
+                .set(new ThreadLocalTransactionProvider(cp, true))
+                .set(new Settings()
+                        .withExecuteWithOptimisticLocking(true)
+                        .withExecuteLogging(false));
+        ctx = DSL.using(configuration);
+        final SchemaMigrations migrations = new SchemaMigrations(ctx);
+        final boolean created = migrations.getCurrentVersion() == 0;
+        migrations.migrate();
+        if (created) {
+            ctx.execute("RUNSCRIPT FROM 'classpath:db/seed.sql'");
+        }
+    }
+
+    public DSLContext ctx() {
+        return ctx;
+    }
+
+    public ConnectionPool pool() {
+        return pool;
+    }
+
+    /**
+     * Adds accounts with ids following the 3 accounts of db/seed.sql, each holding {@link #INITIAL_BALANCE}
+     *
+     * @param count number of accounts to add
+     */
+    public BenchmarkDatabase seedAccounts(int count) {
+        ctx.execute("INSERT INTO BANK_SCHEMA.account (email, balance, active) " +
+                "SELECT CONCAT('bench', X, '@bank.com'), " + INITIAL_BALANCE + ", TRUE FROM SYSTEM_RANGE(1, " + count + ")");
+        return this;
+    }
+
+    /**
+     * Adds ledger rows between the first two accounts of db/seed.sql, without touching balances
+     *
+     * @param count number of transactions to add
+     */
+    public BenchmarkDatabase seedTransactions(int count) {
+        ctx.execute("INSERT INTO BANK_SCHEMA.transaction (source, target, amount, transaction_time) " +
+                "SELECT 1 + MOD(X, 2), 2 - MOD(X, 2), 1, CURRENT_TIMESTAMP() FROM SYSTEM_RANGE(1, " + count + ")");
+        return this;
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+}
@@ -0,0 +1,27 @@
+package com.bank.rest.benchmark;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.OutputStream;
+
+/**
+ * Stands in for the servlet output stream, so benchmarks measure serialization without the network
+ */
+final class BlackholeOutputStream extends OutputStream {
+    private final Blackhole blackhole;
+
+    BlackholeOutputStream(Blackhole blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    @Override
+    public void write(int b) {
+        blackhole.consume(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        blackhole.consume(b);
+        blackhole.consume(len);
+    }
+}
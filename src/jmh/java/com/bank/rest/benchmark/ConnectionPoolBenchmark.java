@@ -0,0 +1,87 @@
+package com.bank.rest.benchmark;
+
+import com.bank.rest.model.Money;
+import com.bank.rest.model.TransactionModel;
+import com.bank.rest.repository.TransactionRepository;
+import com.bank.rest.repository.impl.AccountRepositoryImpl;
+import com.bank.rest.repository.impl.TransactionRepositoryImpl;
+import com.bank.rest.util.lock.StripedAccountLocks;
+import com.bank.rest.util.pool.ConnectionPool;
+import com.bank.rest.util.pool.ConnectionPoolConfig;
+import com.bank.rest.util.validators.TransactionValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the connection pools under more request threads than pooled connections:
+ * bare borrow/return of a connection, and transfers between random accounts, which borrow a connection per transfer.
+ * Average time spent obtaining a connection is printed at the end of each trial.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class ConnectionPoolBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+    private static final int FIRST_SEEDED_ID = 4;
+    private static final int POOL_SIZE = 8;
+
+    @Param({"HIKARI", "DBCP"})
+    public ConnectionPoolConfig.Type pool;
+
+    @Param({"0", "64"})
+    public int statementCacheSize;
+
+    private BenchmarkDatabase database;
+    private TransactionRepository transactionRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase(new ConnectionPoolConfig()
+                .withType(pool)
+                .withMaximumSize(POOL_SIZE)
+                .withMinimumIdle(POOL_SIZE)
+                .withStatementCacheSize(statementCacheSize))
+                .seedAccounts(ACCOUNTS);
+        transactionRepository = new TransactionRepositoryImpl(database.ctx(), new AccountRepositoryImpl(database.ctx()),
+                new TransactionValidator(), TransactionRepositoryImpl.TransferMode.ATOMIC, new StripedAccountLocks(1024));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        final ConnectionPool connectionPool = database.pool();
+        System.out.printf("%n%s: %d borrows, %.1f us average wait%n", pool, connectionPool.getAcquisitions(),
+                connectionPool.getWaitTimeNanos() / 1000.0 / Math.max(1, connectionPool.getAcquisitions()));
+        database.close();
+    }
+
+    @Benchmark
+    public void borrow() throws SQLException {
+        try (Connection ignored = database.pool().getDataSource().getConnection()) {
+            // returned on close
+        }
+    }
+
+    @Benchmark
+    public void transfer() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int source = FIRST_SEEDED_ID + random.nextInt(ACCOUNTS);
+        int target = FIRST_SEEDED_ID + random.nextInt(ACCOUNTS - 1);
+        if (target >= source) {
+            target++;
+        }
+        final TransactionModel transaction = new TransactionModel();
+        transaction.setSource(source);
+        transaction.setTarget(target);
+        transaction.setAmount(Money.of(1));
+        transactionRepository.create(transaction);
+    }
+}
@@ -0,0 +1,68 @@
+package com.bank.rest.benchmark;
+
+import com.bank.rest.dto.TransactionDTO;
+import com.bank.rest.util.json.DataFormat;
+import com.bank.rest.util.json.JsonCodec;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares JSON with the binary Smile and CBOR encodings of a transaction list, as written by GET /transactions
+ * and read by POST /transactions/batch. The payload size of each format is printed once per trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataFormatBenchmark {
+
+    @Param({"100", "10000"})
+    public int listSize;
+
+    @Param({"JSON", "SMILE", "CBOR"})
+    public DataFormat format;
+
+    private JsonCodec codec;
+    private List<TransactionDTO> transactions;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        codec = new JsonCodec();
+
+        transactions = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            final TransactionDTO transaction = new TransactionDTO();
+            transaction.setId(i);
+            transaction.setSource(1 + i % 1000);
+            transaction.setTarget(2 + i % 1000);
+            transaction.setAmount(new BigDecimal("2.2200"));
+            transaction.setTransactionTime("2020-02-17T02:55:00.167");
+            transactions.add(transaction);
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.writeArray(transactions, TransactionDTO.class, format, out);
+        encoded = out.toByteArray();
+        System.out.println(format + " payload of " + listSize + " transactions: " + encoded.length + " bytes");
+    }
+
+    @Benchmark
+    public void write(Blackhole blackhole) throws IOException {
+        codec.writeArray(transactions, TransactionDTO.class, format, new BlackholeOutputStream(blackhole));
+    }
+
+    @Benchmark
+    public List<TransactionDTO> read() throws IOException {
+        return codec.readTransactions(encoded, format);
+    }
+}
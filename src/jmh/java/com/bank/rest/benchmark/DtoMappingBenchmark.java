@@ -0,0 +1,96 @@
+package com.bank.rest.benchmark;
+
+import com.bank.rest.dto.AccountDTO;
+import com.bank.rest.dto.TransactionDTO;
+import com.bank.rest.model.AccountModel;
+import com.bank.rest.model.Money;
+import com.bank.rest.model.TransactionModel;
+import com.bank.rest.util.mapper.AccountMapper;
+import com.bank.rest.util.mapper.TransactionMapper;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-request DTO work of the services without HTTP and DB:
+ * the hand-written mappers used by the services against the reflective ModelMapper they replaced.
+ * JSON (de)serialization is measured by {@link JsonCodecBenchmark}.
+ * <p>
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoMappingBenchmark {
+
+    private ModelMapper modelMapper;
+    private TransactionModel transaction;
+    private TransactionDTO transactionDTO;
+    private AccountModel account;
+    private AccountDTO accountDTO;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        modelMapper = new ModelMapper();
+
+        transaction = new TransactionModel();
+        transaction.setId(1);
+        transaction.setSource(1);
+        transaction.setTarget(2);
+        transaction.setAmount(Money.of(new BigDecimal("2.22")));
+        transaction.setTransactionTime(LocalDateTime.now());
+        transactionDTO = TransactionMapper.toDto(transaction);
+
+        account = new AccountModel();
+        account.setId(1);
+        account.setEmail("john@john.com");
+        account.setBalance(Money.of(new BigDecimal("10.10")));
+        accountDTO = AccountMapper.toDto(account);
+    }
+
+    @Benchmark
+    public TransactionDTO modelMapperTransactionToDto() {
+        return modelMapper.map(transaction, TransactionDTO.class);
+    }
+
+    @Benchmark
+    public TransactionDTO mapperTransactionToDto() {
+        return TransactionMapper.toDto(transaction);
+    }
+
+    @Benchmark
+    public TransactionModel modelMapperTransactionToModel() {
+        return modelMapper.map(transactionDTO, TransactionModel.class);
+    }
+
+    @Benchmark
+    public TransactionModel mapperTransactionToModel() {
+        return TransactionMapper.toModel(transactionDTO);
+    }
+
+    @Benchmark
+    public AccountDTO modelMapperAccountToDto() {
+        return modelMapper.map(account, AccountDTO.class);
+    }
+
+    @Benchmark
+    public AccountDTO mapperAccountToDto() {
+        return AccountMapper.toDto(account);
+    }
+
+    @Benchmark
+    public AccountModel modelMapperAccountToModel() {
+        return modelMapper.map(accountDTO, AccountModel.class);
+    }
+
+    @Benchmark
+    public AccountModel mapperAccountToModel() {
+        return AccountMapper.toModel(accountDTO);
+    }
+}
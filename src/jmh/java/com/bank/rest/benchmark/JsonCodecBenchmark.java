@@ -0,0 +1,96 @@
+package com.bank.rest.benchmark;
+
+import com.bank.rest.dto.AccountDTO;
+import com.bank.rest.dto.TransactionDTO;
+import com.bank.rest.util.json.DataFormat;
+import com.bank.rest.util.json.JsonCodec;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares JSON handling of RestController before and after {@link JsonCodec}:
+ * "perCallMapper" benchmarks create a new ObjectMapper for every body as the controller used to,
+ * "codec" benchmarks use one shared codec and write lists into an output stream.
+ * <p>
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonCodecBenchmark {
+
+    private static final String TRANSACTION_JSON = "{\"source\":1, \"target\":2, \"amount\":2.22}";
+    // The controller reads request bodies as bytes
+    private static final byte[] TRANSACTION_JSON_BYTES = TRANSACTION_JSON.getBytes(StandardCharsets.UTF_8);
+
+    @Param({"100", "10000"})
+    public int listSize;
+
+    private JsonCodec codec;
+    private List<TransactionDTO> transactions;
+    private AccountDTO account;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        codec = new JsonCodec();
+
+        account = new AccountDTO();
+        account.setId(1);
+        account.setEmail("john@john.com");
+        account.setBalance(new BigDecimal("10.10"));
+
+        transactions = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            final TransactionDTO transaction = new TransactionDTO();
+            transaction.setId(i);
+            transaction.setSource(1);
+            transaction.setTarget(2);
+            transaction.setAmount(new BigDecimal("2.22"));
+            transaction.setTransactionTime("2020-02-17T02:55:00.167");
+            transactions.add(transaction);
+        }
+    }
+
+    @Benchmark
+    public TransactionDTO perCallMapperReadTransaction() throws JsonProcessingException {
+        return new ObjectMapper().readValue(TRANSACTION_JSON, TransactionDTO.class);
+    }
+
+    @Benchmark
+    public TransactionDTO codecReadTransaction() throws IOException {
+        return codec.readTransaction(TRANSACTION_JSON_BYTES, DataFormat.JSON);
+    }
+
+    @Benchmark
+    public String perCallMapperWriteAccount() throws JsonProcessingException {
+        return new ObjectMapper().writeValueAsString(account);
+    }
+
+    @Benchmark
+    public void codecWriteAccount(Blackhole blackhole) throws IOException {
+        codec.write(account, new BlackholeOutputStream(blackhole));
+    }
+
+    @Benchmark
+    public void perCallMapperWriteTransactionList(Blackhole blackhole) throws IOException {
+        // The controller returned the string and Spark wrote its bytes to the response
+        new BlackholeOutputStream(blackhole).write(new ObjectMapper().writeValueAsString(transactions).getBytes("UTF-8"));
+    }
+
+    @Benchmark
+    public void codecWriteTransactionList(Blackhole blackhole) throws IOException {
+        codec.writeArray(transactions, TransactionDTO.class, new BlackholeOutputStream(blackhole));
+    }
+}
@@ -0,0 +1,93 @@
+package com.bank.rest.benchmark;
+
+import com.bank.rest.Application;
+import com.bank.rest.util.metrics.MetricsRegistry;
+import com.bank.rest.util.metrics.RequestMetrics;
+import com.bank.rest.util.metrics.RouteMetrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what route instrumentation adds to a request: two clock reads and a {@link RouteMetrics#record},
+ * from one thread and from eight threads recording into the same route.
+ * For scale, "httpGetAccount" is a full {@code GET /api/v1/accounts/:id} round trip against the running application.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestMetricsBenchmark {
+
+    private static final int ROUTES = 10;
+
+    private RouteMetrics route;
+    private MetricsRegistry registry;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        route = new RouteMetrics("GET", "/api/v1/accounts/:id");
+
+        final RequestMetrics requestMetrics = new RequestMetrics();
+        for (int i = 0; i < ROUTES; i++) {
+            requestMetrics.timed("GET", "/route/" + i, (req, res) -> null);
+        }
+        registry = new MetricsRegistry().register(requestMetrics);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void record() {
+        final long start = System.nanoTime();
+        route.record(200, System.nanoTime() - start);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void recordConcurrent() {
+        final long start = System.nanoTime();
+        route.record(200, System.nanoTime() - start);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String scrape() {
+        return registry.scrape();
+    }
+
+    @State(Scope.Benchmark)
+    public static class RunningApplication {
+        @Setup(Level.Trial)
+        public void start() {
+            Application.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            Application.stop();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int httpGetAccount(RunningApplication application) throws IOException {
+        final URL url = URI.create("http://localhost:9090/api/v1/accounts/" + (1 + ThreadLocalRandom.current().nextInt(3))).toURL();
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        int read = 0;
+        try (InputStream body = connection.getInputStream()) {
+            while (body.read() >= 0) {
+                read++;
+            }
+        }
+        return read;
+    }
+}
@@ -0,0 +1,72 @@
+package com.bank.rest.benchmark;
+
+import com.bank.rest.Application;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares request execution on the bounded Jetty thread pool with a virtual thread per request
+ * under 256 concurrent clients, more than the 200 pooled threads of config.properties.
+ * Reads and transfers both block on a JDBC connection, transfers also on the account locks of the two hot accounts.
+ * Clients run in the same JVM as the server, so compare the modes with each other, not with production numbers.
+ * Concurrency can be changed with {@code -t}, e.g. {@code java -jar target/benchmarks.jar ServerLoadBenchmark -t 1024}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(256)
+@State(Scope.Benchmark)
+public class ServerLoadBenchmark {
+
+    private static final String URI_ACCOUNTS = "http://localhost:9090/api/v1/accounts/";
+    private static final URI URI_TRANSACTIONS = URI.create("http://localhost:9090/api/v1/transactions");
+
+    @Param({"pooled", "virtual"})
+    public String mode;
+
+    private HttpClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty("spark.threads.mode", mode);
+        Application.start();
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Application.stop();
+        System.clearProperty("spark.threads.mode");
+    }
+
+    @Benchmark
+    public int getAccount() throws IOException, InterruptedException {
+        final HttpRequest request = HttpRequest.newBuilder(
+                URI.create(URI_ACCOUNTS + (1 + ThreadLocalRandom.current().nextInt(3)))).build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    public int transfer() throws IOException, InterruptedException {
+        final boolean forth = ThreadLocalRandom.current().nextBoolean();
+        final HttpRequest request = HttpRequest.newBuilder(URI_TRANSACTIONS)
+                .POST(HttpRequest.BodyPublishers.ofString(forth
+                        ? "{\"source\":1, \"target\":2, \"amount\":0.01}"
+                        : "{\"source\":2, \"target\":1, \"amount\":0.01}"))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,78 @@
+package com.bank.rest.benchmark;
+
+import com.bank.rest.dto.TransactionPageDTO;
+import com.bank.rest.repository.impl.AccountRepositoryImpl;
+import com.bank.rest.repository.impl.TransactionRepositoryImpl;
+import com.bank.rest.service.impl.TransactionServiceImpl;
+import com.bank.rest.util.pool.ConnectionPoolConfig;
+import com.bank.rest.util.validators.TransactionValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the time until the last page of a multi-million-row ledger can be served after a restart.
+ * A file database is reopened and checked by the schema migrations, while an in-memory database
+ * has to be created and loaded with the same rows again.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    private static final String CACHE_SIZE = ";CACHE_SIZE=65536";
+
+    @Param({"1000000", "4000000"})
+    public int rows;
+
+    private Path directory;
+    private String fileUrl;
+    private BenchmarkDatabase database;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("bank-startup");
+        fileUrl = "jdbc:h2:file:" + directory.resolve("bank").toAbsolutePath() + CACHE_SIZE;
+        try (BenchmarkDatabase seeded = new BenchmarkDatabase(new ConnectionPoolConfig(), fileUrl)) {
+            seeded.seedTransactions(rows);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeDatabase() {
+        database.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public TransactionPageDTO reopenFile() {
+        database = new BenchmarkDatabase(new ConnectionPoolConfig(), fileUrl);
+        return lastPage();
+    }
+
+    @Benchmark
+    public TransactionPageDTO reloadInMemory() {
+        database = new BenchmarkDatabase().seedTransactions(rows);
+        return lastPage();
+    }
+
+    private TransactionPageDTO lastPage() {
+        final TransactionServiceImpl transactionService = new TransactionServiceImpl(new TransactionRepositoryImpl(
+                database.ctx(), new AccountRepositoryImpl(database.ctx()), new TransactionValidator()));
+        return transactionService.getPage(String.valueOf(rows - 100), "100");
+    }
+}
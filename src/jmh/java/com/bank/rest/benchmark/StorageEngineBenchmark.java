@@ -0,0 +1,133 @@
+package com.bank.rest.benchmark;
+
+import com.bank.rest.model.AccountModel;
+import com.bank.rest.model.Money;
+import com.bank.rest.model.TransactionModel;
+import com.bank.rest.repository.AccountRepository;
+import com.bank.rest.repository.TransactionRepository;
+import com.bank.rest.repository.TransferListener;
+import com.bank.rest.repository.impl.AccountRepositoryImpl;
+import com.bank.rest.repository.impl.LedgerAccountRepository;
+import com.bank.rest.repository.impl.LedgerTransactionRepository;
+import com.bank.rest.repository.impl.TransactionRepositoryImpl;
+import com.bank.rest.util.ledger.Ledger;
+import com.bank.rest.util.ledger.LedgerConfig;
+import com.bank.rest.util.lock.StripedAccountLocks;
+import com.bank.rest.util.validators.TransactionValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the H2 storage engine with the in-memory {@link Ledger} for transfers between random accounts,
+ * contended transfers between two hot accounts and concurrent account reads.
+ * <p>
+ * The ledger's write-behind to H2 stays on, so once its queue is full the transfer rate includes waiting for it.
+ * Failed transfers don't abort the run, they are reported as the "failed" secondary result.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageEngineBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+    private static final int FIRST_SEEDED_ID = 4;
+    private static final Money AMOUNT = Money.of(1);
+
+    @State(Scope.Benchmark)
+    public static class Engine {
+        @Param({"h2", "ledger"})
+        public String engine;
+
+        BenchmarkDatabase database;
+        Path directory;
+        Ledger ledger;
+        AccountRepository accountRepository;
+        TransactionRepository transactionRepository;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            database = new BenchmarkDatabase().seedAccounts(ACCOUNTS);
+            accountRepository = new AccountRepositoryImpl(database.ctx());
+            transactionRepository = new TransactionRepositoryImpl(database.ctx(), accountRepository,
+                    new TransactionValidator(), TransactionRepositoryImpl.TransferMode.ATOMIC, new StripedAccountLocks(1024));
+            if ("ledger".equals(engine)) {
+                directory = Files.createTempDirectory("ledger-bench");
+                ledger = Ledger.open(new LedgerConfig().withDirectory(directory), database.ctx());
+                accountRepository = new LedgerAccountRepository(ledger);
+                transactionRepository = new LedgerTransactionRepository(ledger, transactionRepository,
+                        new TransactionValidator(), TransferListener.NONE);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            if (ledger != null) {
+                ledger.close();
+                try (Stream<Path> files = Files.walk(directory)) {
+                    files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+                }
+            }
+            database.close();
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Outcome {
+        public long failed;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            failed = 0;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void transfer(Engine engine, Outcome outcome) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int source = FIRST_SEEDED_ID + random.nextInt(ACCOUNTS);
+        int target = FIRST_SEEDED_ID + random.nextInt(ACCOUNTS - 1);
+        if (target >= source) {
+            target++;
+        }
+        perform(engine, outcome, source, target);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void contendedTransfer(Engine engine, Outcome outcome) {
+        if (ThreadLocalRandom.current().nextBoolean()) {
+            perform(engine, outcome, FIRST_SEEDED_ID, FIRST_SEEDED_ID + 1);
+        } else {
+            perform(engine, outcome, FIRST_SEEDED_ID + 1, FIRST_SEEDED_ID);
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public AccountModel findById(Engine engine) {
+        return engine.accountRepository.findById(1 + ThreadLocalRandom.current().nextInt(ACCOUNTS));
+    }
+
+    private static void perform(Engine engine, Outcome outcome, int source, int target) {
+        final TransactionModel transaction = new TransactionModel();
+        transaction.setSource(source);
+        transaction.setTarget(target);
+        transaction.setAmount(AMOUNT);
+        try {
+            engine.transactionRepository.create(transaction);
+        } catch (RuntimeException e) {
+            outcome.failed++;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.bank.rest.benchmark;
+
+import com.bank.rest.dto.TransactionDTO;
+import com.bank.rest.repository.impl.AccountRepositoryImpl;
+import com.bank.rest.repository.impl.TransactionRepositoryImpl;
+import com.bank.rest.service.TransactionService;
+import com.bank.rest.service.impl.TransactionServiceImpl;
+import com.bank.rest.util.json.JsonCodec;
+import com.bank.rest.util.json.TransactionChunkCache;
+import com.bank.rest.util.validators.TransactionValidator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures GET /transactions as JSON written from the encoded chunk cache, compared to querying and encoding
+ * every row per request, and a delta read of the last 100 transactions. The cache is warmed up by the first call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class TransactionDeltaBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private BenchmarkDatabase database;
+    private TransactionService transactionService;
+    private JsonCodec codec;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase().seedTransactions(rows);
+        codec = new JsonCodec();
+        final AccountRepositoryImpl accountRepository = new AccountRepositoryImpl(database.ctx());
+        transactionService = new TransactionServiceImpl(
+                new TransactionRepositoryImpl(database.ctx(), accountRepository, new TransactionValidator()),
+                10_000, null, new TransactionChunkCache(codec, 1_000, 512L * 1024 * 1024));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    public void encodeAll(Blackhole blackhole) throws IOException {
+        codec.writeArray(transactionService.getAll(), TransactionDTO.class, new BlackholeOutputStream(blackhole));
+    }
+
+    @Benchmark
+    public void cachedAll(Blackhole blackhole) throws IOException {
+        transactionService.writeSince(null, new BlackholeOutputStream(blackhole));
+    }
+
+    @Benchmark
+    public void cachedDelta(Blackhole blackhole) throws IOException {
+        transactionService.writeSince(String.valueOf(rows - 100), new BlackholeOutputStream(blackhole));
+    }
+}
@@ -0,0 +1,75 @@
+package com.bank.rest.benchmark;
+
+import com.bank.rest.dto.TransactionDTO;
+import com.bank.rest.repository.impl.AccountRepositoryImpl;
+import com.bank.rest.repository.impl.TransactionRepositoryImpl;
+import com.bank.rest.service.TransactionService;
+import com.bank.rest.service.impl.TransactionServiceImpl;
+import com.bank.rest.util.csv.TransactionCsvWriter;
+import com.bank.rest.util.json.JsonCodec;
+import com.bank.rest.util.validators.TransactionValidator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Measures a full ledger export as written by GET /transactions/export, compared to GET /transactions,
+ * which builds the whole list before writing it. Output goes to a blackhole, so the numbers exclude the network.
+ * Run with {@code -prof gc}: the export allocates per row but retains nothing, so it runs in a small heap.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class TransactionExportBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private BenchmarkDatabase database;
+    private TransactionService transactionService;
+    private JsonCodec codec;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase().seedTransactions(rows);
+        final AccountRepositoryImpl accountRepository = new AccountRepositoryImpl(database.ctx());
+        transactionService = new TransactionServiceImpl(
+                new TransactionRepositoryImpl(database.ctx(), accountRepository, new TransactionValidator()));
+        codec = new JsonCodec();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    public void jsonArray(Blackhole blackhole) throws IOException {
+        codec.writeArray(transactionService.getAll(), TransactionDTO.class, output(blackhole));
+    }
+
+    @Benchmark
+    public void ndjson(Blackhole blackhole) throws IOException {
+        codec.writeLines(TransactionDTO.class, output(blackhole), transactionService::forEach);
+    }
+
+    @Benchmark
+    public void csv(Blackhole blackhole) throws IOException {
+        TransactionCsvWriter.write(output(blackhole), transactionService::forEach);
+    }
+
+    private OutputStream output(Blackhole blackhole) throws IOException {
+        final OutputStream out = new BlackholeOutputStream(blackhole);
+        return gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+    }
+}
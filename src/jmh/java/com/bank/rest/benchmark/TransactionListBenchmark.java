@@ -0,0 +1,62 @@
+package com.bank.rest.benchmark;
+
+import com.bank.rest.dto.TransactionDTO;
+import com.bank.rest.dto.TransactionPageDTO;
+import com.bank.rest.repository.impl.AccountRepositoryImpl;
+import com.bank.rest.repository.impl.TransactionRepositoryImpl;
+import com.bank.rest.service.TransactionService;
+import com.bank.rest.service.impl.TransactionServiceImpl;
+import com.bank.rest.util.validators.TransactionValidator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link TransactionServiceImpl#getAll} as the ledger grows, compared to streaming the same rows
+ * and to reading a single keyset page from the end of the ledger.
+ * Run with {@code -prof gc} to see the allocation rate per listed row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class TransactionListBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private BenchmarkDatabase database;
+    private TransactionService transactionService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase().seedTransactions(rows);
+        final AccountRepositoryImpl accountRepository = new AccountRepositoryImpl(database.ctx());
+        transactionService = new TransactionServiceImpl(
+                new TransactionRepositoryImpl(database.ctx(), accountRepository, new TransactionValidator()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    public List<TransactionDTO> getAll() {
+        return transactionService.getAll();
+    }
+
+    @Benchmark
+    public void forEach(Blackhole blackhole) {
+        transactionService.forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public TransactionPageDTO lastPage() {
+        return transactionService.getPage(String.valueOf(rows - 100), "100");
+    }
+}
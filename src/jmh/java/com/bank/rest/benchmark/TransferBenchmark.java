@@ -0,0 +1,115 @@
+package com.bank.rest.benchmark;
+
+import com.bank.rest.model.Money;
+import com.bank.rest.model.TransactionModel;
+import com.bank.rest.repository.AccountRepository;
+import com.bank.rest.repository.TransactionRepository;
+import com.bank.rest.repository.impl.AccountRepositoryImpl;
+import com.bank.rest.repository.impl.SequencedTransactionRepository;
+import com.bank.rest.repository.impl.TransactionRepositoryImpl;
+import com.bank.rest.util.lock.StripedAccountLocks;
+import com.bank.rest.util.validators.TransactionValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link TransactionRepositoryImpl#create} for uncontended transfers between random accounts
+ * and for contended transfers bouncing between two hot accounts, for each transfer mode,
+ * applied directly or through the group-committing {@link SequencedTransactionRepository}.
+ * <p>
+ * Failed transfers (e.g. lock timeouts or optimistic locking failures) don't abort the run,
+ * they are reported as the "failed" secondary result.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+    private static final int FIRST_SEEDED_ID = 4;
+    private static final Money AMOUNT = Money.of(1);
+
+    @State(Scope.Benchmark)
+    public static class Ledger {
+        @Param({"RECORD", "ATOMIC"})
+        public TransactionRepositoryImpl.TransferMode mode;
+
+        @Param({"false", "true"})
+        public boolean sequenced;
+
+        BenchmarkDatabase database;
+        TransactionRepository transactionRepository;
+        SequencedTransactionRepository sequencer;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            database = new BenchmarkDatabase().seedAccounts(ACCOUNTS);
+            final AccountRepository accountRepository = new AccountRepositoryImpl(database.ctx());
+            transactionRepository = new TransactionRepositoryImpl(database.ctx(), accountRepository,
+                    new TransactionValidator(), mode, new StripedAccountLocks(1024));
+            if (sequenced) {
+                sequencer = new SequencedTransactionRepository(transactionRepository, new TransactionValidator(),
+                        256, Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(200)), 65536);
+                transactionRepository = sequencer;
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            if (sequencer != null) {
+                sequencer.close();
+            }
+            database.close();
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Outcome {
+        public long failed;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            failed = 0;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void transfer(Ledger ledger, Outcome outcome) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int source = FIRST_SEEDED_ID + random.nextInt(ACCOUNTS);
+        int target = FIRST_SEEDED_ID + random.nextInt(ACCOUNTS - 1);
+        if (target >= source) {
+            target++;
+        }
+        perform(ledger, outcome, source, target);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void contendedTransfer(Ledger ledger, Outcome outcome) {
+        if (ThreadLocalRandom.current().nextBoolean()) {
+            perform(ledger, outcome, FIRST_SEEDED_ID, FIRST_SEEDED_ID + 1);
+        } else {
+            perform(ledger, outcome, FIRST_SEEDED_ID + 1, FIRST_SEEDED_ID);
+        }
+    }
+
+    private static void perform(Ledger ledger, Outcome outcome, int source, int target) {
+        final TransactionModel transaction = new TransactionModel();
+        transaction.setSource(source);
+        transaction.setTarget(target);
+        transaction.setAmount(AMOUNT);
+        try {
+            ledger.transactionRepository.create(transaction);
+        } catch (RuntimeException e) {
+            outcome.failed++;
+        }
+    }
+}
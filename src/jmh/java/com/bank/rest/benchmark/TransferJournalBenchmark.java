@@ -0,0 +1,104 @@
+package com.bank.rest.benchmark;
+
+import com.bank.rest.model.Money;
+import com.bank.rest.model.TransactionModel;
+import com.bank.rest.util.journal.JournalReader;
+import com.bank.rest.util.journal.TransferJournal;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what the transfer journal costs a request thread, i.e. handing a committed transfer to the writer,
+ * and how fast {@link JournalReader} scans a journal of 1M records.
+ * <p>
+ * The append result is bounded by the writer thread once the queue is full, the "blocked" counter of the journal
+ * shows how often that happened.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferJournalBenchmark {
+
+    private static final int SEGMENT_RECORDS = 1 << 20;
+    private static final int SCANNED_RECORDS = 1_000_000;
+
+    @State(Scope.Benchmark)
+    public static class Journal {
+        Path directory;
+        TransferJournal journal;
+        TransactionModel transaction;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("journal-bench");
+            journal = new TransferJournal(directory, SEGMENT_RECORDS, 65536, 1000);
+            transaction = new TransactionModel();
+            transaction.setSource(1);
+            transaction.setTarget(2);
+            transaction.setAmount(Money.of(new BigDecimal("2.22")));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            journal.close();
+            System.out.printf("%n%d records written, %d appends blocked%n", journal.getWritten(), journal.getBlocked());
+            delete(directory);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class WrittenJournal {
+        Path directory;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            directory = Files.createTempDirectory("journal-bench");
+            final TransactionModel transaction = new TransactionModel();
+            transaction.setSource(1);
+            transaction.setTarget(2);
+            transaction.setAmount(Money.of(new BigDecimal("2.22")));
+            try (TransferJournal journal = new TransferJournal(directory, SEGMENT_RECORDS, 65536, 1000)) {
+                for (int i = 0; i < SCANNED_RECORDS; i++) {
+                    journal.onTransferCommitted(transaction);
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            delete(directory);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void append(Journal journal) {
+        journal.journal.onTransferCommitted(journal.transaction);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Threads(1)
+    public long scan(WrittenJournal journal, Blackhole blackhole) throws IOException {
+        return JournalReader.forEach(journal.directory, blackhole::consume);
+    }
+
+    private static void delete(Path directory) throws IOException {
+        final File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Files.delete(file.toPath());
+            }
+        }
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,93 @@
+package com.bank.rest.benchmark.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of the measured requests, by operation.
+ * <p>
+ * Latency runs from the time a request was due to be sent, not from when it was sent, so a server that falls behind
+ * is charged for the requests waiting behind the slow ones as well. Recording is lock-free and may come from any thread.
+ */
+final class LatencyReport {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> failures = new EnumMap<>(Operation.class);
+    private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    LatencyReport() {
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(MAX_LATENCY_NANOS, 3));
+            failures.put(operation, new LongAdder());
+        }
+    }
+
+    /**
+     * @param latencyNanos time from when the request was due until its response
+     * @param error        why the request failed, e.g. "HTTP 400", or null if it succeeded
+     */
+    void record(Operation operation, long latencyNanos, String error) {
+        recorders.get(operation).recordValue(Math.min(Math.max(latencyNanos, 0), MAX_LATENCY_NANOS));
+        if (error != null) {
+            failures.get(operation).increment();
+            errors.computeIfAbsent(operation.name().toLowerCase() + " " + error, key -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Counts a request that wasn't sent because too many were in flight, it has no latency
+     */
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    /**
+     * @param seconds length of the measurement
+     */
+    void print(PrintStream out, double seconds) {
+        final Histogram total = new Histogram(MAX_LATENCY_NANOS, 3);
+        long totalFailures = 0;
+        out.printf("%-10s %9s %8s %10s %9s %9s %9s %9s%n",
+                "operation", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            final Histogram histogram = recorders.get(operation).getIntervalHistogram();
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            total.add(histogram);
+            totalFailures += failures.get(operation).sum();
+            printRow(out, operation.name().toLowerCase(), histogram, failures.get(operation).sum(), seconds);
+        }
+        printRow(out, "total", total, totalFailures, seconds);
+
+        if (dropped.sum() > 0) {
+            out.printf("%nNot sent, too many requests in flight: %d%n", dropped.sum());
+        }
+        if (!errors.isEmpty()) {
+            out.printf("%nErrors:%n");
+            new TreeMap<>(errors).forEach((error, count) -> out.printf("  %-40s %9d%n", error, count.sum()));
+        }
+    }
+
+    private static void printRow(PrintStream out, String name, Histogram histogram, long failures, double seconds) {
+        out.printf("%-10s %9d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n", name, histogram.getTotalCount(), failures,
+                histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI,
+                histogram.getMaxValue() / NANOS_PER_MILLI);
+    }
+}
@@ -0,0 +1,210 @@
+package com.bank.rest.benchmark.load;
+
+import com.bank.rest.Application;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop HTTP load test of the REST API with a latency report.
+ * <p>
+ * Requests are sent at a fixed offered rate, evenly spaced or with Poisson arrivals, whether or not earlier responses
+ * have arrived, and each latency is measured from the time its request was due. A slow server therefore shows up
+ * in the percentiles instead of silently lowering the request rate, which a closed loop of waiting clients does
+ * (coordinated omission). The mix of {@link Operation}s runs against accounts imported for the run.
+ * <p>
+ * Build with {@code mvn clean package -Pbench -DskipTests} and run, starting the application in the same JVM:
+ * <pre>
+ * java -cp target/benchmarks.jar com.bank.rest.benchmark.load.LoadGenerator --rate=1000 --duration=60 --skew=1.1
+ * </pre>
+ * Application properties can be set as system properties, e.g. {@code -Dspark.threads.mode=virtual}.
+ * With {@code --url=http://host:9090} a running server is tested instead.
+ */
+public final class LoadGenerator {
+
+    private static final String USAGE = "Usage: LoadGenerator [--url=<base url, default: start the application>]"
+            + " [--rate=<requests per second>] [--duration=<seconds>] [--warmup=<seconds>]"
+            + " [--arrivals=uniform|poisson] [--accounts=<count>] [--skew=<Zipf exponent, 0 for uniform>]"
+            + " [--mix=read:50,create:5,transfer:30,history:10,scan:5] [--max-in-flight=<requests>] [--timeout=<seconds>]";
+
+    private final Map<String, String> options;
+    private final PrintStream out = System.out;
+
+    private LoadGenerator(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            final int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                System.err.println(USAGE);
+                System.exit(2);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        final String url = options.get("url");
+        if (url == null) {
+            Application.start();
+        }
+        try {
+            new LoadGenerator(options).run(url == null ? "http://localhost:" + localPort() : url);
+        } finally {
+            if (url == null) {
+                Application.stop();
+            }
+        }
+    }
+
+    private void run(String baseUrl) throws IOException, InterruptedException {
+        final double rate = Double.parseDouble(options.getOrDefault("rate", "500"));
+        final int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        final int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        final boolean poisson = "poisson".equalsIgnoreCase(options.getOrDefault("arrivals", "poisson"));
+        final int accountCount = Integer.parseInt(options.getOrDefault("accounts", "1000"));
+        final double skew = Double.parseDouble(options.getOrDefault("skew", "0.99"));
+        final Map<Operation, Double> mix = parseMix(options.getOrDefault("mix", "read:50,create:5,transfer:30,history:10,scan:5"));
+        final int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "10000"));
+        final Duration timeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout", "10")));
+
+        final HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+        final String runId = UUID.randomUUID().toString().substring(0, 8);
+        final int[] accountIds = importAccounts(client, baseUrl, runId, accountCount);
+        final Workload workload = new Workload(baseUrl, runId, timeout, accountIds, skew, mix);
+        final LatencyReport report = new LatencyReport();
+
+        out.printf("Offering %.0f req/s (%s arrivals) to %s for %d s after a %d s warm-up%n",
+                rate, poisson ? "poisson" : "uniform", baseUrl, durationSeconds, warmupSeconds);
+        out.printf("%d accounts, skew %.2f, mix %s%n", accountIds.length, skew, mix);
+
+        final AtomicInteger inFlight = new AtomicInteger();
+        final Random random = new Random();
+        final double intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        final long start = System.nanoTime();
+        final long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        final long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long sent = 0;
+        // Kept as a double, so intervals below a nanosecond don't round to zero
+        double due = start;
+        while (due < end) {
+            final long dueNanos = (long) due;
+            final long wait = dueNanos - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            final Operation operation = workload.nextOperation(random);
+            final HttpRequest request = workload.request(operation, random);
+            final boolean measured = dueNanos >= measureFrom;
+            if (inFlight.get() >= maxInFlight) {
+                if (measured) {
+                    report.recordDropped();
+                }
+            } else {
+                inFlight.incrementAndGet();
+                sent++;
+                client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                    inFlight.decrementAndGet();
+                    if (measured) {
+                        report.record(operation, System.nanoTime() - dueNanos, failure != null ? describe(failure)
+                                : response.statusCode() / 100 == 2 ? null : "HTTP " + response.statusCode());
+                    }
+                });
+            }
+            due += poisson ? -Math.log(1 - random.nextDouble()) * intervalNanos : intervalNanos;
+        }
+
+        final long drainUntil = System.nanoTime() + timeout.toNanos() + TimeUnit.SECONDS.toNanos(1);
+        while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+            Thread.sleep(10);
+        }
+        out.printf("%d requests sent, %d still in flight%n%n", sent, inFlight.get());
+        report.print(out, durationSeconds);
+    }
+
+    /**
+     * Imports accounts with a large balance through POST /accounts/import, so transfers rarely run out of money
+     *
+     * @return ids of the imported accounts
+     */
+    private int[] importAccounts(HttpClient client, String baseUrl, String runId, int count)
+            throws IOException, InterruptedException {
+        final String emailPrefix = "load-" + runId + "-";
+        final StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            lines.append("{\"balance\":1000000,\"email\":\"").append(emailPrefix).append(i).append("@bank.com\"}\n");
+        }
+        final HttpResponse<String> imported = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/accounts/import"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(lines.toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (imported.statusCode() != 200) {
+            throw new IllegalStateException("Account import failed with HTTP " + imported.statusCode() + ": " + imported.body());
+        }
+
+        final HttpResponse<InputStream> listed = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/accounts"))
+                .build(), HttpResponse.BodyHandlers.ofInputStream());
+        final List<Integer> ids = new ArrayList<>(count);
+        try (InputStream body = listed.body()) {
+            for (JsonNode account : new ObjectMapper().readTree(body)) {
+                if (account.path("email").asText().startsWith(emailPrefix)) {
+                    ids.add(account.path("id").asInt());
+                }
+            }
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static Map<Operation, Double> parseMix(String mix) {
+        final Map<Operation, Double> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            final String[] parts = entry.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Mix entries are <operation>:<weight>, not " + entry);
+            }
+            weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), Double.parseDouble(parts[1]));
+        }
+        return weights;
+    }
+
+    private static String describe(Throwable failure) {
+        final Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+        return cause.getClass().getSimpleName();
+    }
+
+    /**
+     * @return spark.port as the started application reads it
+     */
+    private static String localPort() throws IOException {
+        final Properties properties = new Properties();
+        try (InputStream in = LoadGenerator.class.getClassLoader().getResourceAsStream("config.properties")) {
+            properties.load(in);
+        }
+        return System.getProperty("spark.port", properties.getProperty("spark.port"));
+    }
+}
@@ -0,0 +1,27 @@
+package com.bank.rest.benchmark.load;
+
+/**
+ * Request kinds of the load mix
+ */
+enum Operation {
+    /**
+     * GET /accounts/:id of a skewed account
+     */
+    READ,
+    /**
+     * POST /accounts of a new account
+     */
+    CREATE,
+    /**
+     * POST /transactions between two skewed accounts
+     */
+    TRANSFER,
+    /**
+     * GET /accounts/:id/transactions, the latest page of a skewed account
+     */
+    HISTORY,
+    /**
+     * GET /transactions?after_id=, a page from a random place of the ledger
+     */
+    SCAN
+}
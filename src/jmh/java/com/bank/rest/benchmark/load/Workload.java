@@ -0,0 +1,121 @@
+package com.bank.rest.benchmark.load;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds the requests of a weighted mix of {@link Operation}s against the accounts of one run.
+ * Accounts are picked by a {@link ZipfSampler}, over a shuffled order of ids so the hot accounts are spread
+ * over the id range and the account lock stripes.
+ */
+final class Workload {
+
+    private static final int PAGE_SIZE = 100;
+
+    private final String baseUrl;
+    private final String runId;
+    private final Duration timeout;
+    private final int[] accountIds;
+    private final ZipfSampler accounts;
+    private final Operation[] operations;
+    private final double[] cumulativeWeights;
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong transfers = new AtomicLong();
+
+    /**
+     * @param baseUrl    e.g. http://localhost:9090
+     * @param runId      part of the emails of created accounts, unique per run
+     * @param timeout    how long a request may take before it fails
+     * @param accountIds accounts read and transferred between, at least two
+     * @param skew       Zipf exponent of the account picks, 0 for uniform
+     * @param mix        relative weight of each operation
+     */
+    Workload(String baseUrl, String runId, Duration timeout, int[] accountIds, double skew, Map<Operation, Double> mix) {
+        if (accountIds.length < 2) {
+            throw new IllegalArgumentException("Transfers need at least two accounts");
+        }
+        this.baseUrl = baseUrl;
+        this.runId = runId;
+        this.timeout = timeout;
+        this.accountIds = accountIds.clone();
+        final Random shuffle = new Random(accountIds.length);
+        for (int i = this.accountIds.length - 1; i > 0; i--) {
+            final int j = shuffle.nextInt(i + 1);
+            final int id = this.accountIds[i];
+            this.accountIds[i] = this.accountIds[j];
+            this.accountIds[j] = id;
+        }
+        this.accounts = new ZipfSampler(accountIds.length, skew);
+
+        final Map<Operation, Double> weights = new EnumMap<>(mix);
+        weights.values().removeIf(weight -> weight <= 0);
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix has no operation with a positive weight");
+        }
+        operations = weights.keySet().toArray(new Operation[0]);
+        cumulativeWeights = new double[operations.length];
+        double sum = 0;
+        for (int i = 0; i < operations.length; i++) {
+            sum += weights.get(operations[i]);
+            cumulativeWeights[i] = sum;
+        }
+        for (int i = 0; i < operations.length; i++) {
+            cumulativeWeights[i] /= sum;
+        }
+    }
+
+    Operation nextOperation(Random random) {
+        final double draw = random.nextDouble();
+        for (int i = 0; i < operations.length - 1; i++) {
+            if (draw < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    HttpRequest request(Operation operation, Random random) {
+        switch (operation) {
+            case READ:
+                return get("/api/v1/accounts/" + nextAccount(random));
+            case CREATE:
+                return post("/api/v1/accounts", "{\"balance\":1000,\"email\":\"load-" + runId + "-new-"
+                        + created.incrementAndGet() + "@bank.com\"}");
+            case TRANSFER:
+                final int source = nextAccount(random);
+                int target = nextAccount(random);
+                while (target == source) {
+                    target = nextAccount(random);
+                }
+                transfers.incrementAndGet();
+                return post("/api/v1/transactions", "{\"source\":" + source + ",\"target\":" + target + ",\"amount\":0.01}");
+            case HISTORY:
+                return get("/api/v1/accounts/" + nextAccount(random) + "/transactions?limit=" + PAGE_SIZE);
+            case SCAN:
+            default:
+                final long afterId = (long) (random.nextDouble() * transfers.get());
+                return get("/api/v1/transactions?after_id=" + afterId + "&limit=" + PAGE_SIZE);
+        }
+    }
+
+    private int nextAccount(Random random) {
+        return accountIds[accounts.next(random)];
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(timeout).build();
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
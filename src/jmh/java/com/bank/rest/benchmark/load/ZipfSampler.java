@@ -0,0 +1,33 @@
+package com.bank.rest.benchmark.load;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Draws indexes from 0 to n - 1 with a Zipf distribution, index k with a probability proportional to 1 / (k + 1)^exponent.
+ * Exponent 0 is uniform, around 1 a few indexes get most draws.
+ */
+final class ZipfSampler {
+
+    private final double[] cumulative;
+
+    ZipfSampler(int n, double exponent) {
+        if (n < 1) {
+            throw new IllegalArgumentException("At least one index is needed");
+        }
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cumulative[k] /= sum;
+        }
+    }
+
+    int next(Random random) {
+        final int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+}
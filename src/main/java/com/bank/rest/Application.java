@@ -3,48 +3,154 @@ package com.bank.rest;
 import com.bank.rest.controller.RestController;
 import com.bank.rest.repository.AccountRepository;
 import com.bank.rest.repository.TransactionRepository;
+import com.bank.rest.repository.TransferListener;
 import com.bank.rest.repository.impl.AccountRepositoryImpl;
+import com.bank.rest.repository.impl.CachingAccountRepository;
+import com.bank.rest.repository.impl.IdempotencyRepositoryImpl;
+import com.bank.rest.repository.impl.LedgerAccountRepository;
+import com.bank.rest.repository.impl.LedgerTransactionRepository;
+import com.bank.rest.repository.impl.SequencedTransactionRepository;
 import com.bank.rest.repository.impl.TransactionRepositoryImpl;
 import com.bank.rest.service.AccountService;
 import com.bank.rest.service.TransactionService;
 import com.bank.rest.service.impl.AccountServiceImpl;
 import com.bank.rest.service.impl.TransactionServiceImpl;
+import com.bank.rest.util.idempotency.IdempotencyKeys;
+import com.bank.rest.util.journal.TransferJournal;
+import com.bank.rest.util.json.JsonCodec;
+import com.bank.rest.util.json.TransactionChunkCache;
+import com.bank.rest.util.ledger.Ledger;
+import com.bank.rest.util.ledger.LedgerConfig;
+import com.bank.rest.util.lock.StripedAccountLocks;
+import com.bank.rest.util.metrics.MetricsCollectors;
+import com.bank.rest.util.metrics.MetricsRegistry;
+import com.bank.rest.util.metrics.SqlMetrics;
+import com.bank.rest.util.migration.SchemaMigrations;
+import com.bank.rest.util.pool.ConnectionPool;
+import com.bank.rest.util.pool.ConnectionPoolConfig;
+import com.bank.rest.util.server.ServerThreads;
+import com.bank.rest.util.server.ServerThreadsConfig;
 import com.bank.rest.util.validators.TransactionValidator;
-import org.apache.commons.dbcp.BasicDataSource;
+import com.bank.rest.util.version.AccountChangeCounter;
+import org.eclipse.jetty.util.thread.ThreadPool;
 import org.jooq.Configuration;
 import org.jooq.ConnectionProvider;
 import org.jooq.DSLContext;
 import org.jooq.SQLDialect;
 import org.jooq.conf.Settings;
 import org.jooq.impl.DSL;
-import org.jooq.impl.DataSourceConnectionProvider;
 import org.jooq.impl.DefaultConfiguration;
 import org.jooq.impl.ThreadLocalTransactionProvider;
-import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spark.Spark;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 public class Application {
     private static final Logger LOG = LoggerFactory.getLogger(Application.class);
 
+    private static ConnectionPool connectionPool;
+    private static TransferJournal transferJournal;
+    private static SequencedTransactionRepository sequencedTransactionRepository;
+    private static Ledger ledger;
+
     public static void main(String[] args) {
+        final long started = System.nanoTime();
         final Properties properties = getProperties();
-        final DSLContext jooqDslCtx = getJooqDslCtx(properties);
+        connectionPool = ConnectionPool.create(ConnectionPoolConfig.fromProperties(properties));
+        final SqlMetrics sqlMetrics = new SqlMetrics(
+                Long.parseLong(properties.getProperty("db.slow-query-threshold-ms", "100")));
+        final DSLContext jooqDslCtx = getJooqDslCtx(properties, connectionPool, sqlMetrics);
+        initDatabase(properties, jooqDslCtx);
+        final MetricsRegistry metricsRegistry = new MetricsRegistry()
+                .register(MetricsCollectors.connectionPool(connectionPool))
+                .register(sqlMetrics);
+
+        final boolean ledgerEngine = "ledger".equalsIgnoreCase(properties.getProperty("storage.engine", "h2"));
+        if (ledgerEngine) {
+            ledger = openLedger(properties, jooqDslCtx);
+            metricsRegistry.register(MetricsCollectors.ledger(ledger));
+        } else {
+            Ledger.invalidate(jooqDslCtx);
+        }
+        AccountRepository accountRepository = ledgerEngine
+                ? new LedgerAccountRepository(ledger)
+                : new AccountRepositoryImpl(jooqDslCtx);
+        TransferListener transferListener = TransferListener.NONE;
+        if (Boolean.parseBoolean(properties.getProperty("account.cache.enabled", "false"))) {
+            final CachingAccountRepository cachingAccountRepository = new CachingAccountRepository(accountRepository,
+                    Long.parseLong(properties.getProperty("account.cache.maximum-size", "10000")),
+                    Duration.ofSeconds(Long.parseLong(properties.getProperty("account.cache.expire-after-write-seconds", "60"))));
+            accountRepository = cachingAccountRepository;
+            transferListener = cachingAccountRepository;
+            metricsRegistry.register(MetricsCollectors.accountCache(cachingAccountRepository));
+        }
+        if (Boolean.parseBoolean(properties.getProperty("journal.enabled", "false"))) {
+            transferJournal = openJournal(properties);
+            transferListener = transferListener.andThen(transferJournal);
+            metricsRegistry.register(MetricsCollectors.transferJournal(transferJournal));
+        }
+        final AccountChangeCounter accountChangeCounter = new AccountChangeCounter();
+        transferListener = transferListener.andThen(accountChangeCounter);
+        final TransactionRepositoryImpl.TransferMode transferMode = TransactionRepositoryImpl.TransferMode.valueOf(
+                properties.getProperty("transaction.transfer-mode", "atomic").toUpperCase());
+        final StripedAccountLocks accountLocks = new StripedAccountLocks(
+                Integer.parseInt(properties.getProperty("transaction.lock-stripes", "1024")));
+        metricsRegistry.register(MetricsCollectors.accountLocks(accountLocks));
+        TransactionRepository transactionRepository = new TransactionRepositoryImpl(jooqDslCtx, accountRepository,
+                new TransactionValidator(), transferMode, accountLocks, transferListener);
+        if (ledgerEngine) {
+            transactionRepository = new LedgerTransactionRepository(ledger, transactionRepository,
+                    new TransactionValidator(), transferListener);
+        }
+        if (Boolean.parseBoolean(properties.getProperty("transaction.sequencer.enabled", "false"))) {
+            sequencedTransactionRepository = new SequencedTransactionRepository(transactionRepository,
+                    new TransactionValidator(),
+                    Integer.parseInt(properties.getProperty("transaction.sequencer.max-batch-size", "256")),
+                    Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(
+                            Long.parseLong(properties.getProperty("transaction.sequencer.max-linger-micros", "200")))),
+                    Integer.parseInt(properties.getProperty("transaction.sequencer.queue-capacity", "65536")));
+            transactionRepository = sequencedTransactionRepository;
+            metricsRegistry.register(MetricsCollectors.transferSequencer(sequencedTransactionRepository));
+        }
+
+        IdempotencyKeys idempotencyKeys = null;
+        if (Boolean.parseBoolean(properties.getProperty("idempotency.enabled", "true"))) {
+            idempotencyKeys = new IdempotencyKeys(new IdempotencyRepositoryImpl(jooqDslCtx),
+                    Long.parseLong(properties.getProperty("idempotency.cache.maximum-size", "100000")),
+                    Duration.ofHours(Long.parseLong(properties.getProperty("idempotency.retention-hours", "24"))));
+            metricsRegistry.register(MetricsCollectors.idempotencyKeys(idempotencyKeys));
+        }
 
-        AccountRepository accountRepository = new AccountRepositoryImpl(jooqDslCtx);
-        TransactionRepository transactionRepository = new TransactionRepositoryImpl(jooqDslCtx, accountRepository, new TransactionValidator());
+        final JsonCodec jsonCodec = new JsonCodec();
+        final TransactionChunkCache transactionChunkCache = new TransactionChunkCache(jsonCodec,
+                Integer.parseInt(properties.getProperty("transaction.chunk-cache.chunk-size", "1000")),
+                Long.parseLong(properties.getProperty("transaction.chunk-cache.maximum-bytes", "67108864")));
+        metricsRegistry.register(MetricsCollectors.transactionChunkCache(transactionChunkCache));
 
-        final ModelMapper modelMapper = new ModelMapper();
+        AccountService accountService = new AccountServiceImpl(accountRepository,
+                Integer.parseInt(properties.getProperty("account.import.batch-size", "1000")), accountChangeCounter);
+        TransactionService transactionService = new TransactionServiceImpl(transactionRepository,
+                Integer.parseInt(properties.getProperty("transaction.batch-max-size", "10000")), idempotencyKeys,
+                transactionChunkCache);
 
-        AccountService accountService = new AccountServiceImpl(accountRepository, modelMapper);
-        TransactionService transactionService = new TransactionServiceImpl(transactionRepository, modelMapper);
+        final ServerThreadsConfig serverThreadsConfig = ServerThreadsConfig.fromProperties(properties);
+        final ThreadPool serverThreads = ServerThreads.create(serverThreadsConfig);
+        metricsRegistry.register(MetricsCollectors.serverThreads(serverThreads));
+        LOG.info("Running requests on {} threads", serverThreadsConfig.getMode().name().toLowerCase());
 
-        RestController controller = new RestController(accountService, transactionService);
-        controller.register(Integer.parseInt(properties.getProperty("spark.port")));
+        RestController controller = new RestController(accountService, transactionService, jsonCodec, metricsRegistry);
+        controller.register(Integer.parseInt(properties.getProperty("spark.port")), serverThreads);
+        LOG.info("Initialized in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
     }
 
     public static void start() {
@@ -55,25 +161,123 @@ public class Application {
     public static void stop() {
         Spark.stop();
         Spark.awaitStop();
+        if (sequencedTransactionRepository != null) {
+            try {
+                sequencedTransactionRepository.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sequencedTransactionRepository = null;
+        }
+        if (ledger != null) {
+            try {
+                ledger.close();
+            } catch (IOException e) {
+                LOG.error("Could not close ledger ", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ledger = null;
+        }
+        if (transferJournal != null) {
+            try {
+                transferJournal.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            transferJournal = null;
+        }
+        if (connectionPool != null) {
+            shutdownDatabase();
+            connectionPool.close();
+            connectionPool = null;
+        }
     }
 
-    private static DSLContext getJooqDslCtx(Properties properties) {
-        final BasicDataSource dataSource = new BasicDataSource();
-
-        dataSource.setDriverClassName(properties.getProperty("db.driver"));
-        dataSource.setUrl(properties.getProperty("db.url"));
-        dataSource.setUsername(properties.getProperty("db.username"));
-        dataSource.setPassword(properties.getProperty("db.password"));
+    /**
+     * Closes the database before the pool, so an in-memory database is dropped as well and starts empty next time,
+     * and a file database is written and closed cleanly, which makes the next start faster
+     */
+    private static void shutdownDatabase() {
+        boolean shutDown = false;
+        try (Connection connection = connectionPool.getDataSource().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+            shutDown = true;
+        } catch (SQLException e) {
+            if (shutDown) {
+                // The pool resets the connection on return, which fails once the database is closed
+                LOG.debug("Connection closed by database shutdown", e);
+            } else {
+                LOG.error("Could not shut down database", e);
+            }
+        }
+    }
 
-        final ConnectionProvider cp = new DataSourceConnectionProvider(dataSource);
+    private static DSLContext getJooqDslCtx(Properties properties, ConnectionPool connectionPool, SqlMetrics sqlMetrics) {
+        final ConnectionProvider cp = connectionPool.getConnectionProvider();
         final Configuration configuration = new DefaultConfiguration()
                 .set(cp)
                 .set(SQLDialect.H2)
                 .set(new ThreadLocalTransactionProvider(cp, true))
-                .set(new Settings().withExecuteWithOptimisticLocking(true));
+                .set(sqlMetrics)
+                .set(new Settings()
+                        .withExecuteWithOptimisticLocking(true)
+                        .withExecuteLogging(Boolean.parseBoolean(properties.getProperty("db.execute-logging", "false")))
+                        .withFetchSize(Integer.parseInt(properties.getProperty("db.fetch-size", "1000"))));
         return DSL.using(configuration);
     }
 
+    /**
+     * Applies the H2 store settings and the pending schema migrations once per start, not on every new pooled
+     * connection. The seed script only runs on a database without any migration, i.e. on the first start.
+     */
+    private static void initDatabase(Properties properties, DSLContext jooqDslCtx) {
+        final long started = System.nanoTime();
+        final String cacheSize = properties.getProperty("db.h2.cache-size-kb");
+        if (cacheSize != null) {
+            jooqDslCtx.execute("SET CACHE_SIZE " + Integer.parseInt(cacheSize));
+        }
+        final String writeDelay = properties.getProperty("db.h2.write-delay-ms");
+        if (writeDelay != null) {
+            jooqDslCtx.execute("SET WRITE_DELAY " + Integer.parseInt(writeDelay));
+        }
+
+        final SchemaMigrations migrations = new SchemaMigrations(jooqDslCtx);
+        final boolean newDatabase = migrations.getCurrentVersion() == 0;
+        final int applied = migrations.migrate();
+        final String seedScript = properties.getProperty("db.seed-script", "");
+        if (newDatabase && !seedScript.isEmpty()) {
+            jooqDslCtx.execute("RUNSCRIPT FROM '" + seedScript + "'");
+        }
+        LOG.info("Database at schema version {} after {} ms, {} migrations applied", migrations.getCurrentVersion(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), applied);
+    }
+
+    private static Ledger openLedger(Properties properties, DSLContext jooqDslCtx) {
+        try {
+            return Ledger.open(LedgerConfig.fromProperties(properties), jooqDslCtx);
+        } catch (IOException e) {
+            LOG.error("Could not open ledger ", e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static TransferJournal openJournal(Properties properties) {
+        try {
+            return new TransferJournal(Paths.get(properties.getProperty("journal.directory", "journal")),
+                    Integer.parseInt(properties.getProperty("journal.segment-records", "1048576")),
+                    Integer.parseInt(properties.getProperty("journal.queue-capacity", "65536")),
+                    Long.parseLong(properties.getProperty("journal.force-interval-ms", "1000")));
+        } catch (IOException e) {
+            LOG.error("Could not open transfer journal ", e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads config.properties, a system property of the same name overrides a value, e.g. -Dstorage.engine=ledger
+     */
     private static Properties getProperties() {
         final Properties properties = new Properties();
         try {
@@ -82,6 +286,12 @@ public class Application {
             LOG.error("Could not read properties ", e);
             throw new RuntimeException("Could not read properties");
         }
+        for (String name : properties.stringPropertyNames()) {
+            final String override = System.getProperty(name);
+            if (override != null) {
+                properties.setProperty(name, override);
+            }
+        }
         return properties;
     }
 }
@@ -0,0 +1,54 @@
+package com.bank.rest.controller;
+
+import com.bank.rest.util.json.DataFormat;
+
+/**
+ * Strong entity tags of versioned resources, one per version and response format.
+ * The tags carry the start time of the application, so versions starting over after a restart,
+ * e.g. with an in-memory database, never repeat a tag of an earlier run.
+ */
+final class EntityTags {
+
+    private final String epoch;
+
+    EntityTags() {
+        this(Long.toString(System.currentTimeMillis(), Character.MAX_RADIX));
+    }
+
+    EntityTags(String epoch) {
+        this.epoch = epoch;
+    }
+
+    /**
+     * @return quoted tag of the version in the format
+     */
+    String of(long version, DataFormat format) {
+        return '"' + epoch + '-' + version + '-' + format.name().toLowerCase() + '"';
+    }
+
+    /**
+     * Compares weakly, as If-None-Match does, so a tag sent back with a W/ prefix by a proxy still matches
+     *
+     * @param ifNoneMatch If-None-Match header, or null
+     * @param tag         current tag of the resource
+     * @return true if the header lists the tag or is *
+     */
+    static boolean matches(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*")) {
+                return true;
+            }
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,66 @@
+package com.bank.rest.controller;
+
+import com.bank.rest.util.exception.NotAcceptableException;
+
+/**
+ * Formats of GET /transactions/export, chosen by the Accept header
+ */
+enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    final String contentType;
+    final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    /**
+     * Picks the first supported media range of the header, quality values aside,
+     * or throws NotAcceptableException if there is none
+     *
+     * @param accept Accept header, null for any format
+     * @return format to be written, NDJSON if the client accepts any
+     */
+    static ExportFormat negotiate(String accept) {
+        if (accept == null || accept.trim().isEmpty()) {
+            return NDJSON;
+        }
+        for (String range : accept.split(",")) {
+            final int parameters = range.indexOf(';');
+            final String mediaType = (parameters < 0 ? range : range.substring(0, parameters)).trim().toLowerCase();
+            switch (mediaType) {
+                case "application/x-ndjson":
+                case "application/ndjson":
+                case "application/*":
+                case "*/*":
+                    return NDJSON;
+                case "text/csv":
+                case "text/*":
+                    return CSV;
+                default:
+                    break;
+            }
+        }
+        throw new NotAcceptableException("Export is available as application/x-ndjson or text/csv");
+    }
+
+    /**
+     * @param acceptEncoding Accept-Encoding header, or null
+     * @return true if the client accepts a gzip-compressed body
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            final String[] parts = coding.split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
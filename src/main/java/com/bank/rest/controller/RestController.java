@@ -2,54 +2,131 @@ package com.bank.rest.controller;
 
 import com.bank.rest.dto.AccountDTO;
 import com.bank.rest.dto.TransactionDTO;
+import com.bank.rest.dto.TransactionResultDTO;
+import com.bank.rest.dto.VersionedDTO;
 import com.bank.rest.service.AccountService;
 import com.bank.rest.service.TransactionService;
+import com.bank.rest.util.csv.TransactionCsvWriter;
 import com.bank.rest.util.exception.BadRequestFormatException;
+import com.bank.rest.util.exception.IdempotencyConflictException;
+import com.bank.rest.util.exception.NotAcceptableException;
 import com.bank.rest.util.exception.ResourceNotFoundException;
+import com.bank.rest.util.exception.ServiceUnavailableException;
 import com.bank.rest.util.exception.ValidationNotEnouhMoneyException;
+import com.bank.rest.util.json.DataFormat;
+import com.bank.rest.util.json.JsonCodec;
+import com.bank.rest.util.metrics.MetricsRegistry;
+import com.bank.rest.util.metrics.PrometheusWriter;
+import com.bank.rest.util.metrics.RequestMetrics;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.jetty.util.thread.ThreadPool;
 import org.jooq.exception.DataAccessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spark.ExceptionHandler;
+import spark.Request;
 import spark.Response;
+import spark.Route;
+import spark.RouteGroup;
+import spark.Spark;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletRequestWrapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import static java.net.HttpURLConnection.*;
 import static spark.Spark.*;
 
 public class RestController {
 
+    private static final Logger LOG = LoggerFactory.getLogger(RestController.class);
+
     private static final String EMPTY_BODY = "";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
 
     private final AccountService accountService;
     private final TransactionService transactionService;
+    private final JsonCodec jsonCodec;
+    private final MetricsRegistry metricsRegistry;
+    private final RequestMetrics requestMetrics = new RequestMetrics();
+    private final EntityTags entityTags = new EntityTags();
 
-    public RestController(AccountService accountService, TransactionService transactionService) {
+    private String pathPrefix = "";
+
+    public RestController(AccountService accountService, TransactionService transactionService, JsonCodec jsonCodec,
+                          MetricsRegistry metricsRegistry) {
         this.accountService = accountService;
         this.transactionService = transactionService;
+        this.jsonCodec = jsonCodec;
+        this.metricsRegistry = metricsRegistry.register(requestMetrics);
     }
 
     public void register(int serverPort) {
+        register(serverPort, null);
+    }
+
+    /**
+     * @param threadPool threads running the requests, null for Spark's default pool
+     */
+    public void register(int serverPort, ThreadPool threadPool) {
+        EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY, threadPool == null ? new EmbeddedJettyFactory()
+                : new EmbeddedJettyFactory().withThreadPool(threadPool));
         port(serverPort);
 
+        get("/metrics", (req, res) -> {
+            res.status(HTTP_OK);
+            res.type(PrometheusWriter.CONTENT_TYPE);
+            return metricsRegistry.scrape();
+        });
+
         path("/api/v1",
                 () -> {
                     path("/accounts",
                             () -> {
-                                get("", (req, res) -> addTypeAndStatus(accountService.getAll(), res, HTTP_OK), this::transform);
+                                get("", (req, res) -> {
+                                    // Read before the accounts, so the tag is never newer than the list
+                                    if (notModified(accountService.getAllVersion(), req, res)) {
+                                        return EMPTY_BODY;
+                                    }
+                                    return writeArray(accountService.getAll(), AccountDTO.class, req, res);
+                                });
 
-                                get("/:id", (req, res) -> addTypeAndStatus(accountService.getById(req.params("id")), res, HTTP_OK), this::transform);
+                                get("/:id", (req, res) -> {
+                                    final VersionedDTO<AccountDTO> account = accountService.getVersionedById(req.params("id"));
+                                    if (notModified(account.getVersion(), req, res)) {
+                                        return EMPTY_BODY;
+                                    }
+                                    return write(account.getValue(), req, res);
+                                });
 
                                 post("", (req, res) -> {
-                                    accountService.create(transformAccountToDTO(req.body()));
+                                    accountService.create(jsonCodec.readAccount(req.bodyAsBytes(), requestFormat(req)));
                                     res.status(HTTP_CREATED);
                                     return EMPTY_BODY;
                                 });
 
+                                post("/import", (req, res) -> write(
+                                        accountService.importAccounts(jsonCodec.readAccountLines(bodyStream(req))), req, res));
+
                                 put("/:id", (req, res) -> {
-                                    accountService.update(transformAccountToDTO(req.body()), req.params("id"));
+                                    accountService.update(jsonCodec.readAccount(req.bodyAsBytes(), requestFormat(req)), req.params("id"));
                                     res.status(HTTP_OK);
                                     return EMPTY_BODY;
                                 });
 
+                                get("/:id/transactions", (req, res) -> write(
+                                        transactionService.getAccountHistory(req.params("id"), req.queryParams("from"),
+                                                req.queryParams("to"), req.queryParams("after_id"), req.queryParams("limit")),
+                                        req, res));
+
                                 delete("/:id", (req, res) -> {
                                     accountService.delete(req.params("id"));
                                     res.status(HTTP_OK);
@@ -59,12 +136,33 @@ public class RestController {
                     path("/transactions",
                             () -> {
                                 post("", (req, res) -> {
-                                    transactionService.performTransaction(transformTransactionToDTO(req.body()));
+                                    // A retry with the key of a transfer already made gets the same answer
+                                    if (!transactionService.performTransaction(
+                                            jsonCodec.readTransaction(req.bodyAsBytes(), requestFormat(req)),
+                                            req.headers(IDEMPOTENCY_KEY_HEADER))) {
+                                        res.header(IDEMPOTENT_REPLAYED_HEADER, "true");
+                                    }
                                     res.status(HTTP_CREATED);
                                     return EMPTY_BODY;
                                 });
 
-                                get("", (req, res) -> addTypeAndStatus(transactionService.getAll(), res, HTTP_OK), this::transform);
+                                get("", (req, res) -> {
+                                    if (Boolean.parseBoolean(req.queryParams("stream"))) {
+                                        return streamTransactions(req, res);
+                                    }
+                                    if (req.queryParams("after_id") != null || req.queryParams("limit") != null) {
+                                        return write(transactionService.getPage(req.queryParams("after_id"), req.queryParams("limit")), req, res);
+                                    }
+                                    return writeTransactionsSince(req.queryParams("since_id"), req, res);
+                                });
+
+                                get("/export", this::exportTransactions);
+
+                                post("/batch", (req, res) -> writeArray(
+                                        transactionService.performBatch(
+                                                jsonCodec.readTransactions(req.bodyAsBytes(), requestFormat(req)),
+                                                req.queryParamOrDefault("mode", "all_or_nothing")),
+                                        TransactionResultDTO.class, req, res));
                             });
                 });
 
@@ -86,12 +184,38 @@ public class RestController {
             response.body(e.getMessage());
         });
 
+        exception(IdempotencyConflictException.class, (e, request, response) -> {
+            response.type("application/json");
+            response.status(HTTP_CONFLICT);
+            response.body(e.getMessage());
+        });
+
+        exception(NotAcceptableException.class, (e, request, response) -> {
+            response.type("application/json");
+            response.status(HTTP_NOT_ACCEPTABLE);
+            response.body(e.getMessage());
+        });
+
+        // Ledger changes while the database is too far behind, see ledger.write-behind.queue-capacity
+        exception(ServiceUnavailableException.class, (e, request, response) -> {
+            response.type("application/json");
+            response.status(HTTP_UNAVAILABLE);
+            response.body(e.getMessage());
+        });
+
         exception(ValidationNotEnouhMoneyException.class, (e, request, response) -> {
             response.type("application/json");
             response.status(HTTP_BAD_REQUEST);
             response.body(e.getMessage());
         });
 
+        // Money overflow, e.g. a transfer that would take the target balance out of range
+        exception(ArithmeticException.class, (e, request, response) -> {
+            response.type("application/json");
+            response.status(HTTP_BAD_REQUEST);
+            response.body("Amount out of range");
+        });
+
         exception(DataAccessException.class, (e, request, response) -> {
             response.type("application/json");
             response.status(HTTP_BAD_REQUEST);
@@ -101,24 +225,162 @@ public class RestController {
             response.type("application/json");
             response.status(HTTP_BAD_REQUEST);
         });
+
+        exception(Exception.class, (e, request, response) -> {
+            LOG.error("Unhandled exception on {} {}", request.requestMethod(), request.pathInfo(), e);
+            response.type("application/json");
+            response.status(HTTP_INTERNAL_ERROR);
+            response.body("Internal server error");
+        });
+    }
+
+    /*
+     * The methods below shadow the statically imported ones of Spark for the route table above.
+     * They register the same routes and handlers, instrumented by RequestMetrics and labelled with the full path,
+     * which Spark doesn't expose to a route.
+     */
+
+    private void path(String path, RouteGroup routeGroup) {
+        final String outerPrefix = pathPrefix;
+        pathPrefix = outerPrefix + path;
+        try {
+            Spark.path(path, routeGroup);
+        } finally {
+            pathPrefix = outerPrefix;
+        }
+    }
+
+    private void get(String path, Route route) {
+        Spark.get(path, requestMetrics.timed("GET", pathPrefix + path, route));
+    }
+
+    private void post(String path, Route route) {
+        Spark.post(path, requestMetrics.timed("POST", pathPrefix + path, route));
+    }
+
+    private void put(String path, Route route) {
+        Spark.put(path, requestMetrics.timed("PUT", pathPrefix + path, route));
+    }
+
+    private void delete(String path, Route route) {
+        Spark.delete(path, requestMetrics.timed("DELETE", pathPrefix + path, route));
+    }
+
+    private <T extends Exception> void exception(Class<T> exceptionClass, ExceptionHandler<? super T> handler) {
+        Spark.exception(exceptionClass, requestMetrics.counted(exceptionClass, handler));
+    }
+
+    /**
+     * Sets the ETag of the version in the response format and answers 304 if the client holds that tag already,
+     * without serializing the body
+     *
+     * @param version version of the resource, null if it is unknown and the response gets no tag
+     * @return true if the response is complete
+     */
+    private boolean notModified(Long version, Request req, Response res) {
+        if (version == null) {
+            return false;
+        }
+        final String tag = entityTags.of(version, DataFormat.fromAccept(req.headers("Accept")));
+        res.header("ETag", tag);
+        if (!EntityTags.matches(req.headers("If-None-Match"), tag)) {
+            return false;
+        }
+        res.header("Vary", "Accept");
+        res.status(HTTP_NOT_MODIFIED);
+        return true;
+    }
+
+    /**
+     * Writes the body in the format accepted by the client straight into the response,
+     * the returned empty body tells Spark there is nothing left to send
+     */
+    private Object write(Object body, Request req, Response res) throws IOException {
+        final DataFormat format = responseFormat(req, res);
+        jsonCodec.write(body, format, res.raw().getOutputStream());
+        return EMPTY_BODY;
+    }
+
+    private <T> Object writeArray(List<T> body, Class<T> elementType, Request req, Response res) throws IOException {
+        final DataFormat format = responseFormat(req, res);
+        jsonCodec.writeArray(body, elementType, format, res.raw().getOutputStream());
+        return EMPTY_BODY;
+    }
+
+    /**
+     * JSON is written from the encoded transaction chunks of the service, binary formats are encoded per request
+     */
+    private Object writeTransactionsSince(String sinceId, Request req, Response res) throws IOException {
+        final DataFormat format = responseFormat(req, res);
+        if (format == DataFormat.JSON) {
+            transactionService.writeSince(sinceId, res.raw().getOutputStream());
+        } else {
+            jsonCodec.writeArray(transactionService.getSince(sinceId), TransactionDTO.class, format,
+                    res.raw().getOutputStream());
+        }
+        return EMPTY_BODY;
+    }
+
+    /**
+     * Writes transactions as an array straight into the response while they are read from the DB
+     */
+    private Object streamTransactions(Request req, Response res) throws IOException {
+        final DataFormat format = responseFormat(req, res);
+        jsonCodec.writeArray(TransactionDTO.class, format, res.raw().getOutputStream(), transactionService::forEach);
+        return EMPTY_BODY;
     }
 
-    private String transform(Object source) throws JsonProcessingException {
-        return new ObjectMapper().writeValueAsString(source);
+    /**
+     * Writes all transactions as NDJSON or CSV straight into the response while they are read from the DB,
+     * compressed on the fly if the client accepts gzip
+     */
+    private Object exportTransactions(Request req, Response res) throws IOException {
+        final ExportFormat format = ExportFormat.negotiate(req.headers("Accept"));
+        res.status(HTTP_OK);
+        res.type(format.contentType);
+        res.header("Content-Disposition", "attachment; filename=\"transactions." + format.extension + "\"");
+        res.header("Vary", "Accept, Accept-Encoding");
+        OutputStream out = res.raw().getOutputStream();
+        if (ExportFormat.acceptsGzip(req.headers("Accept-Encoding"))) {
+            res.header("Content-Encoding", "gzip");
+            out = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+        }
+        if (format == ExportFormat.CSV) {
+            TransactionCsvWriter.write(out, transactionService::forEach);
+        } else {
+            jsonCodec.writeLines(TransactionDTO.class, out, transactionService::forEach);
+        }
+        return EMPTY_BODY;
     }
 
-    private AccountDTO transformAccountToDTO(String source) throws JsonProcessingException {
-        return new ObjectMapper().readValue(source, AccountDTO.class);
+    /**
+     * Spark's request wrapper reads the whole body into memory on the first read, so the body is read
+     * from the wrapped Jetty request instead
+     */
+    private static InputStream bodyStream(Request req) throws IOException {
+        ServletRequest request = req.raw();
+        while (request instanceof ServletRequestWrapper) {
+            request = ((ServletRequestWrapper) request).getRequest();
+        }
+        return request.getInputStream();
     }
 
-    private TransactionDTO transformTransactionToDTO(String source) throws JsonProcessingException {
-        return new ObjectMapper().readValue(source, TransactionDTO.class);
+    /**
+     * Request bodies are JSON unless their Content-Type names a binary format
+     */
+    private static DataFormat requestFormat(Request req) {
+        return DataFormat.fromContentType(req.contentType());
     }
 
-    private Object addTypeAndStatus(Object body, Response res, int statusCode) {
-        res.status(statusCode);
-        res.type("application/json");
-        return body;
+    /**
+     * Picks the response format from the Accept header and sets status and content type for it
+     */
+    private static DataFormat responseFormat(Request req, Response res) {
+        final DataFormat format = DataFormat.fromAccept(req.headers("Accept"));
+        res.status(HTTP_OK);
+        res.type(format.getContentType());
+        res.header("Vary", "Accept");
+        return format;
     }
 
 }
@@ -0,0 +1,36 @@
+package com.bank.rest.dto;
+
+import java.util.List;
+
+public class AccountImportDTO {
+
+    private Integer imported;
+
+    private Integer failed;
+
+    private List<AccountImportFailureDTO> failures;
+
+    public Integer getImported() {
+        return imported;
+    }
+
+    public void setImported(Integer imported) {
+        this.imported = imported;
+    }
+
+    public Integer getFailed() {
+        return failed;
+    }
+
+    public void setFailed(Integer failed) {
+        this.failed = failed;
+    }
+
+    public List<AccountImportFailureDTO> getFailures() {
+        return failures;
+    }
+
+    public void setFailures(List<AccountImportFailureDTO> failures) {
+        this.failures = failures;
+    }
+}
@@ -0,0 +1,24 @@
+package com.bank.rest.dto;
+
+public class AccountImportFailureDTO {
+
+    private Integer line;
+
+    private String message;
+
+    public Integer getLine() {
+        return line;
+    }
+
+    public void setLine(Integer line) {
+        this.line = line;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,29 @@
+package com.bank.rest.dto;
+
+import java.util.List;
+
+public class TransactionPageDTO {
+
+    private List<TransactionDTO> items;
+
+    /**
+     * Value of after_id for the next page, null if this is the last page
+     */
+    private Integer nextAfterId;
+
+    public List<TransactionDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<TransactionDTO> items) {
+        this.items = items;
+    }
+
+    public Integer getNextAfterId() {
+        return nextAfterId;
+    }
+
+    public void setNextAfterId(Integer nextAfterId) {
+        this.nextAfterId = nextAfterId;
+    }
+}
@@ -0,0 +1,34 @@
+package com.bank.rest.dto;
+
+public class TransactionResultDTO {
+
+    private Integer index;
+
+    private String status;
+
+    private String message;
+
+    public Integer getIndex() {
+        return index;
+    }
+
+    public void setIndex(Integer index) {
+        this.index = index;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,27 @@
+package com.bank.rest.dto;
+
+/**
+ * DTO with the version of the data it was read from
+ */
+public class VersionedDTO<T> {
+
+    private final T value;
+
+    private final Long version;
+
+    public VersionedDTO(T value, Long version) {
+        this.value = value;
+        this.version = version;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * @return version that changes with every change of the value, or null if it isn't known
+     */
+    public Long getVersion() {
+        return version;
+    }
+}
@@ -1,14 +1,14 @@
 package com.bank.rest.model;
 
-import java.math.BigDecimal;
-
 public class AccountModel {
 
     private Integer id;
 
     private String email;
 
-    private BigDecimal balance;
+    private Money balance;
+
+    private Long version;
 
     public Integer getId() {
         return id;
@@ -26,11 +26,22 @@ public class AccountModel {
         this.email = email;
     }
 
-    public BigDecimal getBalance() {
+    public Money getBalance() {
         return balance;
     }
 
-    public void setBalance(BigDecimal balance) {
+    public void setBalance(Money balance) {
         this.balance = balance;
     }
+
+    /**
+     * @return increased by every change of the account, so equal versions mean an equal representation
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,15 @@
+package com.bank.rest.model;
+
+/**
+ * How a batch of transfers is committed
+ */
+public enum BatchMode {
+    /**
+     * Either every transfer of the batch is committed or none is
+     */
+    ALL_OR_NOTHING,
+    /**
+     * Valid transfers are committed, rejected ones are reported and skipped
+     */
+    BEST_EFFORT
+}
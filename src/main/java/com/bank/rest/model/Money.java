@@ -0,0 +1,98 @@
+package com.bank.rest.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Amount of money as a long count of minor units of 10^-{@link #SCALE}, so transfers compare and add
+ * plain longs instead of allocating BigDecimals.
+ * <p>
+ * All accounts hold the same currency, the scale matches the DECIMAL(19, 4) balance and amount columns.
+ * Arithmetic throws ArithmeticException on overflow instead of wrapping around, which keeps every value
+ * within the range of the columns.
+ */
+public final class Money implements Comparable<Money> {
+
+    /**
+     * Decimal places of all amounts
+     */
+    public static final int SCALE = 4;
+
+    public static final Money ZERO = new Money(0);
+
+    private static final long UNITS_PER_WHOLE = 10_000;
+
+    private final long units;
+
+    private Money(long units) {
+        this.units = units;
+    }
+
+    /**
+     * @param units amount in units of 10^-{@link #SCALE}
+     */
+    public static Money ofUnits(long units) {
+        return units == 0 ? ZERO : new Money(units);
+    }
+
+    /**
+     * @throws ArithmeticException if the amount has more than {@link #SCALE} decimal places or doesn't fit into a long
+     */
+    public static Money of(BigDecimal amount) {
+        return ofUnits(amount.setScale(SCALE).unscaledValue().longValueExact());
+    }
+
+    /**
+     * @throws ArithmeticException if the amount doesn't fit into a long of units
+     */
+    public static Money of(long amount) {
+        return ofUnits(Math.multiplyExact(amount, UNITS_PER_WHOLE));
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public Money plus(Money other) {
+        return ofUnits(Math.addExact(units, other.units));
+    }
+
+    public Money minus(Money other) {
+        return ofUnits(Math.subtractExact(units, other.units));
+    }
+
+    public Money negate() {
+        return ofUnits(Math.negateExact(units));
+    }
+
+    public int signum() {
+        return Long.signum(units);
+    }
+
+    public boolean isLessThan(Money other) {
+        return units < other.units;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(units, other.units);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Money && units == ((Money) o).units);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(units);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -1,6 +1,5 @@
 package com.bank.rest.model;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 public class TransactionModel {
@@ -11,7 +10,7 @@ public class TransactionModel {
 
     private Integer target;
 
-    private BigDecimal amount;
+    private Money amount;
 
     private LocalDateTime transactionTime;
 
@@ -39,11 +38,11 @@ public class TransactionModel {
         this.target = target;
     }
 
-    public BigDecimal getAmount() {
+    public Money getAmount() {
         return amount;
     }
 
-    public void setAmount(BigDecimal amount) {
+    public void setAmount(Money amount) {
         this.amount = amount;
     }
 
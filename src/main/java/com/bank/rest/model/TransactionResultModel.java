@@ -0,0 +1,66 @@
+package com.bank.rest.model;
+
+public class TransactionResultModel {
+
+    public enum Status {
+        COMPLETED,
+        REJECTED,
+        ROLLED_BACK
+    }
+
+    /**
+     * Why a transfer was rejected, so callers don't have to tell by the message
+     */
+    public enum Reason {
+        INVALID,
+        ACCOUNT_NOT_FOUND,
+        NOT_ENOUGH_MONEY
+    }
+
+    private Status status;
+
+    private Reason reason;
+
+    private String message;
+
+    public TransactionResultModel() {
+    }
+
+    public TransactionResultModel(Status status, String message) {
+        this.status = status;
+        this.message = message;
+    }
+
+    public TransactionResultModel(Status status, Reason reason, String message) {
+        this.status = status;
+        this.reason = reason;
+        this.message = message;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * @return why the transfer was rejected, null unless it was
+     */
+    public Reason getReason() {
+        return reason;
+    }
+
+    public void setReason(Reason reason) {
+        this.reason = reason;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
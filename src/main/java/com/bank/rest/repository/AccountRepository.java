@@ -20,6 +20,14 @@ public interface AccountRepository {
      */
     void create(AccountModel account);
 
+    /**
+     * Creates new accounts, skipping those that cannot be stored, e.g. because the email is taken
+     *
+     * @param accounts new account models
+     * @return failure message per account in list order, null for an account that has been created
+     */
+    List<String> createBatch(List<AccountModel> accounts);
+
     /**
      * Finds account by id or null if account cannot be found
      *
@@ -0,0 +1,48 @@
+package com.bank.rest.repository;
+
+import com.bank.rest.model.IdempotencyKeyModel;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRepository {
+    /**
+     * Stores the key as in progress
+     *
+     * @param key       idempotency key
+     * @param request   the transfer the key is used for
+     * @param createdAt time the key is first used
+     * @return false if the key is already stored
+     */
+    boolean insert(String key, String request, LocalDateTime createdAt);
+
+    /**
+     * Finds the stored key
+     *
+     * @param key idempotency key
+     * @return stored key, or null if there is none
+     */
+    IdempotencyKeyModel findByKey(String key);
+
+    /**
+     * Marks the stored key as completed
+     *
+     * @param key         idempotency key
+     * @param completedAt time the transfer was completed
+     */
+    void complete(String key, LocalDateTime completedAt);
+
+    /**
+     * Deletes the stored key
+     *
+     * @param key idempotency key
+     */
+    void delete(String key);
+
+    /**
+     * Deletes keys first used before the provided time
+     *
+     * @param time exclusive upper bound of creation time
+     * @return number of deleted keys
+     */
+    int deleteCreatedBefore(LocalDateTime time);
+}
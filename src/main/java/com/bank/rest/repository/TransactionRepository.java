@@ -1,8 +1,12 @@
 package com.bank.rest.repository;
 
+import com.bank.rest.model.BatchMode;
 import com.bank.rest.model.TransactionModel;
+import com.bank.rest.model.TransactionResultModel;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface TransactionRepository {
     /**
@@ -13,10 +17,50 @@ public interface TransactionRepository {
      */
     void create(TransactionModel transaction);
 
+    /**
+     * Performs transfers in submission order within one DB transaction.
+     * Each transfer sees the balances left by the previous ones of the batch
+     *
+     * @param transactions transactions with source, target ids, and amount
+     * @param mode         whether a rejected transfer rolls back the whole batch
+     * @return result per transaction, in submission order
+     */
+    List<TransactionResultModel> createBatch(List<TransactionModel> transactions, BatchMode mode);
+
     /**
      * Finds all transactions
      *
      * @return list of transactions
      */
     List<TransactionModel> findAll();
+
+    /**
+     * Finds transactions with id greater than provided one, ordered by id
+     *
+     * @param afterId exclusive lower bound of transaction ids
+     * @param limit   maximum number of transactions
+     * @return list of transactions
+     */
+    List<TransactionModel> findPage(int afterId, int limit);
+
+    /**
+     * Finds transactions from or to the account, ordered by id,
+     * or throws ResourceNotFoundException if the account cannot be found
+     *
+     * @param accountId account id
+     * @param from      inclusive lower bound of transaction time, or null
+     * @param to        exclusive upper bound of transaction time, or null
+     * @param afterId   exclusive lower bound of transaction ids
+     * @param limit     maximum number of transactions
+     * @return list of transactions
+     */
+    List<TransactionModel> findByAccount(int accountId, LocalDateTime from, LocalDateTime to, int afterId, int limit);
+
+    /**
+     * Passes all transactions, ordered by id, to the consumer one at a time
+     * without loading the whole table into memory
+     *
+     * @param consumer transaction consumer
+     */
+    void forEach(Consumer<TransactionModel> consumer);
 }
@@ -0,0 +1,31 @@
+package com.bank.rest.repository;
+
+import com.bank.rest.model.TransactionModel;
+
+/**
+ * Callback for transfers whose balance changes have been committed
+ */
+@FunctionalInterface
+public interface TransferListener {
+
+    TransferListener NONE = transaction -> {
+    };
+
+    /**
+     * Called once per committed transfer, after the DB transaction is committed
+     *
+     * @param transaction committed transfer
+     */
+    void onTransferCommitted(TransactionModel transaction);
+
+    /**
+     * @param next listener to be called after this one
+     * @return listener calling this listener and then the next one
+     */
+    default TransferListener andThen(TransferListener next) {
+        return transaction -> {
+            onTransferCommitted(transaction);
+            next.onTransferCommitted(transaction);
+        };
+    }
+}
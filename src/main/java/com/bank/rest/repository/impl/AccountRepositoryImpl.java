@@ -4,15 +4,24 @@ import com.bank.rest.jooq.bank_schema.tables.records.AccountRecord;
 import com.bank.rest.model.AccountModel;
 import com.bank.rest.repository.AccountRepository;
 import com.bank.rest.util.exception.ResourceNotFoundException;
+import org.jooq.BatchBindStep;
 import org.jooq.DSLContext;
+import org.jooq.exception.DataAccessException;
+import org.jooq.exception.SQLStateClass;
 import spark.utils.Assert;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static com.bank.rest.jooq.bank_schema.tables.Account.ACCOUNT;
 
 public class AccountRepositoryImpl implements AccountRepository {
 
+    private static final String EMAIL_TAKEN = "Email is already taken";
+
     private final DSLContext ctx;
 
     public AccountRepositoryImpl(DSLContext ctx) {
@@ -37,6 +46,63 @@ public class AccountRepositoryImpl implements AccountRepository {
                 .execute();
     }
 
+    /**
+     * Looks up taken emails with one query and inserts the other accounts as one JDBC batch in one DB transaction.
+     * If a concurrent insert takes an email in between, the batch is rolled back as a whole
+     * and the accounts are inserted one by one to find the failing ones.
+     */
+    @Override
+    public List<String> createBatch(List<AccountModel> accounts) {
+        Assert.notNull(accounts);
+
+        final List<String> failures = new ArrayList<>(Collections.nCopies(accounts.size(), null));
+        final Set<String> emails = new HashSet<>();
+        for (int i = 0; i < accounts.size(); i++) {
+            if (!emails.add(accounts.get(i).getEmail())) {
+                failures.set(i, EMAIL_TAKEN);
+            }
+        }
+        final Set<String> takenEmails = ctx.select(ACCOUNT.EMAIL)
+                .from(ACCOUNT)
+                .where(ACCOUNT.EMAIL.in(emails))
+                .fetchSet(ACCOUNT.EMAIL);
+
+        final BatchBindStep insert = ctx.batch(ctx.insertInto(ACCOUNT, ACCOUNT.EMAIL, ACCOUNT.BALANCE, ACCOUNT.ACTIVE)
+                .values((String) null, null, null));
+        final List<Integer> inserted = new ArrayList<>(accounts.size());
+        for (int i = 0; i < accounts.size(); i++) {
+            final AccountModel account = accounts.get(i);
+            if (takenEmails.contains(account.getEmail())) {
+                failures.set(i, EMAIL_TAKEN);
+            } else if (failures.get(i) == null) {
+                insert.bind(account.getEmail(), account.getBalance(), true);
+                inserted.add(i);
+            }
+        }
+        if (inserted.isEmpty()) {
+            return failures;
+        }
+
+        try {
+            ctx.transaction(configuration -> insert.execute());
+        } catch (DataAccessException e) {
+            if (e.sqlStateClass() != SQLStateClass.C23_INTEGRITY_CONSTRAINT_VIOLATION) {
+                throw e;
+            }
+            for (int i : inserted) {
+                try {
+                    create(accounts.get(i));
+                } catch (DataAccessException rowException) {
+                    if (rowException.sqlStateClass() != SQLStateClass.C23_INTEGRITY_CONSTRAINT_VIOLATION) {
+                        throw rowException;
+                    }
+                    failures.set(i, EMAIL_TAKEN);
+                }
+            }
+        }
+        return failures;
+    }
+
     @Override
     public AccountModel findById(int id) {
         return ctx.selectFrom(ACCOUNT)
@@ -60,6 +126,7 @@ public class AccountRepositoryImpl implements AccountRepository {
         final int updatedRows = ctx.update(ACCOUNT)
                 .set(ACCOUNT.EMAIL, account.getEmail())
                 .set(ACCOUNT.BALANCE, account.getBalance())
+                .set(ACCOUNT.VERSION, ACCOUNT.VERSION.add(1))
                 .where(ACCOUNT.ID.eq(account.getId()))
                 .and(ACCOUNT.ACTIVE.eq(true))
                 .execute();
@@ -71,6 +138,7 @@ public class AccountRepositoryImpl implements AccountRepository {
     public void delete(int accountId) {
         final int updatedRows = ctx.update(ACCOUNT)
                 .set(ACCOUNT.ACTIVE, false)
+                .set(ACCOUNT.VERSION, ACCOUNT.VERSION.add(1))
                 .where(ACCOUNT.ID.eq(accountId))
                 .and(ACCOUNT.ACTIVE.eq(true))
                 .execute();
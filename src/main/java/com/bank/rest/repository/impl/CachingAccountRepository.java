@@ -0,0 +1,133 @@
+package com.bank.rest.repository.impl;
+
+import com.bank.rest.jooq.bank_schema.tables.records.AccountRecord;
+import com.bank.rest.model.AccountModel;
+import com.bank.rest.model.TransactionModel;
+import com.bank.rest.repository.AccountRepository;
+import com.bank.rest.repository.TransferListener;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Read-through cache of active accounts in front of another {@link AccountRepository}.
+ * <p>
+ * Only {@link #findById} is cached, records used for transfers are always read from the delegate.
+ * Entries are evicted by size and by age, and invalidated on update, delete and committed transfers,
+ * so this repository must also be registered as the {@link TransferListener} of the transaction repository.
+ * Unknown or inactive accounts are not cached.
+ */
+public class CachingAccountRepository implements AccountRepository, TransferListener {
+
+    private final AccountRepository delegate;
+    private final Cache<Integer, AccountModel> accounts;
+
+    public CachingAccountRepository(AccountRepository delegate, long maximumSize, Duration expireAfterWrite) {
+        this(delegate, maximumSize, expireAfterWrite, Ticker.systemTicker());
+    }
+
+    CachingAccountRepository(AccountRepository delegate, long maximumSize, Duration expireAfterWrite, Ticker ticker) {
+        this.delegate = delegate;
+        this.accounts = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .executor(Runnable::run)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public List<AccountModel> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public void create(AccountModel account) {
+        delegate.create(account);
+    }
+
+    @Override
+    public List<String> createBatch(List<AccountModel> accounts) {
+        return delegate.createBatch(accounts);
+    }
+
+    /**
+     * A concurrent invalidation of the same id waits for a running load,
+     * so a balance read before a commit cannot outlive the invalidation that follows it
+     */
+    @Override
+    public AccountModel findById(int id) {
+        return copyOf(accounts.get(id, delegate::findById));
+    }
+
+    @Override
+    public AccountRecord findRecordById(int id) {
+        return delegate.findRecordById(id);
+    }
+
+    @Override
+    public void update(AccountModel account) {
+        try {
+            delegate.update(account);
+        } finally {
+            accounts.invalidate(account.getId());
+        }
+    }
+
+    @Override
+    public void delete(int accountId) {
+        try {
+            delegate.delete(accountId);
+        } finally {
+            accounts.invalidate(accountId);
+        }
+    }
+
+    @Override
+    public void onTransferCommitted(TransactionModel transaction) {
+        accounts.invalidate(transaction.getSource());
+        accounts.invalidate(transaction.getTarget());
+    }
+
+    /**
+     * @return number of lookups served from the cache
+     */
+    public long getHitCount() {
+        return accounts.stats().hitCount();
+    }
+
+    /**
+     * @return number of lookups that went to the delegate
+     */
+    public long getMissCount() {
+        return accounts.stats().missCount();
+    }
+
+    /**
+     * @return number of entries dropped because of size or age, explicit invalidations are not counted
+     */
+    public long getEvictionCount() {
+        return accounts.stats().evictionCount();
+    }
+
+    public long getSize() {
+        return accounts.estimatedSize();
+    }
+
+    // Cached models are shared between threads, callers get their own copy to modify
+    private static AccountModel copyOf(AccountModel account) {
+        if (account == null) {
+            return null;
+        }
+        final AccountModel copy = new AccountModel();
+        copy.setId(account.getId());
+        copy.setEmail(account.getEmail());
+        copy.setBalance(account.getBalance());
+        copy.setVersion(account.getVersion());
+        return copy;
+    }
+}
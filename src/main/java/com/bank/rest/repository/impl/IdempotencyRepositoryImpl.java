@@ -0,0 +1,80 @@
+package com.bank.rest.repository.impl;
+
+import com.bank.rest.jooq.bank_schema.tables.records.IdempotencyKeyRecord;
+import com.bank.rest.model.IdempotencyKeyModel;
+import com.bank.rest.repository.IdempotencyRepository;
+import org.jooq.DSLContext;
+import org.jooq.exception.DataAccessException;
+import org.jooq.exception.SQLStateClass;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static com.bank.rest.jooq.bank_schema.tables.IdempotencyKey.IDEMPOTENCY_KEY;
+
+public class IdempotencyRepositoryImpl implements IdempotencyRepository {
+
+    private final DSLContext ctx;
+
+    public IdempotencyRepositoryImpl(DSLContext ctx) {
+        this.ctx = ctx;
+    }
+
+    /**
+     * The primary key decides between concurrent inserts of the same key, also across application instances
+     */
+    @Override
+    public boolean insert(String key, String request, LocalDateTime createdAt) {
+        try {
+            ctx.insertInto(IDEMPOTENCY_KEY)
+                    .set(IDEMPOTENCY_KEY.IDEMPOTENCY_KEY_, key)
+                    .set(IDEMPOTENCY_KEY.REQUEST, request)
+                    .set(IDEMPOTENCY_KEY.CREATED_AT, Timestamp.valueOf(createdAt))
+                    .execute();
+            return true;
+        } catch (DataAccessException e) {
+            if (e.sqlStateClass() == SQLStateClass.C23_INTEGRITY_CONSTRAINT_VIOLATION) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public IdempotencyKeyModel findByKey(String key) {
+        final IdempotencyKeyRecord record = ctx.selectFrom(IDEMPOTENCY_KEY)
+                .where(IDEMPOTENCY_KEY.IDEMPOTENCY_KEY_.eq(key))
+                .fetchAny();
+        if (record == null) {
+            return null;
+        }
+        final IdempotencyKeyModel model = new IdempotencyKeyModel();
+        model.setKey(record.getIdempotencyKey());
+        model.setRequest(record.getRequest());
+        model.setCreatedAt(record.getCreatedAt().toLocalDateTime());
+        model.setCompletedAt(record.getCompletedAt() == null ? null : record.getCompletedAt().toLocalDateTime());
+        return model;
+    }
+
+    @Override
+    public void complete(String key, LocalDateTime completedAt) {
+        ctx.update(IDEMPOTENCY_KEY)
+                .set(IDEMPOTENCY_KEY.COMPLETED_AT, Timestamp.valueOf(completedAt))
+                .where(IDEMPOTENCY_KEY.IDEMPOTENCY_KEY_.eq(key))
+                .execute();
+    }
+
+    @Override
+    public void delete(String key) {
+        ctx.deleteFrom(IDEMPOTENCY_KEY)
+                .where(IDEMPOTENCY_KEY.IDEMPOTENCY_KEY_.eq(key))
+                .execute();
+    }
+
+    @Override
+    public int deleteCreatedBefore(LocalDateTime time) {
+        return ctx.deleteFrom(IDEMPOTENCY_KEY)
+                .where(IDEMPOTENCY_KEY.CREATED_AT.lt(Timestamp.valueOf(time)))
+                .execute();
+    }
+}
@@ -0,0 +1,89 @@
+package com.bank.rest.repository.impl;
+
+import com.bank.rest.jooq.bank_schema.tables.records.AccountRecord;
+import com.bank.rest.model.AccountModel;
+import com.bank.rest.repository.AccountRepository;
+import com.bank.rest.util.exception.BadRequestFormatException;
+import com.bank.rest.util.exception.ServiceUnavailableException;
+import com.bank.rest.util.ledger.Ledger;
+import spark.utils.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Accounts held by the in-memory {@link Ledger}
+ */
+public class LedgerAccountRepository implements AccountRepository {
+
+    private final Ledger ledger;
+
+    public LedgerAccountRepository(Ledger ledger) {
+        this.ledger = ledger;
+    }
+
+    @Override
+    public List<AccountModel> findAll() {
+        return ledger.findAccounts();
+    }
+
+    @Override
+    public void create(AccountModel account) {
+        Assert.notNull(account);
+
+        ledger.createAccount(account.getEmail(), account.getBalance());
+    }
+
+    /**
+     * Accounts are created one by one, each is a single in-memory change and log record.
+     * Once the ledger rejects a change because the database is behind, the rest of the batch fails with it,
+     * the accounts created before stay created.
+     */
+    @Override
+    public List<String> createBatch(List<AccountModel> accounts) {
+        Assert.notNull(accounts);
+
+        final List<String> failures = new ArrayList<>(accounts.size());
+        for (AccountModel account : accounts) {
+            try {
+                ledger.createAccount(account.getEmail(), account.getBalance());
+                failures.add(null);
+            } catch (BadRequestFormatException | IllegalStateException e) {
+                failures.add(e.getMessage());
+            } catch (ServiceUnavailableException e) {
+                while (failures.size() < accounts.size()) {
+                    failures.add(e.getMessage());
+                }
+                break;
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public AccountModel findById(int id) {
+        return ledger.findAccount(id);
+    }
+
+    /**
+     * The record is detached, storing it doesn't change the ledger
+     */
+    @Override
+    public AccountRecord findRecordById(int id) {
+        final AccountModel account = ledger.findAccount(id);
+        return account == null ? null : new AccountRecord(account.getId(), account.getEmail(), account.getBalance(), true,
+                account.getVersion());
+    }
+
+    @Override
+    public void update(AccountModel account) {
+        Assert.notNull(account);
+
+        ledger.updateAccount(account.getId(), account.getEmail(), account.getBalance());
+    }
+
+    @Override
+    public void delete(int accountId) {
+        ledger.deleteAccount(accountId);
+    }
+}
@@ -0,0 +1,117 @@
+package com.bank.rest.repository.impl;
+
+import com.bank.rest.model.BatchMode;
+import com.bank.rest.model.TransactionModel;
+import com.bank.rest.model.TransactionResultModel;
+import com.bank.rest.repository.TransactionRepository;
+import com.bank.rest.repository.TransferListener;
+import com.bank.rest.util.exception.BadRequestFormatException;
+import com.bank.rest.util.ledger.Ledger;
+import com.bank.rest.util.validators.TransactionValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spark.utils.Assert;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Transfers made by the in-memory {@link Ledger}.
+ * <p>
+ * Queries of past transactions are served by another repository reading the database the ledger writes behind to,
+ * after waiting for the ledger's changes to get there, so a transfer is always visible to the queries that follow it.
+ */
+public class LedgerTransactionRepository implements TransactionRepository {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LedgerTransactionRepository.class);
+
+    private final Ledger ledger;
+    private final TransactionRepository history;
+    private final TransactionValidator transactionValidator;
+    private final TransferListener transferListener;
+
+    /**
+     * @param history repository reading the transaction table, its transfer methods are not used
+     */
+    public LedgerTransactionRepository(Ledger ledger, TransactionRepository history,
+                                       TransactionValidator transactionValidator, TransferListener transferListener) {
+        this.ledger = ledger;
+        this.history = history;
+        this.transactionValidator = transactionValidator;
+        this.transferListener = transferListener;
+    }
+
+    @Override
+    public void create(TransactionModel transaction) {
+        Assert.notNull(transaction);
+        transactionValidator.validateModel(transaction);
+
+        fireCommitted(ledger.transfer(transaction.getSource(), transaction.getTarget(), transaction.getAmount()));
+    }
+
+    @Override
+    public List<TransactionResultModel> createBatch(List<TransactionModel> transactions, BatchMode mode) {
+        Assert.notNull(transactions);
+        Assert.notNull(mode);
+
+        final TransactionResultModel[] results = new TransactionResultModel[transactions.size()];
+        for (int i = 0; i < transactions.size(); i++) {
+            final TransactionModel transaction = transactions.get(i);
+            try {
+                Assert.notNull(transaction);
+                transactionValidator.validateModel(transaction);
+            } catch (IllegalArgumentException | BadRequestFormatException e) {
+                results[i] = new TransactionResultModel(TransactionResultModel.Status.REJECTED,
+                        TransactionResultModel.Reason.INVALID, e.getMessage());
+            }
+        }
+
+        final boolean anyInvalid = Arrays.stream(results).anyMatch(Objects::nonNull);
+        if (!(mode == BatchMode.ALL_OR_NOTHING && anyInvalid)) {
+            final List<TransactionModel> made = ledger.transferAll(transactions, results, mode == BatchMode.ALL_OR_NOTHING);
+            made.forEach(this::fireCommitted);
+        }
+        if (mode == BatchMode.ALL_OR_NOTHING) {
+            TransactionRepositoryImpl.rollBackAcceptedIfAnyRejected(results);
+        }
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public List<TransactionModel> findAll() {
+        ledger.awaitWriteBehind();
+        return history.findAll();
+    }
+
+    @Override
+    public List<TransactionModel> findPage(int afterId, int limit) {
+        ledger.awaitWriteBehind();
+        return history.findPage(afterId, limit);
+    }
+
+    @Override
+    public List<TransactionModel> findByAccount(int accountId, LocalDateTime from, LocalDateTime to, int afterId, int limit) {
+        ledger.awaitWriteBehind();
+        return history.findByAccount(accountId, from, to, afterId, limit);
+    }
+
+    @Override
+    public void forEach(Consumer<TransactionModel> consumer) {
+        ledger.awaitWriteBehind();
+        history.forEach(consumer);
+    }
+
+    /**
+     * The transfer is already in the ledger at this point, so a failing listener is logged instead of failing the request
+     */
+    private void fireCommitted(TransactionModel transaction) {
+        try {
+            transferListener.onTransferCommitted(transaction);
+        } catch (RuntimeException e) {
+            LOG.error("Transfer listener failed", e);
+        }
+    }
+}
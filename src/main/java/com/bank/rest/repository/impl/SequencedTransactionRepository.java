@@ -0,0 +1,214 @@
+package com.bank.rest.repository.impl;
+
+import com.bank.rest.model.BatchMode;
+import com.bank.rest.model.TransactionModel;
+import com.bank.rest.model.TransactionResultModel;
+import com.bank.rest.repository.TransactionRepository;
+import com.bank.rest.util.batch.BatchWriter;
+import com.bank.rest.util.exception.BadRequestFormatException;
+import com.bank.rest.util.exception.ResourceNotFoundException;
+import com.bank.rest.util.exception.ValidationNotEnouhMoneyException;
+import com.bank.rest.util.validators.TransactionValidator;
+import spark.utils.Assert;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Runs single transfers of another {@link TransactionRepository} on one sequencer thread with group commit.
+ * <p>
+ * {@link #create} puts the transfer on a bounded queue and waits for its result. The sequencer takes up to
+ * the maximum batch size of queued transfers, waiting at most the linger time for more to arrive, and applies them
+ * with {@link TransactionRepository#createBatch} in {@link BatchMode#BEST_EFFORT} mode: one DB transaction and
+ * one lock acquisition per batch instead of per transfer, and transfers on hot accounts no longer wait for each other's
+ * commits. Each waiting caller gets the outcome of its own transfer once the batch has committed.
+ * <p>
+ * Batches and reads go straight to the delegate.
+ */
+public class SequencedTransactionRepository implements TransactionRepository, AutoCloseable {
+
+    private static final TransactionResultModel COMPLETED =
+            new TransactionResultModel(TransactionResultModel.Status.COMPLETED, null);
+
+    private final TransactionRepository delegate;
+    private final TransactionValidator transactionValidator;
+    private final BatchWriter<Pending> sequencer;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder transfers = new LongAdder();
+
+    /**
+     * @param delegate      repository applying the batches
+     * @param maxBatchSize  transfers committed together at most
+     * @param maxLinger     how long a batch waits for more transfers once it has the first one
+     * @param queueCapacity transfers waiting for the sequencer before callers block
+     */
+    public SequencedTransactionRepository(TransactionRepository delegate, TransactionValidator transactionValidator,
+                                          int maxBatchSize, Duration maxLinger, int queueCapacity) {
+        this.delegate = delegate;
+        this.transactionValidator = transactionValidator;
+
+        sequencer = new BatchWriter<>("transfer-sequencer", queueCapacity, maxBatchSize, maxLinger.toNanos(), 0,
+                new BatchWriter.Handler<Pending>() {
+                    @Override
+                    public void write(List<Pending> batch) {
+                        apply(batch);
+                    }
+
+                    @Override
+                    public void discard(List<Pending> items) {
+                        for (Pending pending : items) {
+                            pending.result.completeExceptionally(new IllegalStateException("Transfer sequencer is closed"));
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Throws the same exceptions as a transfer made by the delegate itself,
+     * malformed transfers are rejected on the caller's thread without being queued
+     */
+    @Override
+    public void create(TransactionModel transaction) {
+        Assert.notNull(transaction);
+        transactionValidator.validateModel(transaction);
+        if (!sequencer.isRunning()) {
+            throw new IllegalStateException("Transfer sequencer is closed");
+        }
+
+        final Pending pending = new Pending(transaction);
+        final TransactionResultModel result;
+        try {
+            sequencer.put(pending);
+            // Queued after close() has failed the leftovers, nothing takes it anymore
+            if (!sequencer.isRunning() && sequencer.remove(pending)) {
+                throw new IllegalStateException("Transfer sequencer is closed");
+            }
+            result = pending.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the transfer", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+
+        if (result.getStatus() != TransactionResultModel.Status.COMPLETED) {
+            switch (result.getReason()) {
+                case NOT_ENOUGH_MONEY:
+                    throw new ValidationNotEnouhMoneyException(result.getMessage());
+                case ACCOUNT_NOT_FOUND:
+                    throw new ResourceNotFoundException(result.getMessage());
+                default:
+                    throw new BadRequestFormatException(result.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public List<TransactionResultModel> createBatch(List<TransactionModel> transactions, BatchMode mode) {
+        return delegate.createBatch(transactions, mode);
+    }
+
+    @Override
+    public List<TransactionModel> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<TransactionModel> findPage(int afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public List<TransactionModel> findByAccount(int accountId, LocalDateTime from, LocalDateTime to, int afterId, int limit) {
+        return delegate.findByAccount(accountId, from, to, afterId, limit);
+    }
+
+    @Override
+    public void forEach(Consumer<TransactionModel> consumer) {
+        delegate.forEach(consumer);
+    }
+
+    /**
+     * @return group commits made so far
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * @return transfers applied by the sequencer so far, rejected ones included
+     */
+    public long getTransfers() {
+        return transfers.sum();
+    }
+
+    public int getQueueSize() {
+        return sequencer.getQueueSize();
+    }
+
+    /**
+     * Applies the queued transfers and waits for the sequencer to finish.
+     * Transfers queued after its last drain fail with IllegalStateException.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        sequencer.close();
+    }
+
+    /**
+     * A batch of one is applied with {@link TransactionRepository#create}: a batch reads its accounts with
+     * SELECT ... FOR UPDATE first, which costs more than a single transfer when there is nothing to share it with
+     */
+    private void apply(List<Pending> batch) {
+        if (batch.size() == 1) {
+            applySingle(batch.get(0));
+            return;
+        }
+        final List<TransactionModel> transactions = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            transactions.add(pending.transaction);
+        }
+        batches.increment();
+        transfers.add(batch.size());
+        try {
+            final List<TransactionResultModel> results = delegate.createBatch(transactions, BatchMode.BEST_EFFORT);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            for (Pending pending : batch) {
+                pending.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void applySingle(Pending pending) {
+        batches.increment();
+        transfers.increment();
+        try {
+            delegate.create(pending.transaction);
+            pending.result.complete(COMPLETED);
+        } catch (RuntimeException e) {
+            pending.result.completeExceptionally(e);
+        }
+    }
+
+    private static final class Pending {
+        private final TransactionModel transaction;
+        private final CompletableFuture<TransactionResultModel> result = new CompletableFuture<>();
+
+        private Pending(TransactionModel transaction) {
+            this.transaction = transaction;
+        }
+    }
+}
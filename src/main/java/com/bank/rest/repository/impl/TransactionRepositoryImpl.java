@@ -1,58 +1,383 @@
 package com.bank.rest.repository.impl;
 
 import com.bank.rest.jooq.bank_schema.tables.records.AccountRecord;
+import com.bank.rest.jooq.bank_schema.tables.records.TransactionRecord;
+import com.bank.rest.model.BatchMode;
+import com.bank.rest.model.Money;
 import com.bank.rest.model.TransactionModel;
+import com.bank.rest.model.TransactionResultModel;
 import com.bank.rest.repository.AccountRepository;
 import com.bank.rest.repository.TransactionRepository;
+import com.bank.rest.repository.TransferListener;
+import com.bank.rest.util.exception.BadRequestFormatException;
+import com.bank.rest.util.exception.ResourceNotFoundException;
+import com.bank.rest.util.exception.ValidationNotEnouhMoneyException;
+import com.bank.rest.util.lock.StripedAccountLocks;
 import com.bank.rest.util.validators.TransactionValidator;
+import org.jooq.BatchBindStep;
+import org.jooq.Condition;
+import org.jooq.Cursor;
 import org.jooq.DSLContext;
+import org.jooq.Record1;
+import org.jooq.Select;
+import org.jooq.impl.DSL;
 import org.jooq.tools.JooqLogger;
 import spark.utils.Assert;
 
 import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 
+import static com.bank.rest.jooq.bank_schema.tables.Account.ACCOUNT;
 import static com.bank.rest.jooq.bank_schema.tables.Transaction.TRANSACTION;
 
 public class TransactionRepositoryImpl implements TransactionRepository {
 
     private static final JooqLogger log = JooqLogger.getLogger(TransactionRepositoryImpl.class);
 
+    private static final int DEFAULT_LOCK_STRIPES = 1024;
+
+    public static final String ACCOUNT_NOT_FOUND = "Account ID not found";
+    public static final String NOT_ENOUGH_MONEY = "Not enough money on source account.";
+
+    /**
+     * How balances are moved between accounts
+     */
+    public enum TransferMode {
+        /**
+         * Loads both account records, computes new balances in Java and stores the records back
+         */
+        RECORD,
+        /**
+         * Debits and credits with single guarded UPDATE statements, so no account state is read beforehand
+         */
+        ATOMIC
+    }
+
     private final DSLContext ctx;
     private final AccountRepository accountRepository;
     private final TransactionValidator transactionValidator;
+    private final TransferMode transferMode;
+    private final StripedAccountLocks accountLocks;
+    private final TransferListener transferListener;
 
     public TransactionRepositoryImpl(DSLContext ctx, AccountRepository accountRepository, TransactionValidator transactionValidator) {
+        this(ctx, accountRepository, transactionValidator, TransferMode.ATOMIC, new StripedAccountLocks(DEFAULT_LOCK_STRIPES));
+    }
+
+    public TransactionRepositoryImpl(DSLContext ctx, AccountRepository accountRepository, TransactionValidator transactionValidator,
+                                     TransferMode transferMode, StripedAccountLocks accountLocks) {
+        this(ctx, accountRepository, transactionValidator, transferMode, accountLocks, TransferListener.NONE);
+    }
+
+    public TransactionRepositoryImpl(DSLContext ctx, AccountRepository accountRepository, TransactionValidator transactionValidator,
+                                     TransferMode transferMode, StripedAccountLocks accountLocks,
+                                     TransferListener transferListener) {
         this.ctx = ctx;
         this.accountRepository = accountRepository;
         this.transactionValidator = transactionValidator;
+        this.transferMode = transferMode;
+        this.accountLocks = accountLocks;
+        this.transferListener = transferListener;
     }
 
+    /**
+     * Source and target are locked in the JVM before the DB transaction starts, so transfers on the same accounts
+     * queue up here instead of waiting on (and possibly deadlocking over) row locks inside H2.
+     */
     @Override
     public void create(TransactionModel transaction) {
         Assert.notNull(transaction);
         transactionValidator.validateModel(transaction);
 
+        try (StripedAccountLocks.Held ignored = accountLocks.lock(transaction.getSource(), transaction.getTarget())) {
+            if (transferMode == TransferMode.ATOMIC) {
+                transferAtomically(transaction);
+            } else {
+                transferWithRecords(transaction);
+            }
+            fireCommitted(transaction);
+        }
+    }
+
+    /**
+     * Debit, credit and ledger insert are three statements in one DB transaction.
+     * The debit only matches an active source account holding at least the amount,
+     * so a zero update count means the transfer is rejected and nothing has been changed yet.
+     */
+    private void transferAtomically(TransactionModel transaction) {
+        ctx.transaction(configuration -> {
+            final int debited = ctx.update(ACCOUNT)
+                    .set(ACCOUNT.BALANCE, ACCOUNT.BALANCE.subtract(DSL.val(transaction.getAmount(), ACCOUNT.BALANCE)))
+                    .set(ACCOUNT.VERSION, ACCOUNT.VERSION.add(1))
+                    .where(ACCOUNT.ID.eq(transaction.getSource()))
+                    .and(ACCOUNT.ACTIVE.eq(true))
+                    .and(ACCOUNT.BALANCE.ge(transaction.getAmount()))
+                    .execute();
+            if (debited == 0) {
+                throw rejectedDebit(transaction.getSource());
+            }
+
+            final int credited = ctx.update(ACCOUNT)
+                    .set(ACCOUNT.BALANCE, ACCOUNT.BALANCE.add(DSL.val(transaction.getAmount(), ACCOUNT.BALANCE)))
+                    .set(ACCOUNT.VERSION, ACCOUNT.VERSION.add(1))
+                    .where(ACCOUNT.ID.eq(transaction.getTarget()))
+                    .and(ACCOUNT.ACTIVE.eq(true))
+                    .execute();
+            if (credited == 0) {
+                throw new ResourceNotFoundException(ACCOUNT_NOT_FOUND);
+            }
+
+            insertLedgerEntry(transaction);
+        });
+    }
+
+    private RuntimeException rejectedDebit(int sourceId) {
+        // Cold path only: tells a missing source account apart from an insufficient balance
+        if (accountRepository.findById(sourceId) == null) {
+            return new ResourceNotFoundException(ACCOUNT_NOT_FOUND);
+        }
+        return new ValidationNotEnouhMoneyException(NOT_ENOUGH_MONEY);
+    }
+
+    private void transferWithRecords(TransactionModel transaction) {
         ctx.transaction(configuration -> {
             final AccountRecord source = accountRepository.findRecordById(transaction.getSource());
             transactionValidator.validateSourceRecord(source.getBalance(), transaction.getAmount());
             final AccountRecord target = accountRepository.findRecordById(transaction.getTarget());
-            source.setBalance(source.getBalance().subtract(transaction.getAmount()));
-            target.setBalance(target.getBalance().add(transaction.getAmount()));
-
-            ctx.insertInto(TRANSACTION)
-                    .set(TRANSACTION.SOURCE, transaction.getSource())
-                    .set(TRANSACTION.TARGET, transaction.getTarget())
-                    .set(TRANSACTION.AMOUNT, transaction.getAmount())
-                    .set(TRANSACTION.TRANSACTION_TIME, new Timestamp(System.currentTimeMillis()))
-                    .execute();
+            source.setBalance(source.getBalance().minus(transaction.getAmount()));
+            target.setBalance(target.getBalance().plus(transaction.getAmount()));
+
+            insertLedgerEntry(transaction);
+            // VERSION is the record version field: store() checks it and increases it
             source.store();
             target.store();
         });
     }
 
+    private void insertLedgerEntry(TransactionModel transaction) {
+        ctx.insertInto(TRANSACTION)
+                .set(TRANSACTION.SOURCE, transaction.getSource())
+                .set(TRANSACTION.TARGET, transaction.getTarget())
+                .set(TRANSACTION.AMOUNT, transaction.getAmount())
+                .set(TRANSACTION.TRANSACTION_TIME, new Timestamp(System.currentTimeMillis()))
+                .execute();
+    }
+
+    /**
+     * Balances of all involved accounts are read once with FOR UPDATE and the transfers are replayed on them in Java.
+     * Accepted transfers are then written as one JDBC batch of relative balance updates (one per account)
+     * and one JDBC batch of ledger inserts, so the round trips don't grow with the batch size.
+     */
+    @Override
+    public List<TransactionResultModel> createBatch(List<TransactionModel> transactions, BatchMode mode) {
+        Assert.notNull(transactions);
+        Assert.notNull(mode);
+
+        final TransactionResultModel[] results = new TransactionResultModel[transactions.size()];
+        final Set<Integer> accountIds = new HashSet<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            final TransactionModel transaction = transactions.get(i);
+            try {
+                Assert.notNull(transaction);
+                transactionValidator.validateModel(transaction);
+                accountIds.add(transaction.getSource());
+                accountIds.add(transaction.getTarget());
+            } catch (IllegalArgumentException | BadRequestFormatException e) {
+                results[i] = new TransactionResultModel(TransactionResultModel.Status.REJECTED,
+                        TransactionResultModel.Reason.INVALID, e.getMessage());
+            }
+        }
+
+        final boolean anyInvalid = Arrays.stream(results).anyMatch(Objects::nonNull);
+        if (!accountIds.isEmpty() && !(mode == BatchMode.ALL_OR_NOTHING && anyInvalid)) {
+            try (StripedAccountLocks.Held ignored = accountLocks.lockAll(accountIds)) {
+                ctx.transaction(configuration -> applyBatch(transactions, mode, accountIds, results));
+            }
+        }
+        if (mode == BatchMode.ALL_OR_NOTHING) {
+            rollBackAcceptedIfAnyRejected(results);
+        }
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] != null && results[i].getStatus() == TransactionResultModel.Status.COMPLETED) {
+                fireCommitted(transactions.get(i));
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * The transfer is already committed at this point, so a failing listener is logged instead of failing the request
+     */
+    private void fireCommitted(TransactionModel transaction) {
+        try {
+            transferListener.onTransferCommitted(transaction);
+        } catch (RuntimeException e) {
+            log.error("Transfer listener failed", e);
+        }
+    }
+
+    private void applyBatch(List<TransactionModel> transactions, BatchMode mode, Set<Integer> accountIds,
+                            TransactionResultModel[] results) {
+        final Map<Integer, Money> balances = ctx.select(ACCOUNT.ID, ACCOUNT.BALANCE)
+                .from(ACCOUNT)
+                .where(ACCOUNT.ID.in(accountIds))
+                .and(ACCOUNT.ACTIVE.eq(true))
+                .forUpdate()
+                .fetchMap(ACCOUNT.ID, ACCOUNT.BALANCE);
+        final Map<Integer, Money> deltas = new HashMap<>();
+        final List<TransactionModel> accepted = new ArrayList<>();
+
+        for (int i = 0; i < transactions.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            final TransactionModel transaction = transactions.get(i);
+            final Money sourceBalance = balances.get(transaction.getSource());
+            final Money targetBalance = balances.get(transaction.getTarget());
+            if (sourceBalance == null || targetBalance == null) {
+                results[i] = new TransactionResultModel(TransactionResultModel.Status.REJECTED,
+                        TransactionResultModel.Reason.ACCOUNT_NOT_FOUND, ACCOUNT_NOT_FOUND);
+            } else if (sourceBalance.isLessThan(transaction.getAmount())) {
+                results[i] = new TransactionResultModel(TransactionResultModel.Status.REJECTED,
+                        TransactionResultModel.Reason.NOT_ENOUGH_MONEY, NOT_ENOUGH_MONEY);
+            } else {
+                balances.put(transaction.getSource(), sourceBalance.minus(transaction.getAmount()));
+                balances.put(transaction.getTarget(), targetBalance.plus(transaction.getAmount()));
+                deltas.merge(transaction.getSource(), transaction.getAmount().negate(), Money::plus);
+                deltas.merge(transaction.getTarget(), transaction.getAmount(), Money::plus);
+                accepted.add(transaction);
+                results[i] = new TransactionResultModel(TransactionResultModel.Status.COMPLETED, null);
+            }
+        }
+
+        if (accepted.isEmpty() || (mode == BatchMode.ALL_OR_NOTHING && accepted.size() < transactions.size())) {
+            return;
+        }
+
+        final BatchBindStep balanceUpdates = ctx.batch(ctx.update(ACCOUNT)
+                .set(ACCOUNT.BALANCE, ACCOUNT.BALANCE.add(DSL.val((Money) null, ACCOUNT.BALANCE)))
+                // Inlined, so the batch binds only the delta and the id
+                .set(ACCOUNT.VERSION, ACCOUNT.VERSION.add(DSL.inline(1L)))
+                .where(ACCOUNT.ID.eq((Integer) null)));
+        for (Map.Entry<Integer, Money> delta : deltas.entrySet()) {
+            if (delta.getValue().signum() != 0) {
+                balanceUpdates.bind(delta.getValue(), delta.getKey());
+            }
+        }
+        if (balanceUpdates.size() > 0) {
+            balanceUpdates.execute();
+        }
+
+        final Timestamp now = new Timestamp(System.currentTimeMillis());
+        final BatchBindStep ledgerInserts = ctx.batch(ctx.insertInto(TRANSACTION,
+                TRANSACTION.SOURCE, TRANSACTION.TARGET, TRANSACTION.AMOUNT, TRANSACTION.TRANSACTION_TIME)
+                .values((Integer) null, null, null, null));
+        for (TransactionModel transaction : accepted) {
+            ledgerInserts.bind(transaction.getSource(), transaction.getTarget(), transaction.getAmount(), now);
+        }
+        ledgerInserts.execute();
+    }
+
+    /**
+     * Transfers that were accepted, or not evaluated at all because the batch already had an invalid entry,
+     * are reported as rolled back once any transfer of the batch is rejected
+     */
+    static void rollBackAcceptedIfAnyRejected(TransactionResultModel[] results) {
+        final boolean anyRejected = Arrays.stream(results)
+                .anyMatch(result -> result != null && result.getStatus() == TransactionResultModel.Status.REJECTED);
+        if (anyRejected) {
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == null || results[i].getStatus() == TransactionResultModel.Status.COMPLETED) {
+                    results[i] = new TransactionResultModel(TransactionResultModel.Status.ROLLED_BACK, null);
+                }
+            }
+        }
+    }
+
     @Override
     public List<TransactionModel> findAll() {
         return ctx.selectFrom(TRANSACTION).fetchInto(TransactionModel.class);
     }
+
+    @Override
+    public List<TransactionModel> findPage(int afterId, int limit) {
+        return ctx.selectFrom(TRANSACTION)
+                .where(TRANSACTION.ID.gt(afterId))
+                .orderBy(TRANSACTION.ID)
+                .limit(limit)
+                .fetch(TransactionRepositoryImpl::toModel);
+    }
+
+    /**
+     * Ids of outgoing and incoming transfers are read as two index range scans on (source, id, transaction_time)
+     * and (target, id, transaction_time), starting at the cursor and stopping after one page each,
+     * and only the rows of the merged page are read from the table.
+     * The scans select nothing but indexed columns and are ordered by (account, id): H2 only prefers such an index
+     * to a primary key scan from the cursor, which walks the whole ledger after it for accounts with few transfers,
+     * when it covers the query and matches its order.
+     * An empty page is only a 404 if the account has never existed, so deleted accounts keep their history.
+     */
+    @Override
+    public List<TransactionModel> findByAccount(int accountId, LocalDateTime from, LocalDateTime to, int afterId, int limit) {
+        Condition window = TRANSACTION.ID.gt(afterId);
+        if (from != null) {
+            window = window.and(TRANSACTION.TRANSACTION_TIME.ge(Timestamp.valueOf(from)));
+        }
+        if (to != null) {
+            window = window.and(TRANSACTION.TRANSACTION_TIME.lt(Timestamp.valueOf(to)));
+        }
+
+        final Select<Record1<Integer>> pageIds = ctx.select(TRANSACTION.ID)
+                .from(TRANSACTION)
+                .where(TRANSACTION.SOURCE.eq(accountId)).and(window)
+                .orderBy(TRANSACTION.SOURCE, TRANSACTION.ID)
+                .limit(limit)
+                .unionAll(ctx.select(TRANSACTION.ID)
+                        .from(TRANSACTION)
+                        .where(TRANSACTION.TARGET.eq(accountId)).and(window)
+                        .orderBy(TRANSACTION.TARGET, TRANSACTION.ID)
+                        .limit(limit));
+        final List<TransactionModel> transactions = ctx.selectFrom(TRANSACTION)
+                .where(TRANSACTION.ID.in(pageIds))
+                .orderBy(TRANSACTION.ID)
+                .limit(limit)
+                .fetch(TransactionRepositoryImpl::toModel);
+
+        if (transactions.isEmpty() && !ctx.fetchExists(ACCOUNT, ACCOUNT.ID.eq(accountId))) {
+            throw new ResourceNotFoundException(ACCOUNT_NOT_FOUND);
+        }
+        return transactions;
+    }
+
+    /**
+     * Rows are fetched lazily in chunks of the configured fetch size (see Settings#getFetchSize)
+     * and mapped one by one, so memory use doesn't depend on the table size
+     */
+    @Override
+    public void forEach(Consumer<TransactionModel> consumer) {
+        try (Cursor<TransactionRecord> cursor = ctx.selectFrom(TRANSACTION).orderBy(TRANSACTION.ID).fetchLazy()) {
+            for (TransactionRecord record : cursor) {
+                consumer.accept(toModel(record));
+            }
+        }
+    }
+
+    private static TransactionModel toModel(TransactionRecord record) {
+        final TransactionModel transaction = new TransactionModel();
+        transaction.setId(record.getId());
+        transaction.setSource(record.getSource());
+        transaction.setTarget(record.getTarget());
+        transaction.setAmount(record.getAmount());
+        transaction.setTransactionTime(record.getTransactionTime().toLocalDateTime());
+        return transaction;
+    }
 }
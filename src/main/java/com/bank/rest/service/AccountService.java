@@ -1,7 +1,11 @@
 package com.bank.rest.service;
 
 import com.bank.rest.dto.AccountDTO;
+import com.bank.rest.dto.AccountImportDTO;
+import com.bank.rest.dto.VersionedDTO;
+import com.bank.rest.util.json.NdjsonReader;
 
+import java.io.IOException;
 import java.util.List;
 
 public interface AccountService {
@@ -12,6 +16,13 @@ public interface AccountService {
      */
     List<AccountDTO> getAll();
 
+    /**
+     * Gets the version of the account list, to be read before the list
+     *
+     * @return version increased by every change of any account, or null if changes aren't counted
+     */
+    Long getAllVersion();
+
     /**
      * Gets account by id or throws ResourceNotFoundException if account cannot be found
      *
@@ -20,6 +31,14 @@ public interface AccountService {
      */
     AccountDTO getById(String id);
 
+    /**
+     * Gets account by id with the version of its row or throws ResourceNotFoundException if account cannot be found
+     *
+     * @param id account id
+     * @return account with a version increased by every change of it
+     */
+    VersionedDTO<AccountDTO> getVersionedById(String id);
+
     /**
      * Creates new account
      *
@@ -27,6 +46,16 @@ public interface AccountService {
      */
     void create(AccountDTO accountDTO);
 
+    /**
+     * Creates new accounts in batches while they are read. Lines that cannot be read or accounts that cannot
+     * be created, e.g. because the email is taken, are counted as failed and skipped.
+     * Each batch is committed on its own, so accounts of earlier batches stay if the import stops.
+     *
+     * @param accounts reader of an account per line
+     * @return numbers of imported and failed accounts with the reasons of the first failures
+     */
+    AccountImportDTO importAccounts(NdjsonReader<AccountDTO> accounts) throws IOException;
+
     /**
      * Updates account with provided id with dto fields
      *
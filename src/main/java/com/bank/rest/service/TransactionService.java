@@ -1,8 +1,13 @@
 package com.bank.rest.service;
 
 import com.bank.rest.dto.TransactionDTO;
+import com.bank.rest.dto.TransactionPageDTO;
+import com.bank.rest.dto.TransactionResultDTO;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface TransactionService {
     /**
@@ -13,10 +18,82 @@ public interface TransactionService {
      */
     void performTransaction(TransactionDTO transactionDTO);
 
+    /**
+     * Transfers provided amount from source account to target unless a transfer has already been made with the key,
+     * or throws BadRequestFormatException if the key was used for a different transfer
+     * and IdempotencyConflictException if the transfer with the key is still in progress
+     *
+     * @param transactionDTO transaction with source, target ids, and amount
+     * @param idempotencyKey key chosen by the client for the transfer, null to always transfer
+     * @return true if the transfer has been made now, false if it had been made before
+     */
+    boolean performTransaction(TransactionDTO transactionDTO, String idempotencyKey);
+
+    /**
+     * Performs transfers in submission order within one DB transaction
+     * or throws BadRequestFormatException if the mode is unknown or the batch is too large
+     *
+     * @param transactionDTOs transactions with source, target ids, and amount
+     * @param mode            all_or_nothing or best_effort
+     * @return result per transaction, in submission order
+     */
+    List<TransactionResultDTO> performBatch(List<TransactionDTO> transactionDTOs, String mode);
+
     /**
      * Finds all transactions
      *
      * @return list of transactions
      */
     List<TransactionDTO> getAll();
+
+    /**
+     * Finds a page of transactions ordered by id
+     * or throws BadRequestFormatException if parameters are not valid integers
+     *
+     * @param afterId id of the last transaction of the previous page, null for the first page
+     * @param limit   page size, null for the default
+     * @return page of transactions with the cursor of the next page
+     */
+    TransactionPageDTO getPage(String afterId, String limit);
+
+    /**
+     * Finds transactions with id greater than provided one, ordered by id,
+     * or throws BadRequestFormatException if the id is not a valid integer.
+     * Transactions after an id that may still be committed are left for a later call,
+     * so the highest returned id can be passed as sinceId of the next call.
+     *
+     * @param sinceId highest transaction id already seen, null for all transactions
+     * @return list of transactions
+     */
+    List<TransactionDTO> getSince(String sinceId);
+
+    /**
+     * Writes the transactions of {@link #getSince} as a JSON array and closes the stream,
+     * reusing the encoded transactions of earlier calls where possible
+     *
+     * @param sinceId highest transaction id already seen, null for all transactions
+     * @param out     target stream, e.g. the servlet output stream
+     */
+    void writeSince(String sinceId, OutputStream out) throws IOException;
+
+    /**
+     * Finds a page of transactions from or to the account, ordered by id,
+     * or throws BadRequestFormatException if parameters are not valid
+     * or ResourceNotFoundException if the account cannot be found
+     *
+     * @param accountId account id
+     * @param from      inclusive lower bound of transaction time as ISO-8601 date-time, or null
+     * @param to        exclusive upper bound of transaction time as ISO-8601 date-time, or null
+     * @param afterId   id of the last transaction of the previous page, null for the first page
+     * @param limit     page size, null for the default
+     * @return page of transactions with the cursor of the next page
+     */
+    TransactionPageDTO getAccountHistory(String accountId, String from, String to, String afterId, String limit);
+
+    /**
+     * Passes all transactions, ordered by id, to the consumer one at a time
+     *
+     * @param consumer transaction consumer
+     */
+    void forEach(Consumer<TransactionDTO> consumer);
 }
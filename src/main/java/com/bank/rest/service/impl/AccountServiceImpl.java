@@ -1,16 +1,24 @@
 package com.bank.rest.service.impl;
 
 import com.bank.rest.dto.AccountDTO;
+import com.bank.rest.dto.AccountImportDTO;
+import com.bank.rest.dto.AccountImportFailureDTO;
+import com.bank.rest.dto.VersionedDTO;
 import com.bank.rest.model.AccountModel;
 import com.bank.rest.repository.AccountRepository;
 import com.bank.rest.service.AccountService;
 import com.bank.rest.util.exception.BadRequestFormatException;
 import com.bank.rest.util.exception.ResourceNotFoundException;
-import org.modelmapper.ModelMapper;
+import com.bank.rest.util.json.NdjsonReader;
+import com.bank.rest.util.mapper.AccountMapper;
+import com.bank.rest.util.version.AccountChangeCounter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spark.utils.Assert;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -19,12 +27,30 @@ public class AccountServiceImpl implements AccountService {
 
     private static final Logger LOG = LoggerFactory.getLogger(AccountServiceImpl.class);
 
+    private static final int DEFAULT_IMPORT_BATCH_SIZE = 1_000;
+    private static final int MAX_REPORTED_FAILURES = 1_000;
+    // Length of account.email, a longer one would fail the whole insert batch
+    private static final int MAX_EMAIL_LENGTH = 100;
+
     private final AccountRepository repository;
-    private final ModelMapper mapper;
+    private final int importBatchSize;
+    private final AccountChangeCounter changeCounter;
+
+    public AccountServiceImpl(AccountRepository repository) {
+        this(repository, DEFAULT_IMPORT_BATCH_SIZE);
+    }
+
+    public AccountServiceImpl(AccountRepository repository, int importBatchSize) {
+        this(repository, importBatchSize, null);
+    }
 
-    public AccountServiceImpl(AccountRepository repository, ModelMapper mapper) {
+    /**
+     * @param changeCounter counter of account changes, also to be notified of transfers, or null to not version the list
+     */
+    public AccountServiceImpl(AccountRepository repository, int importBatchSize, AccountChangeCounter changeCounter) {
         this.repository = repository;
-        this.mapper = mapper;
+        this.importBatchSize = importBatchSize;
+        this.changeCounter = changeCounter;
     }
 
     @Override
@@ -34,6 +60,11 @@ public class AccountServiceImpl implements AccountService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public Long getAllVersion() {
+        return changeCounter == null ? null : changeCounter.get();
+    }
+
     @Override
     public AccountDTO getById(String id) {
         Assert.notNull(id);
@@ -42,12 +73,49 @@ public class AccountServiceImpl implements AccountService {
         return mapToDto(repository.findById(accountId));
     }
 
+    @Override
+    public VersionedDTO<AccountDTO> getVersionedById(String id) {
+        Assert.notNull(id);
+
+        final AccountModel account = repository.findById(parseId(id));
+        return new VersionedDTO<>(mapToDto(account), account.getVersion());
+    }
+
     @Override
     public void create(AccountDTO accountDTO) {
         Assert.notNull(accountDTO);
 
-        final AccountModel account = mapper.map(accountDTO, AccountModel.class);
+        final AccountModel account = AccountMapper.toModel(accountDTO);
         repository.create(account);
+        countChange();
+    }
+
+    @Override
+    public AccountImportDTO importAccounts(NdjsonReader<AccountDTO> accounts) throws IOException {
+        Assert.notNull(accounts);
+
+        final AccountImportDTO result = new AccountImportDTO();
+        result.setImported(0);
+        result.setFailed(0);
+        result.setFailures(new ArrayList<>());
+
+        final List<AccountModel> batch = new ArrayList<>(importBatchSize);
+        final List<Integer> batchLines = new ArrayList<>(importBatchSize);
+        final List<AccountImportFailureDTO> invalidLines = new ArrayList<>();
+        for (NdjsonReader.Line<AccountDTO> line = accounts.next(); line != null; line = accounts.next()) {
+            try {
+                batch.add(toImportedModel(line));
+                batchLines.add(line.getNumber());
+            } catch (BadRequestFormatException e) {
+                invalidLines.add(toFailure(line.getNumber(), e.getMessage()));
+            }
+            // Invalid lines are flushed as well, so they don't pile up in memory when no line is valid
+            if (batch.size() == importBatchSize || invalidLines.size() == importBatchSize) {
+                createBatch(batch, batchLines, invalidLines, result);
+            }
+        }
+        createBatch(batch, batchLines, invalidLines, result);
+        return result;
     }
 
     @Override
@@ -55,7 +123,7 @@ public class AccountServiceImpl implements AccountService {
         Assert.notNull(accountDTO);
         Assert.notNull(id);
 
-        final AccountModel account = mapper.map(accountDTO, AccountModel.class);
+        final AccountModel account = AccountMapper.toModel(accountDTO);
 
         final int accountId;
         accountId = parseId(id);
@@ -63,6 +131,7 @@ public class AccountServiceImpl implements AccountService {
         checkIdsEqual(account, accountId);
         account.setId(accountId);
         repository.update(account);
+        countChange();
     }
 
     @Override
@@ -71,6 +140,72 @@ public class AccountServiceImpl implements AccountService {
 
         final int accountId = parseId(id);
         repository.delete(accountId);
+        countChange();
+    }
+
+    private AccountModel toImportedModel(NdjsonReader.Line<AccountDTO> line) {
+        if (line.getError() != null) {
+            throw new BadRequestFormatException(line.getError());
+        }
+        final AccountDTO accountDTO = line.getValue();
+        if (accountDTO == null || accountDTO.getEmail() == null || accountDTO.getBalance() == null) {
+            throw new BadRequestFormatException("Account must have email and balance");
+        }
+        if (accountDTO.getEmail().length() > MAX_EMAIL_LENGTH) {
+            throw new BadRequestFormatException("Email cannot be longer than " + MAX_EMAIL_LENGTH + " characters");
+        }
+        return AccountMapper.toModel(accountDTO);
+    }
+
+    /**
+     * Creates the batch and reports its failures together with the invalid lines read meanwhile, in line order
+     */
+    private void createBatch(List<AccountModel> batch, List<Integer> batchLines,
+                             List<AccountImportFailureDTO> invalidLines, AccountImportDTO result) {
+        final List<String> failures = batch.isEmpty() ? Collections.emptyList() : repository.createBatch(batch);
+        if (failures.contains(null)) {
+            countChange();
+        }
+        int invalid = 0;
+        for (int i = 0; i < failures.size(); i++) {
+            while (invalid < invalidLines.size() && invalidLines.get(invalid).getLine() < batchLines.get(i)) {
+                addFailure(result, invalidLines.get(invalid++));
+            }
+            if (failures.get(i) == null) {
+                result.setImported(result.getImported() + 1);
+            } else {
+                addFailure(result, toFailure(batchLines.get(i), failures.get(i)));
+            }
+        }
+        while (invalid < invalidLines.size()) {
+            addFailure(result, invalidLines.get(invalid++));
+        }
+        batch.clear();
+        batchLines.clear();
+        invalidLines.clear();
+    }
+
+    /**
+     * Only the first failures are reported with their reason, so the report stays small when every line fails
+     */
+    private void addFailure(AccountImportDTO result, AccountImportFailureDTO failure) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getFailures().size() < MAX_REPORTED_FAILURES) {
+            result.getFailures().add(failure);
+        }
+    }
+
+    private void countChange() {
+        if (changeCounter != null) {
+            changeCounter.increment();
+        }
+    }
+
+    private AccountImportFailureDTO toFailure(int line, String message) {
+        final AccountImportFailureDTO failure = new AccountImportFailureDTO();
+        failure.setLine(line);
+        failure.setMessage(message);
+        return failure;
     }
 
     private int parseId(String id) {
@@ -94,12 +229,7 @@ public class AccountServiceImpl implements AccountService {
 
     private AccountDTO mapToDto(AccountModel model) {
         if (model != null) {
-            AccountDTO dto = new AccountDTO();
-            dto.setId(model.getId());
-            dto.setBalance(model.getBalance());
-            dto.setEmail(model.getEmail());
-
-            return dto;
+            return AccountMapper.toDto(model);
         }
 
         throw new ResourceNotFoundException("Account ID not found");
@@ -1,41 +1,266 @@
 package com.bank.rest.service.impl;
 
 import com.bank.rest.dto.TransactionDTO;
+import com.bank.rest.dto.TransactionPageDTO;
+import com.bank.rest.dto.TransactionResultDTO;
+import com.bank.rest.model.BatchMode;
 import com.bank.rest.model.TransactionModel;
+import com.bank.rest.model.TransactionResultModel;
 import com.bank.rest.repository.TransactionRepository;
 import com.bank.rest.service.TransactionService;
-import org.modelmapper.ModelMapper;
+import com.bank.rest.util.exception.BadRequestFormatException;
+import com.bank.rest.util.idempotency.IdempotencyKeys;
+import com.bank.rest.util.json.JsonCodec;
+import com.bank.rest.util.json.TransactionChunkCache;
+import com.bank.rest.util.mapper.TransactionMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spark.utils.Assert;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class TransactionServiceImpl implements TransactionService {
 
     private static final Logger LOG = LoggerFactory.getLogger(TransactionServiceImpl.class);
 
+    private static final int DEFAULT_MAX_BATCH_SIZE = 10_000;
+    private static final int DEFAULT_PAGE_LIMIT = 100;
+    private static final int MAX_PAGE_LIMIT = 1_000;
+    private static final int DEFAULT_CHUNK_SIZE = 1_000;
+    private static final long DEFAULT_CHUNK_CACHE_BYTES = 64L * 1024 * 1024;
+    // A transfer holds its ledger id from the insert to the commit, which takes far less
+    private static final Duration GAP_TIMEOUT = Duration.ofSeconds(10);
+
     private final TransactionRepository repository;
-    private final ModelMapper mapper;
+    private final int maxBatchSize;
+    private final IdempotencyKeys idempotencyKeys;
+    private final TransactionChunkCache chunkCache;
+
+    public TransactionServiceImpl(TransactionRepository repository) {
+        this(repository, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public TransactionServiceImpl(TransactionRepository repository, int maxBatchSize) {
+        this(repository, maxBatchSize, null);
+    }
+
+    /**
+     * @param idempotencyKeys keys of transfers already made, null to ignore idempotency keys
+     */
+    public TransactionServiceImpl(TransactionRepository repository, int maxBatchSize, IdempotencyKeys idempotencyKeys) {
+        this(repository, maxBatchSize, idempotencyKeys,
+                new TransactionChunkCache(new JsonCodec(), DEFAULT_CHUNK_SIZE, DEFAULT_CHUNK_CACHE_BYTES));
+    }
 
-    public TransactionServiceImpl(TransactionRepository repository, ModelMapper mapper) {
+    /**
+     * @param idempotencyKeys keys of transfers already made, null to ignore idempotency keys
+     * @param chunkCache      encoded transactions reused by {@link #writeSince}
+     */
+    public TransactionServiceImpl(TransactionRepository repository, int maxBatchSize, IdempotencyKeys idempotencyKeys,
+                                  TransactionChunkCache chunkCache) {
         this.repository = repository;
-        this.mapper = mapper;
+        this.maxBatchSize = maxBatchSize;
+        this.idempotencyKeys = idempotencyKeys;
+        this.chunkCache = chunkCache;
     }
 
     @Override
     public void performTransaction(TransactionDTO transactionDTO) {
         Assert.notNull(transactionDTO);
 
-        final TransactionModel transaction = mapper.map(transactionDTO, TransactionModel.class);
+        final TransactionModel transaction = TransactionMapper.toModel(transactionDTO);
         repository.create(transaction);
     }
 
+    @Override
+    public boolean performTransaction(TransactionDTO transactionDTO, String idempotencyKey) {
+        Assert.notNull(transactionDTO);
+
+        if (idempotencyKey == null || idempotencyKeys == null) {
+            performTransaction(transactionDTO);
+            return true;
+        }
+        final TransactionModel transaction = TransactionMapper.toModel(transactionDTO);
+        // Checked before the key is built, the repository validates the rest
+        if (transaction.getAmount() == null) {
+            throw new BadRequestFormatException("Bad request");
+        }
+        // The amount is compared in units, so 1.5 and 1.50 are the same transfer
+        final String request = transaction.getSource() + ":" + transaction.getTarget() + ":"
+                + transaction.getAmount().getUnits();
+        return idempotencyKeys.execute(idempotencyKey, request, () -> repository.create(transaction));
+    }
+
+    @Override
+    public List<TransactionResultDTO> performBatch(List<TransactionDTO> transactionDTOs, String mode) {
+        Assert.notNull(transactionDTOs);
+
+        final BatchMode batchMode = parseBatchMode(mode);
+        if (transactionDTOs.size() > maxBatchSize) {
+            throw new BadRequestFormatException("Batch cannot contain more than " + maxBatchSize + " transactions");
+        }
+
+        final List<TransactionModel> transactions = new ArrayList<>(transactionDTOs.size());
+        for (TransactionDTO transactionDTO : transactionDTOs) {
+            transactions.add(transactionDTO == null ? null : TransactionMapper.toModel(transactionDTO));
+        }
+
+        final List<TransactionResultModel> results = repository.createBatch(transactions, batchMode);
+        final List<TransactionResultDTO> resultDTOs = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            final TransactionResultDTO dto = new TransactionResultDTO();
+            dto.setIndex(i);
+            dto.setStatus(results.get(i).getStatus().name());
+            dto.setMessage(results.get(i).getMessage());
+            resultDTOs.add(dto);
+        }
+        return resultDTOs;
+    }
+
     @Override
     public List<TransactionDTO> getAll() {
         return repository.findAll().stream()
-                .map(t -> mapper.map(t, TransactionDTO.class))
+                .map(TransactionMapper::toDto)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public TransactionPageDTO getPage(String afterId, String limit) {
+        final int afterTransactionId = parseAfterId(afterId);
+        final int pageLimit = parseLimit(limit);
+
+        return toPage(repository.findPage(afterTransactionId, pageLimit + 1), pageLimit);
+    }
+
+    @Override
+    public List<TransactionDTO> getSince(String sinceId) {
+        int cursor = parseSinceId(sinceId);
+        final List<TransactionDTO> transactions = new ArrayList<>();
+        while (true) {
+            final List<TransactionDTO> page = findSettledAfter(cursor, MAX_PAGE_LIMIT);
+            transactions.addAll(page);
+            if (page.size() < MAX_PAGE_LIMIT) {
+                return transactions;
+            }
+            cursor = page.get(page.size() - 1).getId();
+        }
+    }
+
+    @Override
+    public void writeSince(String sinceId, OutputStream out) throws IOException {
+        chunkCache.writeArray(parseSinceId(sinceId), out, this::findSettledAfter);
+    }
+
+    /**
+     * Ledger ids are taken by the insert, before the commit, so a missing id is either a transfer still in progress
+     * or one that has been rolled back. Transactions after it are held back until it shows up
+     * or the next transaction is older than GAP_TIMEOUT, when it can only have been rolled back.
+     */
+    private List<TransactionDTO> findSettledAfter(int afterId, int limit) {
+        final List<TransactionModel> transactions = repository.findPage(afterId, limit);
+        final LocalDateTime settledBefore = LocalDateTime.now().minus(GAP_TIMEOUT);
+        final List<TransactionDTO> settled = new ArrayList<>(transactions.size());
+        int previousId = afterId;
+        for (TransactionModel transaction : transactions) {
+            if (transaction.getId() != previousId + 1 && transaction.getTransactionTime().isAfter(settledBefore)) {
+                break;
+            }
+            settled.add(TransactionMapper.toDto(transaction));
+            previousId = transaction.getId();
+        }
+        return settled;
+    }
+
+    @Override
+    public TransactionPageDTO getAccountHistory(String accountId, String from, String to, String afterId, String limit) {
+        Assert.notNull(accountId);
+
+        final int id = parseInt(accountId, "ID");
+        final LocalDateTime fromTime = parseTime(from, "from");
+        final LocalDateTime toTime = parseTime(to, "to");
+        final int afterTransactionId = parseAfterId(afterId);
+        final int pageLimit = parseLimit(limit);
+
+        return toPage(repository.findByAccount(id, fromTime, toTime, afterTransactionId, pageLimit + 1), pageLimit);
+    }
+
+    @Override
+    public void forEach(Consumer<TransactionDTO> consumer) {
+        Assert.notNull(consumer);
+
+        repository.forEach(t -> consumer.accept(TransactionMapper.toDto(t)));
+    }
+
+    /**
+     * Builds a page from one row more than requested, which tells whether there is a next page
+     */
+    private TransactionPageDTO toPage(List<TransactionModel> transactions, int pageLimit) {
+        final boolean hasNext = transactions.size() > pageLimit;
+        final List<TransactionDTO> items = transactions.stream()
+                .limit(pageLimit)
+                .map(TransactionMapper::toDto)
                 .collect(Collectors.toList());
+
+        final TransactionPageDTO page = new TransactionPageDTO();
+        page.setItems(items);
+        page.setNextAfterId(hasNext ? items.get(items.size() - 1).getId() : null);
+        return page;
+    }
+
+    private int parseAfterId(String afterId) {
+        return afterId == null ? 0 : parseInt(afterId, "after_id");
+    }
+
+    private int parseSinceId(String sinceId) {
+        final int id = sinceId == null ? 0 : parseInt(sinceId, "since_id");
+        if (id < 0) {
+            throw new BadRequestFormatException("Invalid since_id parameter. Must not be negative");
+        }
+        return id;
+    }
+
+    private int parseLimit(String limit) {
+        final int pageLimit = limit == null ? DEFAULT_PAGE_LIMIT : parseInt(limit, "limit");
+        if (pageLimit < 1 || pageLimit > MAX_PAGE_LIMIT) {
+            throw new BadRequestFormatException("Invalid limit parameter. Must be between 1 and " + MAX_PAGE_LIMIT);
+        }
+        return pageLimit;
+    }
+
+    private LocalDateTime parseTime(String value, String name) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestFormatException("Invalid " + name + " parameter. Must be ISO-8601 date-time");
+        }
+    }
+
+    private int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestFormatException("Invalid " + name + " parameter. Must be integer");
+        }
+    }
+
+    private BatchMode parseBatchMode(String mode) {
+        Assert.notNull(mode);
+
+        try {
+            return BatchMode.valueOf(mode.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestFormatException("Invalid mode parameter. Must be all_or_nothing or best_effort");
+        }
     }
 }
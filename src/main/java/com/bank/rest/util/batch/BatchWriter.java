@@ -0,0 +1,251 @@
+package com.bank.rest.util.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded queue drained in batches by its own daemon thread, in queue order.
+ * <p>
+ * The thread waits for a first item, then takes what else is queued up to the maximum batch size,
+ * waiting at most the linger time for more, and hands the batch to the {@link Handler}.
+ * {@link #close()} queues a marker behind the items and waits until the thread has reached it and written
+ * whatever was queued meanwhile. An interrupt of the thread stops it the same way. If the handler fails,
+ * the thread stops at once and the items not written are discarded. Items that are still queued once the thread
+ * has stopped are discarded as well.
+ *
+ * @param <T> queued item
+ */
+public final class BatchWriter<T> implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BatchWriter.class);
+
+    // Queued by close(), the thread stops once it reaches it
+    private static final Object CLOSE = new Object();
+
+    /**
+     * Runs on the writer thread only
+     */
+    public interface Handler<T> {
+
+        /**
+         * @param batch one to the maximum batch size of items, in queue order
+         */
+        void write(List<T> batch) throws Exception;
+
+        /**
+         * Called after each batch, and every idle interval while nothing is queued
+         */
+        default void tick() throws Exception {
+        }
+
+        /**
+         * Called once after the last batch, unless the handler failed
+         */
+        default void finish() throws Exception {
+        }
+
+        /**
+         * @param items items that won't be written, because the handler failed or the writer has stopped
+         */
+        default void discard(List<T> items) {
+        }
+    }
+
+    private final String name;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+    private final long idleNanos;
+    private final Handler<T> handler;
+    private final BlockingQueue<Object> queue;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    // writer thread only
+    private final List<Object> drained = new ArrayList<>();
+
+    /**
+     * @param name           name of the writer thread, also used in log messages
+     * @param queueCapacity  items waiting for the writer before {@link #put} blocks
+     * @param maxBatchSize   items written together at most
+     * @param maxLingerNanos how long a batch waits for more items once it has the first one, 0 to take only what is queued
+     * @param idleNanos      how often {@link Handler#tick()} is called while nothing is queued, 0 for never
+     * @param handler        writes the batches
+     */
+    public BatchWriter(String name, int queueCapacity, int maxBatchSize, long maxLingerNanos, long idleNanos,
+                       Handler<T> handler) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.name = name;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLingerNanos = maxLingerNanos;
+        this.idleNanos = idleNanos;
+        this.handler = handler;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        thread = new Thread(this::writeLoop, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return whether the item was queued, false if the queue is full
+     */
+    public boolean offer(T item) {
+        return queue.offer(item);
+    }
+
+    /**
+     * Queues the item, waiting while the queue is full
+     */
+    public void put(T item) throws InterruptedException {
+        queue.put(item);
+    }
+
+    /**
+     * @return whether the item was still queued and has been taken back
+     */
+    public boolean remove(T item) {
+        return queue.remove(item);
+    }
+
+    /**
+     * @return false once close() has been called or the writer has stopped, items queued from then on may be discarded
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public int getRemainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    /**
+     * Writes the queued items and waits for the writer to finish.
+     * The writer is not interrupted, which would e.g. close a file channel under the handler.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        if (thread.isAlive()) {
+            queue.put(CLOSE);
+        }
+        thread.join();
+        discardQueued(new ArrayList<>());
+    }
+
+    private void writeLoop() {
+        final List<T> batch = new ArrayList<>(maxBatchSize);
+        try {
+            boolean closing = false;
+            while (!closing) {
+                try {
+                    closing = collect(batch);
+                } catch (InterruptedException e) {
+                    LOG.warn("{} interrupted, writing the queued items and stopping", name);
+                    running = false;
+                    closing = true;
+                }
+                if (!batch.isEmpty()) {
+                    handler.write(batch);
+                    batch.clear();
+                }
+                handler.tick();
+            }
+            while (!queue.isEmpty()) {
+                drainTo(batch, maxBatchSize);
+                if (!batch.isEmpty()) {
+                    handler.write(batch);
+                    batch.clear();
+                }
+            }
+            handler.finish();
+        } catch (Exception e) {
+            LOG.error("{} failed, queued items are discarded", name, e);
+            running = false;
+            discardQueued(batch);
+        }
+    }
+
+    /**
+     * Waits for the first item, then for more until the batch is full or the linger time is over
+     *
+     * @return whether close() was requested
+     */
+    private boolean collect(List<T> batch) throws InterruptedException {
+        final Object first = idleNanos > 0 ? queue.poll(idleNanos, TimeUnit.NANOSECONDS) : queue.take();
+        if (first == null) {
+            return false;
+        }
+        if (first == CLOSE) {
+            return true;
+        }
+        batch.add(cast(first));
+        final long deadline = System.nanoTime() + maxLingerNanos;
+        while (batch.size() < maxBatchSize) {
+            final int collected = batch.size();
+            if (drainTo(batch, maxBatchSize - collected)) {
+                return true;
+            }
+            if (batch.size() == collected) {
+                final long remaining = deadline - System.nanoTime();
+                final Object next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                if (next == null) {
+                    break;
+                }
+                if (next == CLOSE) {
+                    return true;
+                }
+                batch.add(cast(next));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves up to maxItems queued items to the batch
+     *
+     * @return whether the close marker was among them
+     */
+    private boolean drainTo(List<T> batch, int maxItems) {
+        drained.clear();
+        queue.drainTo(drained, maxItems);
+        boolean closing = false;
+        for (Object item : drained) {
+            if (item == CLOSE) {
+                closing = true;
+            } else {
+                batch.add(cast(item));
+            }
+        }
+        return closing;
+    }
+
+    private void discardQueued(List<T> items) {
+        final List<Object> drained = new ArrayList<>();
+        queue.drainTo(drained);
+        for (Object item : drained) {
+            if (item != CLOSE) {
+                items.add(cast(item));
+            }
+        }
+        if (!items.isEmpty()) {
+            handler.discard(items);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object item) {
+        return (T) item;
+    }
+}
@@ -0,0 +1,74 @@
+package com.bank.rest.util.csv;
+
+import com.bank.rest.dto.TransactionDTO;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Writes transactions as CSV with a header line, RFC 4180 style with CRLF line endings.
+ * All columns are numbers or ISO-8601 date-times, so no value needs quoting.
+ */
+public final class TransactionCsvWriter {
+
+    public static final String HEADER = "id,source,target,amount,transaction_time";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String LINE_END = "\r\n";
+
+    private TransactionCsvWriter() {
+    }
+
+    /**
+     * Writes the transactions pushed by the producer and closes the stream.
+     *
+     * @param out      target stream, e.g. the servlet output stream
+     * @param producer passes each transaction to the given consumer
+     */
+    public static void write(OutputStream out, Consumer<Consumer<TransactionDTO>> producer) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            writer.write(HEADER);
+            writer.write(LINE_END);
+            try {
+                producer.accept(transaction -> {
+                    try {
+                        writeLine(writer, transaction);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static void writeLine(Writer writer, TransactionDTO transaction) throws IOException {
+        writeValue(writer, transaction.getId());
+        writer.write(',');
+        writeValue(writer, transaction.getSource());
+        writer.write(',');
+        writeValue(writer, transaction.getTarget());
+        writer.write(',');
+        if (transaction.getAmount() != null) {
+            writer.write(transaction.getAmount().toPlainString());
+        }
+        writer.write(',');
+        if (transaction.getTransactionTime() != null) {
+            writer.write(transaction.getTransactionTime());
+        }
+        writer.write(LINE_END);
+    }
+
+    private static void writeValue(Writer writer, Integer value) throws IOException {
+        if (value != null) {
+            writer.write(Integer.toString(value));
+        }
+    }
+}
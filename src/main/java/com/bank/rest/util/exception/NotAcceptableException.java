@@ -0,0 +1,7 @@
+package com.bank.rest.util.exception;
+
+public class NotAcceptableException extends RuntimeException {
+    public NotAcceptableException(String message) {
+        super(message);
+    }
+}
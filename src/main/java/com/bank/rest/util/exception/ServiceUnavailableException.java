@@ -0,0 +1,7 @@
+package com.bank.rest.util.exception;
+
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,236 @@
+package com.bank.rest.util.idempotency;
+
+import com.bank.rest.model.IdempotencyKeyModel;
+import com.bank.rest.repository.IdempotencyRepository;
+import com.bank.rest.util.exception.BadRequestFormatException;
+import com.bank.rest.util.exception.IdempotencyConflictException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs an action at most once per idempotency key within the retention time.
+ * <p>
+ * A key is claimed in a bounded in-memory table first. Concurrent requests with the same key in this JVM wait
+ * for the claiming one and then get its outcome, without touching the database. The claiming request then stores
+ * the key as in progress in the database, where the primary key decides between application instances and keeps
+ * the key across restarts. The key is marked completed once the action has succeeded.
+ * <p>
+ * An action that fails has changed nothing, so its key is released and the request can be retried.
+ * If the process dies between the action and marking its key completed, the key stays in progress and requests
+ * with it are refused as conflicts until the retention time is over: the transfer may have been made,
+ * so it must not be made again.
+ */
+public class IdempotencyKeys {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IdempotencyKeys.class);
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private static final long PURGE_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final long WAIT_TIMEOUT_SECONDS = 30;
+
+    private final IdempotencyRepository repository;
+    private final Duration retention;
+    private final Clock clock;
+    private final Ticker ticker;
+    private final Cache<String, Claim> claims;
+    private final AtomicLong nextPurgeNanos;
+
+    private final LongAdder performed = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+
+    /**
+     * @param maximumSize keys held in memory at most, older keys are looked up in the database
+     * @param retention   how long a key is remembered after its first use
+     */
+    public IdempotencyKeys(IdempotencyRepository repository, long maximumSize, Duration retention) {
+        this(repository, maximumSize, retention, Clock.systemDefaultZone(), Ticker.systemTicker());
+    }
+
+    IdempotencyKeys(IdempotencyRepository repository, long maximumSize, Duration retention, Clock clock, Ticker ticker) {
+        this.repository = repository;
+        this.retention = retention;
+        this.clock = clock;
+        this.ticker = ticker;
+        this.claims = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(retention)
+                .executor(Runnable::run)
+                .ticker(ticker)
+                .build();
+        this.nextPurgeNanos = new AtomicLong(ticker.read());
+    }
+
+    /**
+     * Runs the action unless it has already been run with the same key,
+     * or throws BadRequestFormatException if the key is invalid or was used for a different request
+     * and IdempotencyConflictException if the request with the key is still in progress elsewhere
+     *
+     * @param key     idempotency key sent by the client
+     * @param request the request in a canonical form, a key may only be used for one request
+     * @param action  action to run, its exceptions are passed on
+     * @return true if the action has been run now, false if it had been run before
+     */
+    public boolean execute(String key, String request, Runnable action) {
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestFormatException("Idempotency-Key must have 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        while (true) {
+            final Claim claim = new Claim(request);
+            final Claim existing = claims.asMap().putIfAbsent(key, claim);
+            if (existing == null) {
+                return run(key, claim, action);
+            }
+            checkSameRequest(existing.request, request);
+            if (awaitOutcome(existing)) {
+                replayed.increment();
+                return false;
+            }
+            // The claiming request failed and released the key, so claim it again
+        }
+    }
+
+    public long getPerformed() {
+        return performed.sum();
+    }
+
+    public long getReplayed() {
+        return replayed.sum();
+    }
+
+    public long getConflicts() {
+        return conflicts.sum();
+    }
+
+    public long getSize() {
+        return claims.estimatedSize();
+    }
+
+    private boolean run(String key, Claim claim, Runnable action) {
+        final boolean stored;
+        try {
+            stored = store(key, claim.request);
+        } catch (RuntimeException e) {
+            release(key, claim);
+            throw e;
+        }
+        if (!stored) {
+            replayed.increment();
+            claim.done.complete(true);
+            return false;
+        }
+
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            try {
+                repository.delete(key);
+            } finally {
+                release(key, claim);
+            }
+            throw e;
+        }
+        performed.increment();
+        claim.done.complete(true);
+        try {
+            repository.complete(key, now());
+        } catch (RuntimeException e) {
+            // The transfer is made, retries find the key completed in memory and get a conflict from other instances
+            LOG.warn("Failed to mark Idempotency-Key {} as completed", key, e);
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the key is new and stored as in progress, false if it has been completed before
+     */
+    private boolean store(String key, String request) {
+        purgeIfDue();
+        for (int attempt = 0; attempt < 2; attempt++) {
+            if (repository.insert(key, request, now())) {
+                return true;
+            }
+            final IdempotencyKeyModel stored = repository.findByKey(key);
+            if (stored == null) {
+                // Deleted after a failed request or by the purge in the meantime
+                continue;
+            }
+            if (stored.getCreatedAt().isBefore(now().minus(retention))) {
+                repository.delete(key);
+                continue;
+            }
+            checkSameRequest(stored.getRequest(), request);
+            if (stored.getCompletedAt() == null) {
+                conflicts.increment();
+                throw new IdempotencyConflictException("A transfer with this Idempotency-Key is in progress");
+            }
+            return false;
+        }
+        conflicts.increment();
+        throw new IdempotencyConflictException("A transfer with this Idempotency-Key is in progress");
+    }
+
+    private void release(String key, Claim claim) {
+        claims.asMap().remove(key, claim);
+        claim.done.complete(false);
+    }
+
+    /**
+     * @return true if the claiming request completed, false if it failed
+     */
+    private boolean awaitOutcome(Claim claim) {
+        try {
+            return claim.done.get(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a request with the same Idempotency-Key", e);
+        } catch (TimeoutException e) {
+            conflicts.increment();
+            throw new IdempotencyConflictException("A transfer with this Idempotency-Key is in progress");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void checkSameRequest(String claimed, String request) {
+        if (!claimed.equals(request)) {
+            conflicts.increment();
+            throw new BadRequestFormatException("Idempotency-Key has already been used for a different transfer");
+        }
+    }
+
+    private void purgeIfDue() {
+        final long now = ticker.read();
+        final long due = nextPurgeNanos.get();
+        if (now - due >= 0 && nextPurgeNanos.compareAndSet(due, now + PURGE_INTERVAL_NANOS)) {
+            repository.deleteCreatedBefore(now().minus(retention));
+        }
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    private static final class Claim {
+        private final String request;
+        private final CompletableFuture<Boolean> done = new CompletableFuture<>();
+
+        private Claim(String request) {
+            this.request = request;
+        }
+    }
+}
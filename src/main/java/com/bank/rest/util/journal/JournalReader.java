@@ -0,0 +1,123 @@
+package com.bank.rest.util.journal;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Sequential reader of the segments written by {@link TransferJournal}, each one memory-mapped read-only.
+ * <p>
+ * As a tool, prints the records of a journal directory as CSV (sequence, epoch millis, source, target, amount):
+ * {@code java -cp bank-rest-api.jar com.bank.rest.util.journal.JournalReader <directory> [--summary]}.
+ * With {@code --summary} only the record count and sequence range are printed.
+ */
+public final class JournalReader {
+
+    static final String SEGMENT_PREFIX = "journal-";
+    static final String SEGMENT_SUFFIX = ".dat";
+
+    private JournalReader() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: JournalReader <directory> [--summary]");
+            System.exit(2);
+        }
+        final Path directory = Paths.get(args[0]);
+        final boolean summary = args.length > 1 && "--summary".equals(args[1]);
+        final PrintStream out = System.out;
+
+        final long start = System.nanoTime();
+        final long[] range = {0, 0};
+        final long count = forEach(directory, record -> {
+            if (range[0] == 0) {
+                range[0] = record.getSequence();
+            }
+            range[1] = record.getSequence();
+            if (!summary) {
+                out.println(record);
+            }
+        });
+        final long millis = (System.nanoTime() - start) / 1_000_000;
+        System.err.printf("%d records, sequence %d-%d, read in %d ms%n", count, range[0], range[1], millis);
+    }
+
+    /**
+     * Reads all segments of the directory in sequence order. Reading a segment stops at the end of its written data
+     * or at the first record failing its checksum, e.g. one torn by a crash.
+     *
+     * @param directory journal directory
+     * @param consumer  receives every record
+     * @return number of records read
+     */
+    public static long forEach(Path directory, Consumer<JournalRecord> consumer) throws IOException {
+        long count = 0;
+        for (Path segment : segments(directory)) {
+            count += readSegment(segment, consumer);
+        }
+        return count;
+    }
+
+    /**
+     * @return sequence of the last record in the journal, 0 if it has none
+     */
+    static long lastSequence(Path directory) throws IOException {
+        final List<Path> segments = segments(directory);
+        final long[] last = {0};
+        for (int i = segments.size() - 1; i >= 0 && last[0] == 0; i--) {
+            readSegment(segments.get(i), record -> last[0] = record.getSequence());
+        }
+        return last[0];
+    }
+
+    /**
+     * @return segment files ordered by their first sequence
+     */
+    static List<Path> segments(Path directory) throws IOException {
+        final List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                segments.add(file);
+            }
+        }
+        // Names hold the zero-padded first sequence, so name order is sequence order
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static long readSegment(Path segment, Consumer<JournalRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            final ByteBuffer scratch = ByteBuffer.allocate(JournalRecord.SIZE);
+            final CRC32 crc = new CRC32();
+            long count = 0;
+            while (buffer.remaining() >= JournalRecord.SIZE) {
+                scratch.clear();
+                buffer.get(scratch.array(), 0, JournalRecord.SIZE);
+                final JournalRecord record = JournalRecord.decode(scratch, crc);
+                if (record == null) {
+                    break;
+                }
+                consumer.accept(record);
+                count++;
+            }
+            return count;
+        }
+    }
+}
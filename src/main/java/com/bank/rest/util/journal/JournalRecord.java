@@ -0,0 +1,104 @@
+package com.bank.rest.util.journal;
+
+import com.bank.rest.model.Money;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * One committed transfer in the journal.
+ * <p>
+ * Records have a fixed size of {@link #SIZE} bytes, big-endian:
+ * <pre>
+ *  0 long sequence, starting at 1, 0 marks the end of written data
+ *  8 long time the transfer was committed, epoch millis
+ * 16 int  source account id
+ * 20 int  target account id
+ * 24 long amount, unscaled value
+ * 32 int  amount, scale, always {@link Money#SCALE} when written
+ * 36 int  CRC32 of bytes 0-35
+ * </pre>
+ */
+public final class JournalRecord {
+
+    public static final int SIZE = 40;
+
+    private static final int CHECKSUM_OFFSET = 36;
+
+    private final long sequence;
+    private final long timestampMillis;
+    private final int source;
+    private final int target;
+    private final Money amount;
+
+    public JournalRecord(long sequence, long timestampMillis, int source, int target, Money amount) {
+        this.sequence = sequence;
+        this.timestampMillis = timestampMillis;
+        this.source = source;
+        this.target = target;
+        this.amount = amount;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    public int getTarget() {
+        return target;
+    }
+
+    public Money getAmount() {
+        return amount;
+    }
+
+    /**
+     * Encodes the record at the position of the scratch buffer's start
+     *
+     * @param scratch buffer of at least {@link #SIZE} bytes, cleared before use
+     */
+    void encode(ByteBuffer scratch, CRC32 crc) {
+        scratch.clear();
+        scratch.putLong(sequence)
+                .putLong(timestampMillis)
+                .putInt(source)
+                .putInt(target)
+                .putLong(amount.getUnits())
+                .putInt(Money.SCALE);
+        crc.reset();
+        crc.update(scratch.array(), scratch.arrayOffset(), CHECKSUM_OFFSET);
+        scratch.putInt((int) crc.getValue());
+        scratch.flip();
+    }
+
+    /**
+     * @param scratch buffer holding {@link #SIZE} bytes of one record from its start
+     * @return decoded record, or null if the bytes are past the written data or fail the checksum
+     */
+    static JournalRecord decode(ByteBuffer scratch, CRC32 crc) {
+        final long sequence = scratch.getLong(0);
+        if (sequence == 0) {
+            return null;
+        }
+        crc.reset();
+        crc.update(scratch.array(), scratch.arrayOffset(), CHECKSUM_OFFSET);
+        if ((int) crc.getValue() != scratch.getInt(CHECKSUM_OFFSET)) {
+            return null;
+        }
+        return new JournalRecord(sequence, scratch.getLong(8), scratch.getInt(16), scratch.getInt(20),
+                Money.of(BigDecimal.valueOf(scratch.getLong(24), scratch.getInt(32))));
+    }
+
+    @Override
+    public String toString() {
+        return sequence + "," + timestampMillis + "," + source + "," + target + "," + amount;
+    }
+}
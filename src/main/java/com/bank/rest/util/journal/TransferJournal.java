@@ -0,0 +1,214 @@
+package com.bank.rest.util.journal;
+
+import com.bank.rest.model.Money;
+import com.bank.rest.model.TransactionModel;
+import com.bank.rest.repository.TransferListener;
+import com.bank.rest.util.batch.BatchWriter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of committed transfers, see {@link JournalRecord} for the record layout.
+ * <p>
+ * Request threads only put transfers on the bounded queue of a {@link BatchWriter}, blocking if it is full.
+ * Its writer thread numbers them and copies them into a memory-mapped segment file of fixed size,
+ * starting a new segment when the current one is full. Transfers are committed to the database before they are
+ * queued, so a crash of the process loses the queued transfers and keeps only the records already copied into
+ * a segment. Written records are forced to disk every force interval rather than per transfer, so a crash of the OS
+ * may also lose the records of the last interval.
+ * On close the queue is drained and the last segment is truncated to its written records.
+ */
+public class TransferJournal implements TransferListener, AutoCloseable {
+
+    private static final int MAX_BATCH = 1024;
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final long forceIntervalNanos;
+    private final BatchWriter<Pending> writer;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder segments = new LongAdder();
+
+    // writer thread only
+    private final ByteBuffer scratch = ByteBuffer.allocate(JournalRecord.SIZE);
+    private final CRC32 crc = new CRC32();
+    private long nextSequence;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private boolean unforced;
+    private long lastForce = System.nanoTime();
+
+    /**
+     * Opens the journal, numbering continues after the last record found in the directory
+     *
+     * @param directory           directory of the segment files, created if missing
+     * @param segmentRecords      records per segment file
+     * @param queueCapacity       transfers waiting for the writer before request threads block
+     * @param forceIntervalMillis how often written records are forced to disk
+     */
+    public TransferJournal(Path directory, int segmentRecords, int queueCapacity, long forceIntervalMillis) throws IOException {
+        if (segmentRecords < 1) {
+            throw new IllegalArgumentException("Segment must hold at least one record");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentRecords = segmentRecords;
+        this.forceIntervalNanos = TimeUnit.MILLISECONDS.toNanos(forceIntervalMillis);
+        this.nextSequence = JournalReader.lastSequence(directory) + 1;
+
+        writer = new BatchWriter<>("transfer-journal", queueCapacity, MAX_BATCH, 0, forceIntervalNanos,
+                new BatchWriter.Handler<Pending>() {
+                    @Override
+                    public void write(List<Pending> batch) throws IOException {
+                        TransferJournal.this.write(batch);
+                    }
+
+                    @Override
+                    public void tick() {
+                        forceIfDue();
+                    }
+
+                    @Override
+                    public void finish() throws IOException {
+                        closeSegment();
+                    }
+
+                    @Override
+                    public void discard(List<Pending> items) {
+                        dropped.add(items.size());
+                    }
+                });
+    }
+
+    @Override
+    public void onTransferCommitted(TransactionModel transaction) {
+        final Pending pending = new Pending(System.currentTimeMillis(), transaction.getSource(),
+                transaction.getTarget(), transaction.getAmount());
+        if (!writer.isRunning()) {
+            dropped.increment();
+            return;
+        }
+        if (!writer.offer(pending)) {
+            blocked.increment();
+            try {
+                writer.put(pending);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                dropped.increment();
+            }
+        }
+    }
+
+    /**
+     * @return records written to segments
+     */
+    public long getWritten() {
+        return written.sum();
+    }
+
+    /**
+     * @return transfers that found the queue full and had to wait
+     */
+    public long getBlocked() {
+        return blocked.sum();
+    }
+
+    /**
+     * @return transfers not journaled because the journal was closed or failed
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return segment files started since opening
+     */
+    public long getSegments() {
+        return segments.sum();
+    }
+
+    public int getQueueSize() {
+        return writer.getQueueSize();
+    }
+
+    /**
+     * Writes the queued transfers and waits for the writer to finish
+     */
+    @Override
+    public void close() throws InterruptedException {
+        writer.close();
+    }
+
+    private void write(List<Pending> batch) throws IOException {
+        for (Pending pending : batch) {
+            if (segment == null || segment.remaining() < JournalRecord.SIZE) {
+                closeSegment();
+                openSegment();
+            }
+            final JournalRecord record = new JournalRecord(nextSequence, pending.timestampMillis, pending.source,
+                    pending.target, pending.amount);
+            record.encode(scratch, crc);
+            segment.put(scratch);
+            nextSequence++;
+            written.increment();
+            unforced = true;
+        }
+    }
+
+    private void forceIfDue() {
+        final long now = System.nanoTime();
+        if (unforced && now - lastForce >= forceIntervalNanos) {
+            segment.force();
+            unforced = false;
+            lastForce = now;
+        }
+    }
+
+    private void openSegment() throws IOException {
+        final Path file = directory.resolve(String.format("%s%020d%s",
+                JournalReader.SEGMENT_PREFIX, nextSequence, JournalReader.SEGMENT_SUFFIX));
+        // An existing file of that name holds no valid record, e.g. a segment created right before a crash
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) segmentRecords * JournalRecord.SIZE);
+        segments.increment();
+    }
+
+    private void closeSegment() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        segment.force();
+        unforced = false;
+        channel.truncate(segment.position());
+        channel.close();
+        channel = null;
+        segment = null;
+    }
+
+    private static final class Pending {
+        private final long timestampMillis;
+        private final int source;
+        private final int target;
+        private final Money amount;
+
+        private Pending(long timestampMillis, int source, int target, Money amount) {
+            this.timestampMillis = timestampMillis;
+            this.source = source;
+            this.target = target;
+            this.amount = amount;
+        }
+    }
+}
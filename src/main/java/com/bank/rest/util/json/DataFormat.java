@@ -0,0 +1,75 @@
+package com.bank.rest.util.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.util.function.Supplier;
+
+/**
+ * Encodings of the API DTOs. JSON is the default, Smile and CBOR are binary encodings of the same data model
+ * for service-to-service clients, which save the text formatting and parsing of numbers and field names.
+ */
+public enum DataFormat {
+    JSON("application/json", JsonFactory::new),
+    SMILE("application/x-jackson-smile", SmileFactory::new),
+    CBOR("application/cbor", CBORFactory::new);
+
+    private final String contentType;
+    private final Supplier<JsonFactory> factory;
+
+    DataFormat(String contentType, Supplier<JsonFactory> factory) {
+        this.contentType = contentType;
+        this.factory = factory;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    JsonFactory newFactory() {
+        return factory.get();
+    }
+
+    /**
+     * @param contentType Content-Type header of a request, or null
+     * @return format of the request body, JSON unless the header names a binary format
+     */
+    public static DataFormat fromContentType(String contentType) {
+        final DataFormat format = forMediaType(contentType);
+        return format == null ? JSON : format;
+    }
+
+    /**
+     * Picks the first supported media range of the header, quality values aside
+     *
+     * @param accept Accept header of a request, or null
+     * @return format of the response body, JSON unless the client asks for a binary format first
+     */
+    public static DataFormat fromAccept(String accept) {
+        if (accept == null) {
+            return JSON;
+        }
+        for (String range : accept.split(",")) {
+            final DataFormat format = forMediaType(range);
+            if (format != null) {
+                return format;
+            }
+        }
+        return JSON;
+    }
+
+    private static DataFormat forMediaType(String mediaType) {
+        if (mediaType == null) {
+            return null;
+        }
+        final int parameters = mediaType.indexOf(';');
+        final String type = (parameters < 0 ? mediaType : mediaType.substring(0, parameters)).trim();
+        for (DataFormat format : values()) {
+            if (format.contentType.equalsIgnoreCase(type)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
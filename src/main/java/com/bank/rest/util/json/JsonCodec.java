@@ -0,0 +1,236 @@
+package com.bank.rest.util.json;
+
+import com.bank.rest.dto.AccountDTO;
+import com.bank.rest.dto.TransactionDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Reading and writing of the API DTOs as JSON or one of the binary {@link DataFormat}s.
+ * <p>
+ * One {@link ObjectMapper} per format is configured on creation and its readers and writers are built once per DTO type,
+ * so Jackson's (de)serializer lookups are cached across requests. All of them are immutable and thread-safe.
+ * Arrays and newline-delimited JSON are written element by element through a {@link JsonGenerator},
+ * without building the whole body in memory.
+ */
+public class JsonCodec {
+
+    private final Map<DataFormat, FormatCodec> codecs = new EnumMap<>(DataFormat.class);
+
+    public JsonCodec() {
+        this(new ObjectMapper());
+    }
+
+    /**
+     * @param mapper JSON mapper, the mappers of the binary formats get the same configuration
+     */
+    public JsonCodec(ObjectMapper mapper) {
+        final ObjectMapper jsonMapper = mapper.copy()
+                .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        for (DataFormat format : DataFormat.values()) {
+            codecs.put(format, new FormatCodec(format == DataFormat.JSON ? jsonMapper
+                    : new ObjectMapper(format.newFactory())
+                    .setConfig(jsonMapper.getSerializationConfig())
+                    .setConfig(jsonMapper.getDeserializationConfig())));
+        }
+    }
+
+    public AccountDTO readAccount(byte[] source, DataFormat format) throws IOException {
+        return codecs.get(format).accountReader.readValue(source);
+    }
+
+    public TransactionDTO readTransaction(byte[] source, DataFormat format) throws IOException {
+        return codecs.get(format).transactionReader.readValue(source);
+    }
+
+    public List<TransactionDTO> readTransactions(byte[] source, DataFormat format) throws IOException {
+        return codecs.get(format).transactionListReader.readValue(source);
+    }
+
+    /**
+     * @param source newline-delimited JSON with an account per line, read as the lines are requested
+     */
+    public NdjsonReader<AccountDTO> readAccountLines(InputStream source) {
+        return new NdjsonReader<>(json().accountReader, source);
+    }
+
+    /**
+     * Writes the value as JSON and closes the stream
+     *
+     * @param value value to be written
+     * @param out   target stream, e.g. the servlet output stream
+     */
+    public void write(Object value, OutputStream out) throws IOException {
+        write(value, DataFormat.JSON, out);
+    }
+
+    /**
+     * Writes the value and closes the stream
+     *
+     * @param value  value to be written
+     * @param format encoding of the value
+     * @param out    target stream, e.g. the servlet output stream
+     */
+    public void write(Object value, DataFormat format, OutputStream out) throws IOException {
+        final FormatCodec codec = codecs.get(format);
+        if (value == null) {
+            codec.mapper.writeValue(out, null);
+        } else {
+            codec.writerFor(value.getClass()).writeValue(out, value);
+        }
+    }
+
+    /**
+     * Writes the elements as a JSON array and closes the stream
+     *
+     * @param elements    elements to be written
+     * @param elementType type of all elements
+     * @param out         target stream, e.g. the servlet output stream
+     */
+    public <T> void writeArray(Iterable<? extends T> elements, Class<T> elementType, OutputStream out) throws IOException {
+        writeArray(elements, elementType, DataFormat.JSON, out);
+    }
+
+    /**
+     * Writes the elements as an array and closes the stream
+     *
+     * @param elements    elements to be written
+     * @param elementType type of all elements
+     * @param format      encoding of the array
+     * @param out         target stream, e.g. the servlet output stream
+     */
+    public <T> void writeArray(Iterable<? extends T> elements, Class<T> elementType, DataFormat format,
+                               OutputStream out) throws IOException {
+        writeArray(elementType, format, out, consumer -> elements.forEach(consumer));
+    }
+
+    /**
+     * Writes the elements pushed by the producer as a JSON array and closes the stream.
+     *
+     * @param elementType type of all elements
+     * @param out         target stream, e.g. the servlet output stream
+     * @param producer    passes each element to the given consumer
+     */
+    public <T> void writeArray(Class<T> elementType, OutputStream out, Consumer<Consumer<T>> producer) throws IOException {
+        writeArray(elementType, DataFormat.JSON, out, producer);
+    }
+
+    /**
+     * Writes the elements pushed by the producer as an array and closes the stream.
+     * Elements are written as they come, so the producer may read them lazily, e.g. from a DB cursor.
+     *
+     * @param elementType type of all elements
+     * @param format      encoding of the array
+     * @param out         target stream, e.g. the servlet output stream
+     * @param producer    passes each element to the given consumer
+     */
+    public <T> void writeArray(Class<T> elementType, DataFormat format, OutputStream out,
+                               Consumer<Consumer<T>> producer) throws IOException {
+        final ObjectWriter writer = codecs.get(format).writerFor(elementType);
+        try (JsonGenerator generator = writer.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            try {
+                producer.accept(element -> {
+                    try {
+                        writer.writeValue(generator, element);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Writes the elements pushed by the producer as newline-delimited JSON, one element per line, and closes the stream.
+     *
+     * @param elementType type of all elements
+     * @param out         target stream, e.g. the servlet output stream
+     * @param producer    passes each element to the given consumer
+     */
+    public <T> void writeLines(Class<T> elementType, OutputStream out, Consumer<Consumer<T>> producer) throws IOException {
+        final ObjectWriter writer = json().writerFor(elementType);
+        try (JsonGenerator generator = writer.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            try {
+                producer.accept(element -> {
+                    try {
+                        writer.writeValue(generator, element);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Writes the elements as JSON values separated by commas, without the brackets of an array,
+     * so the bytes of several calls can be joined into one array
+     *
+     * @param elements    elements to be written
+     * @param elementType type of all elements
+     * @return UTF-8 encoded elements, empty if there are none
+     */
+    public <T> byte[] writeElements(Iterable<? extends T> elements, Class<T> elementType) throws IOException {
+        final ObjectWriter writer = json().writerFor(elementType);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = writer.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(new SerializedString(","));
+            for (T element : elements) {
+                writer.writeValue(generator, element);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private FormatCodec json() {
+        return codecs.get(DataFormat.JSON);
+    }
+
+    /**
+     * Mapper of one format with its readers and writers
+     */
+    private static final class FormatCodec {
+        private final ObjectMapper mapper;
+        private final ObjectReader accountReader;
+        private final ObjectReader transactionReader;
+        private final ObjectReader transactionListReader;
+        private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+        private FormatCodec(ObjectMapper mapper) {
+            this.mapper = mapper;
+            this.accountReader = mapper.readerFor(AccountDTO.class);
+            this.transactionReader = mapper.readerFor(TransactionDTO.class);
+            this.transactionListReader = mapper.readerFor(new TypeReference<List<TransactionDTO>>() {
+            });
+        }
+
+        private ObjectWriter writerFor(Class<?> type) {
+            return writers.computeIfAbsent(type, mapper::writerFor);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.bank.rest.util.json;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads newline-delimited JSON one line at a time, so memory use is bounded by the longest line, not the input.
+ * A line that cannot be read as a value is returned with its error and reading goes on with the next line.
+ * Blank lines are skipped.
+ */
+public class NdjsonReader<T> {
+
+    public static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    private final ObjectReader reader;
+    private final Reader source;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder line = new StringBuilder();
+    private int position;
+    private int limit;
+    private int lineNumber;
+
+    NdjsonReader(ObjectReader reader, InputStream source) {
+        this.reader = reader;
+        this.source = new InputStreamReader(source, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return next non-blank line, or null at the end of the input
+     */
+    public Line<T> next() throws IOException {
+        while (true) {
+            line.setLength(0);
+            boolean tooLong = false;
+            boolean ended = false;
+            while (!ended) {
+                if (position == limit) {
+                    limit = source.read(buffer);
+                    position = 0;
+                    if (limit < 0) {
+                        limit = 0;
+                        if (line.length() == 0 && !tooLong) {
+                            return null;
+                        }
+                        break;
+                    }
+                }
+                int end = position;
+                while (end < limit && buffer[end] != '\n') {
+                    end++;
+                }
+                ended = end < limit;
+                if (!tooLong) {
+                    line.append(buffer, position, end - position);
+                    if (line.length() > MAX_LINE_LENGTH) {
+                        tooLong = true;
+                        line.setLength(0);
+                    }
+                }
+                position = ended ? end + 1 : end;
+            }
+            lineNumber++;
+            if (tooLong) {
+                return new Line<>(lineNumber, null, "Line is longer than " + MAX_LINE_LENGTH + " characters");
+            }
+            if (!isBlank(line)) {
+                return parse();
+            }
+        }
+    }
+
+    private Line<T> parse() {
+        try {
+            return new Line<>(lineNumber, reader.readValue(line.toString()), null);
+        } catch (JsonProcessingException e) {
+            return new Line<>(lineNumber, null, e.getOriginalMessage());
+        }
+    }
+
+    private static boolean isBlank(CharSequence chars) {
+        for (int i = 0; i < chars.length(); i++) {
+            if (!Character.isWhitespace(chars.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Value of a line, or the reason it couldn't be read
+     */
+    public static final class Line<T> {
+        private final int number;
+        private final T value;
+        private final String error;
+
+        private Line(int number, T value, String error) {
+            this.number = number;
+            this.value = value;
+            this.error = error;
+        }
+
+        /**
+         * @return 1-based line number in the input, blank lines included
+         */
+        public int getNumber() {
+            return number;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * @return why the line couldn't be read, or null if it has a value
+         */
+        public String getError() {
+            return error;
+        }
+    }
+}
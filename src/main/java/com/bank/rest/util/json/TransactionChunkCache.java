@@ -0,0 +1,137 @@
+package com.bank.rest.util.json;
+
+import com.bank.rest.dto.TransactionDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Append-only cache of transactions already encoded as JSON, in chunks of a fixed id range.
+ * <p>
+ * Transaction rows never change once committed, so a chunk is cached as soon as no transaction of its range
+ * can still be added, and a full or delta read of the ledger only queries and encodes the chunks that are not
+ * complete yet or have been evicted. Chunks are weighed by their encoded size, so the cache is bounded by memory
+ * whatever the size of a transaction.
+ */
+public class TransactionChunkCache {
+
+    private final JsonCodec codec;
+    private final int chunkSize;
+    private final Cache<Integer, byte[]> chunks;
+
+    /**
+     * @param chunkSize    transaction ids per chunk
+     * @param maximumBytes encoded bytes held at most
+     */
+    public TransactionChunkCache(JsonCodec codec, int chunkSize, long maximumBytes) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.codec = codec;
+        this.chunkSize = chunkSize;
+        this.chunks = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((Integer chunk, byte[] bytes) -> bytes.length)
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Writes the transactions with an id greater than sinceId as a JSON array, ordered by id, and closes the stream.
+     * Chunk k holds the ids from k * chunkSize + 1 to (k + 1) * chunkSize.
+     *
+     * @param sinceId exclusive lower bound of transaction ids
+     * @param out     target stream, e.g. the servlet output stream
+     * @param source  reads transactions as {@link TransactionSource#findSettledAfter} does
+     */
+    public void writeArray(int sinceId, OutputStream out, TransactionSource source) throws IOException {
+        try (OutputStream target = out) {
+            target.write('[');
+            boolean empty = true;
+            int cursor = sinceId;
+            while (true) {
+                final int chunk = cursor / chunkSize;
+                final int chunkEnd = (chunk + 1) * chunkSize;
+                final boolean aligned = cursor % chunkSize == 0;
+
+                byte[] bytes = aligned ? chunks.getIfPresent(chunk) : null;
+                if (bytes == null) {
+                    // One row more than the rest of the chunk tells whether the chunk is complete
+                    final List<TransactionDTO> transactions = source.findSettledAfter(cursor, chunkEnd - cursor + 1);
+                    int inChunk = 0;
+                    while (inChunk < transactions.size() && transactions.get(inChunk).getId() <= chunkEnd) {
+                        inChunk++;
+                    }
+                    final boolean complete = transactions.size() > inChunk
+                            || (inChunk > 0 && transactions.get(inChunk - 1).getId() == chunkEnd);
+                    bytes = codec.writeElements(transactions.subList(0, inChunk), TransactionDTO.class);
+                    if (!complete) {
+                        empty = append(target, bytes, empty);
+                        break;
+                    }
+                    if (aligned) {
+                        chunks.put(chunk, bytes);
+                    }
+                }
+                empty = append(target, bytes, empty);
+                cursor = chunkEnd;
+            }
+            target.write(']');
+        }
+    }
+
+    private static boolean append(OutputStream out, byte[] elements, boolean empty) throws IOException {
+        if (elements.length == 0) {
+            return empty;
+        }
+        if (!empty) {
+            out.write(',');
+        }
+        out.write(elements);
+        return false;
+    }
+
+    /**
+     * @return number of chunks served from the cache
+     */
+    public long getHitCount() {
+        return chunks.stats().hitCount();
+    }
+
+    /**
+     * @return number of aligned chunks that had to be read
+     */
+    public long getMissCount() {
+        return chunks.stats().missCount();
+    }
+
+    public long getSize() {
+        return chunks.estimatedSize();
+    }
+
+    /**
+     * @return encoded bytes held by the cache
+     */
+    public long getWeightedSize() {
+        return chunks.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    /**
+     * Source of transactions to be encoded
+     */
+    @FunctionalInterface
+    public interface TransactionSource {
+        /**
+         * @param afterId exclusive lower bound of transaction ids
+         * @param limit   maximum number of transactions
+         * @return transactions ordered by id, ending before the first missing id that may still be committed
+         */
+        List<TransactionDTO> findSettledAfter(int afterId, int limit);
+    }
+}
@@ -0,0 +1,530 @@
+package com.bank.rest.util.ledger;
+
+import com.bank.rest.model.AccountModel;
+import com.bank.rest.model.Money;
+import com.bank.rest.model.TransactionModel;
+import com.bank.rest.model.TransactionResultModel;
+import com.bank.rest.repository.impl.TransactionRepositoryImpl;
+import com.bank.rest.util.exception.BadRequestFormatException;
+import com.bank.rest.util.exception.ResourceNotFoundException;
+import com.bank.rest.util.exception.ServiceUnavailableException;
+import com.bank.rest.util.exception.ValidationNotEnouhMoneyException;
+import org.jooq.DSLContext;
+import org.jooq.Record4;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.bank.rest.jooq.bank_schema.tables.Account.ACCOUNT;
+import static com.bank.rest.jooq.bank_schema.tables.LedgerState.LEDGER_STATE;
+import static com.bank.rest.jooq.bank_schema.tables.Transaction.TRANSACTION;
+
+/**
+ * Accounts and balances held in memory, in primitive arrays indexed by account id,
+ * with amounts as the {@link Money} units. The version of an account is the sequence of the last entry that changed it;
+ * accounts left unchanged since the snapshot get the snapshot sequence.
+ * <p>
+ * The ledger is a single writer: changes are serialized on its monitor, each one taking well under a microsecond.
+ * A change is first appended to the write-ahead {@link LedgerLog}, then applied to the arrays and finally queued
+ * for the {@link LedgerWriteBehind}, which copies it to the account and transaction tables for history queries.
+ * While the write-behind queue is full, changes are rejected with ServiceUnavailableException before anything is logged,
+ * so no caller ever waits for the database on the monitor and reads keep being served from memory.
+ * The log is forced to disk every force interval, and a {@link LedgerSnapshot} of all accounts is written
+ * every snapshot interval, after which older snapshots and fully written-behind log segments are deleted.
+ * <p>
+ * {@link #open} recovers the latest snapshot and replays the log after it. If the database has no ledger_state row,
+ * it has just been created (e.g. in memory) or been changed without the ledger (see {@link #invalidate}),
+ * and the ledger is seeded from it instead, dropping old ledger files.
+ */
+public class Ledger implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Ledger.class);
+
+    static final int MAX_EMAIL_LENGTH = 100;
+    static final int STATE_ID = 1;
+
+    static final byte MISSING = 0;
+    static final byte ACTIVE = 1;
+    static final byte DELETED = 2;
+
+    private final Path directory;
+    private final long[] balances;
+    private final byte[] states;
+    private final String[] emails;
+    private final long[] versions;
+    private final Map<String, Integer> accountIdsByEmail = new HashMap<>();
+    private final LedgerLog log;
+    private final LedgerWriteBehind writeBehind;
+    private final ScheduledExecutorService maintenance;
+    private final Object snapshotLock = new Object();
+    private final LongAdder snapshots = new LongAdder();
+
+    private int nextAccountId;
+    private int nextTransactionId;
+    private volatile long sequence;
+    private boolean closed;
+
+    private Ledger(LedgerConfig config, DSLContext ctx, LedgerSnapshot snapshot, long appliedSequence) throws IOException {
+        if (snapshot.nextAccountId > config.getMaxAccounts()) {
+            throw new IllegalStateException("Ledger holds accounts up to id " + (snapshot.nextAccountId - 1)
+                    + ", more than ledger.max-accounts");
+        }
+        directory = config.getDirectory();
+        balances = Arrays.copyOf(snapshot.balances, config.getMaxAccounts());
+        states = Arrays.copyOf(snapshot.states, config.getMaxAccounts());
+        emails = Arrays.copyOf(snapshot.emails, config.getMaxAccounts());
+        versions = new long[config.getMaxAccounts()];
+        Arrays.fill(versions, snapshot.sequence);
+        nextAccountId = snapshot.nextAccountId;
+        nextTransactionId = snapshot.nextTransactionId;
+        sequence = snapshot.sequence;
+        for (int id = 0; id < nextAccountId; id++) {
+            if (states[id] != MISSING) {
+                accountIdsByEmail.put(emails[id], id);
+            }
+        }
+
+        log = new LedgerLog(directory, config.getLogSegmentBytes());
+        writeBehind = new LedgerWriteBehind(ctx, appliedSequence, config.getWriteBehindQueueCapacity(),
+                config.getWriteBehindBatchSize());
+        recover(snapshot.sequence, appliedSequence);
+
+        maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "ledger-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenance.scheduleWithFixedDelay(log::force, config.getForceIntervalMillis(), config.getForceIntervalMillis(),
+                TimeUnit.MILLISECONDS);
+        maintenance.scheduleWithFixedDelay(this::scheduledSnapshot, config.getSnapshotIntervalSeconds(),
+                config.getSnapshotIntervalSeconds(), TimeUnit.SECONDS);
+    }
+
+    /**
+     * Recovers the ledger from its directory, or seeds it from the database if the database is new
+     * or the directory holds no snapshot
+     *
+     * @param config ledger settings
+     * @param ctx    database the ledger writes behind to
+     * @return open ledger
+     */
+    public static Ledger open(LedgerConfig config, DSLContext ctx) throws IOException {
+        final Path directory = Files.createDirectories(config.getDirectory());
+        final Long applied = ctx.select(LEDGER_STATE.APPLIED_SEQUENCE)
+                .from(LEDGER_STATE)
+                .where(LEDGER_STATE.ID.eq(STATE_ID))
+                .fetchOne(LEDGER_STATE.APPLIED_SEQUENCE);
+        LedgerSnapshot snapshot = applied == null ? null : LedgerSnapshot.readLatest(directory);
+        if (snapshot != null) {
+            LOG.info("Recovering ledger from snapshot {}", snapshot.sequence);
+            return new Ledger(config, ctx, snapshot, applied);
+        }
+
+        LOG.info("Seeding ledger from the database");
+        deleteFiles(directory);
+        final long appliedSequence = applied == null ? 0 : applied;
+        snapshot = seed(ctx, appliedSequence);
+        snapshot.write(directory);
+        if (applied == null) {
+            ctx.insertInto(LEDGER_STATE)
+                    .set(LEDGER_STATE.ID, STATE_ID)
+                    .set(LEDGER_STATE.APPLIED_SEQUENCE, appliedSequence)
+                    .execute();
+        }
+        return new Ledger(config, ctx, snapshot, appliedSequence);
+    }
+
+    /**
+     * Deletes the ledger_state row, so the next {@link #open} seeds the ledger from the database.
+     * Called when the database is used without the ledger, whose snapshot and log no longer match it afterwards.
+     *
+     * @param ctx database the ledger writes behind to
+     */
+    public static void invalidate(DSLContext ctx) {
+        if (ctx.deleteFrom(LEDGER_STATE).where(LEDGER_STATE.ID.eq(STATE_ID)).execute() > 0) {
+            LOG.info("Database is used without the ledger, the ledger will be seeded from it on its next start");
+        }
+    }
+
+    /**
+     * @return active account, or null if there's no active account with provided id
+     */
+    public synchronized AccountModel findAccount(int id) {
+        return isActive(id) ? toModel(id) : null;
+    }
+
+    /**
+     * @return active accounts ordered by id
+     */
+    public synchronized List<AccountModel> findAccounts() {
+        final List<AccountModel> accounts = new ArrayList<>();
+        for (int id = 1; id < nextAccountId; id++) {
+            if (states[id] == ACTIVE) {
+                accounts.add(toModel(id));
+            }
+        }
+        return accounts;
+    }
+
+    /**
+     * Creates an account with the next free id,
+     * or throws BadRequestFormatException if the email or balance is missing or the email is too long or taken
+     *
+     * @return account id
+     */
+    public synchronized int createAccount(String email, Money balance) {
+        checkEmail(email, 0);
+        final long units = unitsOf(balance);
+        if (nextAccountId >= balances.length) {
+            throw new IllegalStateException("Ledger cannot hold more than " + (balances.length - 1) + " accounts");
+        }
+        final int id = nextAccountId;
+        commit(LedgerEntry.account(sequence + 1, id, email, units, true));
+        return id;
+    }
+
+    /**
+     * Replaces email and balance of an active account, or throws ResourceNotFoundException if there is none
+     */
+    public synchronized void updateAccount(int id, String email, Money balance) {
+        if (!isActive(id)) {
+            throw new ResourceNotFoundException(TransactionRepositoryImpl.ACCOUNT_NOT_FOUND);
+        }
+        checkEmail(email, id);
+        commit(LedgerEntry.account(sequence + 1, id, email, unitsOf(balance), true));
+    }
+
+    /**
+     * Marks an active account inactive, or throws ResourceNotFoundException if there is none
+     */
+    public synchronized void deleteAccount(int id) {
+        if (!isActive(id)) {
+            throw new ResourceNotFoundException(TransactionRepositoryImpl.ACCOUNT_NOT_FOUND);
+        }
+        commit(LedgerEntry.account(sequence + 1, id, emails[id], balances[id], false));
+    }
+
+    /**
+     * Transfers the amount, or throws ResourceNotFoundException if an account cannot be found
+     * and ValidationNotEnouhMoneyException if the source balance is too low.
+     * ArithmeticException is thrown if the target balance would overflow.
+     *
+     * @return the transfer with its transaction id and time
+     */
+    public synchronized TransactionModel transfer(int source, int target, Money amount) {
+        final long units = unitsOf(amount);
+        if (!isActive(source)) {
+            throw new ResourceNotFoundException(TransactionRepositoryImpl.ACCOUNT_NOT_FOUND);
+        }
+        if (balances[source] < units) {
+            throw new ValidationNotEnouhMoneyException(TransactionRepositoryImpl.NOT_ENOUGH_MONEY);
+        }
+        if (!isActive(target)) {
+            throw new ResourceNotFoundException(TransactionRepositoryImpl.ACCOUNT_NOT_FOUND);
+        }
+        Math.addExact(balances[target], units);
+        final LedgerEntry entry = LedgerEntry.transfer(sequence + 1, nextTransactionId, source, target, units,
+                System.currentTimeMillis());
+        commit(entry);
+        return toTransaction(entry);
+    }
+
+    /**
+     * Checks the transfers in order, each one seeing the balances left by the previous ones, and then makes
+     * the accepted ones, or none of them if all or nothing is requested and any is rejected
+     *
+     * @param transfers    transfers, only checked where no result has been set yet
+     * @param results      result per transfer, set here to COMPLETED or REJECTED
+     * @param allOrNothing whether a rejected transfer prevents all others
+     * @return the transfers made, with their transaction ids and time
+     */
+    public synchronized List<TransactionModel> transferAll(List<TransactionModel> transfers, TransactionResultModel[] results,
+                                                           boolean allOrNothing) {
+        final long[] units = new long[transfers.size()];
+        final Map<Integer, Long> pendingBalances = new HashMap<>();
+        boolean anyRejected = false;
+        for (int i = 0; i < transfers.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            final TransactionModel transfer = transfers.get(i);
+            units[i] = unitsOf(transfer.getAmount());
+            final int source = transfer.getSource();
+            final int target = transfer.getTarget();
+            if (!isActive(source) || !isActive(target)) {
+                results[i] = new TransactionResultModel(TransactionResultModel.Status.REJECTED,
+                        TransactionResultModel.Reason.ACCOUNT_NOT_FOUND, TransactionRepositoryImpl.ACCOUNT_NOT_FOUND);
+                anyRejected = true;
+                continue;
+            }
+            final long sourceBalance = pendingBalances.getOrDefault(source, balances[source]);
+            if (sourceBalance < units[i]) {
+                results[i] = new TransactionResultModel(TransactionResultModel.Status.REJECTED,
+                        TransactionResultModel.Reason.NOT_ENOUGH_MONEY, TransactionRepositoryImpl.NOT_ENOUGH_MONEY);
+                anyRejected = true;
+                continue;
+            }
+            pendingBalances.put(source, sourceBalance - units[i]);
+            pendingBalances.put(target, Math.addExact(pendingBalances.getOrDefault(target, balances[target]), units[i]));
+            results[i] = new TransactionResultModel(TransactionResultModel.Status.COMPLETED, null);
+        }
+
+        final List<TransactionModel> made = new ArrayList<>();
+        if (allOrNothing && anyRejected) {
+            return made;
+        }
+        checkCommittable((int) Arrays.stream(results)
+                .filter(result -> result.getStatus() == TransactionResultModel.Status.COMPLETED)
+                .count());
+        final long now = System.currentTimeMillis();
+        for (int i = 0; i < transfers.size(); i++) {
+            if (results[i].getStatus() == TransactionResultModel.Status.COMPLETED) {
+                final TransactionModel transfer = transfers.get(i);
+                final LedgerEntry entry = LedgerEntry.transfer(sequence + 1, nextTransactionId, transfer.getSource(),
+                        transfer.getTarget(), units[i], now);
+                commit(entry);
+                made.add(toTransaction(entry));
+            }
+        }
+        return made;
+    }
+
+    /**
+     * Waits until all changes made so far are in the database, for queries served from it
+     */
+    public void awaitWriteBehind() {
+        writeBehind.awaitApplied(sequence);
+    }
+
+    /**
+     * Writes a snapshot of all accounts and deletes the log segments and snapshots it makes obsolete
+     */
+    public void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            final LedgerSnapshot snapshot;
+            synchronized (this) {
+                log.roll();
+                snapshot = new LedgerSnapshot(sequence, nextAccountId, nextTransactionId,
+                        Arrays.copyOf(balances, nextAccountId), Arrays.copyOf(states, nextAccountId),
+                        Arrays.copyOf(emails, nextAccountId));
+            }
+            snapshot.write(directory);
+            LedgerSnapshot.deleteBefore(directory, snapshot.sequence);
+            log.deleteUpTo(Math.min(snapshot.sequence, writeBehind.getAppliedSequence()));
+            snapshots.increment();
+        }
+    }
+
+    /**
+     * @return sequence of the last change
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return sequence of the last change written to the database
+     */
+    public long getAppliedSequence() {
+        return writeBehind.getAppliedSequence();
+    }
+
+    public int getWriteBehindQueueSize() {
+        return writeBehind.getQueueSize();
+    }
+
+    /**
+     * @return snapshots written since opening
+     */
+    public long getSnapshots() {
+        return snapshots.sum();
+    }
+
+    /**
+     * Writes the queued changes to the database and closes the log, the ledger rejects changes afterwards
+     */
+    @Override
+    public void close() throws IOException, InterruptedException {
+        maintenance.shutdownNow();
+        maintenance.awaitTermination(1, TimeUnit.MINUTES);
+        synchronized (this) {
+            closed = true;
+        }
+        writeBehind.close();
+        synchronized (this) {
+            log.close();
+        }
+    }
+
+    private static long unitsOf(Money amount) {
+        if (amount == null) {
+            throw new BadRequestFormatException("Bad request");
+        }
+        return amount.getUnits();
+    }
+
+    private void commit(LedgerEntry entry) {
+        checkCommittable(1);
+        try {
+            log.append(entry);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to the ledger log", e);
+        }
+        apply(entry);
+        writeBehind.enqueue(entry);
+    }
+
+    /**
+     * Throws unless the ledger is open and the write-behind queue has room for the entries.
+     * The ledger is the only producer of the queue and checks on its monitor, so the room cannot be taken meanwhile.
+     */
+    private void checkCommittable(int entries) {
+        if (closed) {
+            throw new IllegalStateException("Ledger is closed");
+        }
+        if (writeBehind.getRemainingCapacity() < entries) {
+            throw new ServiceUnavailableException("Database is behind the ledger, try again later");
+        }
+    }
+
+    private void apply(LedgerEntry entry) {
+        if (entry.getType() == LedgerEntry.Type.ACCOUNT) {
+            final int id = entry.getId();
+            if (states[id] != MISSING) {
+                accountIdsByEmail.remove(emails[id]);
+            }
+            emails[id] = entry.getEmail();
+            balances[id] = entry.getUnits();
+            states[id] = entry.isActive() ? ACTIVE : DELETED;
+            versions[id] = entry.getSequence();
+            accountIdsByEmail.put(entry.getEmail(), id);
+            nextAccountId = Math.max(nextAccountId, id + 1);
+        } else {
+            balances[entry.getSource()] -= entry.getUnits();
+            balances[entry.getTarget()] += entry.getUnits();
+            versions[entry.getSource()] = entry.getSequence();
+            versions[entry.getTarget()] = entry.getSequence();
+            nextTransactionId = Math.max(nextTransactionId, entry.getId() + 1);
+        }
+        sequence = entry.getSequence();
+    }
+
+    /**
+     * Applies the logged changes after the snapshot and queues the ones the database is missing
+     */
+    private void recover(long snapshotSequence, long appliedSequence) throws IOException {
+        final long[] expected = {Math.min(snapshotSequence, appliedSequence) + 1};
+        log.replay(expected[0] - 1, entry -> {
+            if (entry.getSequence() != expected[0]) {
+                throw new IllegalStateException("Ledger log is missing entry " + expected[0]);
+            }
+            expected[0]++;
+            if (entry.getSequence() > snapshotSequence) {
+                apply(entry);
+            }
+            if (entry.getSequence() > appliedSequence) {
+                writeBehind.enqueueWaiting(entry);
+            }
+        });
+        if (appliedSequence > sequence) {
+            throw new IllegalStateException("Database has ledger entries up to " + appliedSequence
+                    + " but the ledger log ends at " + sequence);
+        }
+        LOG.info("Ledger recovered up to entry {}, database is at {}", sequence, appliedSequence);
+    }
+
+    private void scheduledSnapshot() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Could not write ledger snapshot", e);
+        }
+    }
+
+    private boolean isActive(int id) {
+        return id > 0 && id < nextAccountId && states[id] == ACTIVE;
+    }
+
+    /**
+     * Emails are unique over all accounts, deleted ones included, as in the account table
+     */
+    private void checkEmail(String email, int accountId) {
+        if (email == null) {
+            throw new BadRequestFormatException("Bad request");
+        }
+        if (email.length() > MAX_EMAIL_LENGTH) {
+            throw new BadRequestFormatException("Email cannot be longer than " + MAX_EMAIL_LENGTH + " characters");
+        }
+        final Integer owner = accountIdsByEmail.get(email);
+        if (owner != null && owner != accountId) {
+            throw new BadRequestFormatException("Email is already taken");
+        }
+    }
+
+    private AccountModel toModel(int id) {
+        final AccountModel account = new AccountModel();
+        account.setId(id);
+        account.setEmail(emails[id]);
+        account.setBalance(Money.ofUnits(balances[id]));
+        account.setVersion(versions[id]);
+        return account;
+    }
+
+    private static TransactionModel toTransaction(LedgerEntry entry) {
+        final TransactionModel transaction = new TransactionModel();
+        transaction.setId(entry.getId());
+        transaction.setSource(entry.getSource());
+        transaction.setTarget(entry.getTarget());
+        transaction.setAmount(Money.ofUnits(entry.getUnits()));
+        transaction.setTransactionTime(new Timestamp(entry.getTimestampMillis()).toLocalDateTime());
+        return transaction;
+    }
+
+    private static LedgerSnapshot seed(DSLContext ctx, long sequence) {
+        final List<Record4<Integer, String, Money, Boolean>> accounts = ctx
+                .select(ACCOUNT.ID, ACCOUNT.EMAIL, ACCOUNT.BALANCE, ACCOUNT.ACTIVE)
+                .from(ACCOUNT)
+                .fetch();
+        int nextAccountId = 1;
+        for (Record4<Integer, String, Money, Boolean> account : accounts) {
+            nextAccountId = Math.max(nextAccountId, account.value1() + 1);
+        }
+        final long[] balances = new long[nextAccountId];
+        final byte[] states = new byte[nextAccountId];
+        final String[] emails = new String[nextAccountId];
+        for (Record4<Integer, String, Money, Boolean> account : accounts) {
+            final int id = account.value1();
+            emails[id] = account.value2();
+            balances[id] = account.value3().getUnits();
+            states[id] = account.value4() ? ACTIVE : DELETED;
+        }
+        final Integer lastTransactionId = ctx.select(DSL.max(TRANSACTION.ID)).from(TRANSACTION).fetchOne().value1();
+        return new LedgerSnapshot(sequence, nextAccountId, lastTransactionId == null ? 1 : lastTransactionId + 1,
+                balances, states, emails);
+    }
+
+    private static void deleteFiles(Path directory) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "{" + LedgerLog.SEGMENT_PREFIX + ","
+                + LedgerSnapshot.FILE_PREFIX + "}*")) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+    }
+}
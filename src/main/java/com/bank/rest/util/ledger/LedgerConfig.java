@@ -0,0 +1,117 @@
+package com.bank.rest.util.ledger;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * Storage and sizing settings of a {@link Ledger}
+ */
+public class LedgerConfig {
+
+    private Path directory = Paths.get("ledger");
+    private int maxAccounts = 1 << 20;
+    private int logSegmentBytes = 64 << 20;
+    private long forceIntervalMillis = 1_000;
+    private long snapshotIntervalSeconds = 300;
+    private int writeBehindQueueCapacity = 65_536;
+    private int writeBehindBatchSize = 1_000;
+
+    /**
+     * Reads the ledger.* properties, missing properties keep their defaults
+     *
+     * @param properties application properties
+     * @return ledger config
+     */
+    public static LedgerConfig fromProperties(Properties properties) {
+        final LedgerConfig config = new LedgerConfig();
+        if (properties.getProperty("ledger.directory") != null) {
+            config.withDirectory(Paths.get(properties.getProperty("ledger.directory")));
+        }
+        if (properties.getProperty("ledger.max-accounts") != null) {
+            config.withMaxAccounts(Integer.parseInt(properties.getProperty("ledger.max-accounts")));
+        }
+        if (properties.getProperty("ledger.log-segment-bytes") != null) {
+            config.withLogSegmentBytes(Integer.parseInt(properties.getProperty("ledger.log-segment-bytes")));
+        }
+        if (properties.getProperty("ledger.force-interval-ms") != null) {
+            config.withForceIntervalMillis(Long.parseLong(properties.getProperty("ledger.force-interval-ms")));
+        }
+        if (properties.getProperty("ledger.snapshot-interval-seconds") != null) {
+            config.withSnapshotIntervalSeconds(Long.parseLong(properties.getProperty("ledger.snapshot-interval-seconds")));
+        }
+        if (properties.getProperty("ledger.write-behind.queue-capacity") != null) {
+            config.withWriteBehindQueueCapacity(Integer.parseInt(properties.getProperty("ledger.write-behind.queue-capacity")));
+        }
+        if (properties.getProperty("ledger.write-behind.batch-size") != null) {
+            config.withWriteBehindBatchSize(Integer.parseInt(properties.getProperty("ledger.write-behind.batch-size")));
+        }
+        return config;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public LedgerConfig withDirectory(Path directory) {
+        this.directory = directory;
+        return this;
+    }
+
+    public int getMaxAccounts() {
+        return maxAccounts;
+    }
+
+    /**
+     * @param maxAccounts upper bound of account ids, balance arrays are allocated for it up front
+     */
+    public LedgerConfig withMaxAccounts(int maxAccounts) {
+        this.maxAccounts = maxAccounts;
+        return this;
+    }
+
+    public int getLogSegmentBytes() {
+        return logSegmentBytes;
+    }
+
+    public LedgerConfig withLogSegmentBytes(int logSegmentBytes) {
+        this.logSegmentBytes = logSegmentBytes;
+        return this;
+    }
+
+    public long getForceIntervalMillis() {
+        return forceIntervalMillis;
+    }
+
+    public LedgerConfig withForceIntervalMillis(long forceIntervalMillis) {
+        this.forceIntervalMillis = forceIntervalMillis;
+        return this;
+    }
+
+    public long getSnapshotIntervalSeconds() {
+        return snapshotIntervalSeconds;
+    }
+
+    public LedgerConfig withSnapshotIntervalSeconds(long snapshotIntervalSeconds) {
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+        return this;
+    }
+
+    public int getWriteBehindQueueCapacity() {
+        return writeBehindQueueCapacity;
+    }
+
+    public LedgerConfig withWriteBehindQueueCapacity(int writeBehindQueueCapacity) {
+        this.writeBehindQueueCapacity = writeBehindQueueCapacity;
+        return this;
+    }
+
+    public int getWriteBehindBatchSize() {
+        return writeBehindBatchSize;
+    }
+
+    public LedgerConfig withWriteBehindBatchSize(int writeBehindBatchSize) {
+        this.writeBehindBatchSize = writeBehindBatchSize;
+        return this;
+    }
+}
@@ -0,0 +1,179 @@
+package com.bank.rest.util.ledger;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * One change of the ledger, as written to its log, replayed on recovery and written behind to the database.
+ * <p>
+ * Account entries carry the whole account, so creating, updating and deleting an account are all the same entry.
+ * Amounts and balances are in {@link com.bank.rest.model.Money} units.
+ * <p>
+ * Encoded as a 4 byte length of the body, the body and the CRC32 of the body, big-endian:
+ * <pre>
+ * body    long sequence, byte type
+ * ACCOUNT int id, long balance, byte active, short email length, email UTF-8
+ * TRANSFER int transaction id, int source, int target, long amount, long epoch millis
+ * </pre>
+ * A zero length marks the end of written data.
+ */
+public final class LedgerEntry {
+
+    public enum Type {
+        ACCOUNT,
+        TRANSFER
+    }
+
+    /**
+     * Encoded size of the largest entry, an account with an email of 3 UTF-8 bytes per char
+     */
+    static final int MAX_SIZE = 4 + 8 + 1 + 4 + 8 + 1 + 2 + 3 * Ledger.MAX_EMAIL_LENGTH + 4;
+
+    private final long sequence;
+    private final Type type;
+    private final int id;
+    private final String email;
+    private final boolean active;
+    private final int source;
+    private final int target;
+    private final long units;
+    private final long timestampMillis;
+
+    private LedgerEntry(long sequence, Type type, int id, String email, boolean active, int source, int target,
+                        long units, long timestampMillis) {
+        this.sequence = sequence;
+        this.type = type;
+        this.id = id;
+        this.email = email;
+        this.active = active;
+        this.source = source;
+        this.target = target;
+        this.units = units;
+        this.timestampMillis = timestampMillis;
+    }
+
+    public static LedgerEntry account(long sequence, int id, String email, long balance, boolean active) {
+        return new LedgerEntry(sequence, Type.ACCOUNT, id, email, active, 0, 0, balance, 0);
+    }
+
+    public static LedgerEntry transfer(long sequence, int transactionId, int source, int target, long amount,
+                                       long timestampMillis) {
+        return new LedgerEntry(sequence, Type.TRANSFER, transactionId, null, false, source, target, amount,
+                timestampMillis);
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return account id of an account entry, transaction id of a transfer
+     */
+    public int getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    public int getTarget() {
+        return target;
+    }
+
+    /**
+     * @return balance of an account entry, amount of a transfer
+     */
+    public long getUnits() {
+        return units;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    /**
+     * Encodes the entry at the position of the buffer
+     */
+    void encode(ByteBuffer buffer, CRC32 crc) {
+        final int start = buffer.position();
+        buffer.putInt(0)
+                .putLong(sequence)
+                .put((byte) type.ordinal());
+        if (type == Type.ACCOUNT) {
+            final byte[] emailBytes = email.getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(id)
+                    .putLong(units)
+                    .put((byte) (active ? 1 : 0))
+                    .putShort((short) emailBytes.length)
+                    .put(emailBytes);
+        } else {
+            buffer.putInt(id)
+                    .putInt(source)
+                    .putInt(target)
+                    .putLong(units)
+                    .putLong(timestampMillis);
+        }
+        final int length = buffer.position() - start - 4;
+        buffer.putInt(start, length);
+        crc.reset();
+        final ByteBuffer body = buffer.duplicate();
+        body.position(start + 4).limit(start + 4 + length);
+        crc.update(body);
+        buffer.putInt((int) crc.getValue());
+    }
+
+    /**
+     * Decodes the entry at the position of the buffer, which is left after it
+     *
+     * @return entry, or null at the end of written data, at a torn entry or at a checksum mismatch
+     */
+    static LedgerEntry decode(ByteBuffer buffer, CRC32 crc) {
+        if (buffer.remaining() < 4) {
+            return null;
+        }
+        final int start = buffer.position();
+        final int length = buffer.getInt(start);
+        if (length <= 0 || length > buffer.remaining() - 8) {
+            return null;
+        }
+        final ByteBuffer body = buffer.duplicate();
+        body.position(start + 4).limit(start + 4 + length);
+        crc.reset();
+        crc.update(body);
+        if ((int) crc.getValue() != buffer.getInt(start + 4 + length)) {
+            return null;
+        }
+
+        buffer.position(start + 4);
+        final long sequence = buffer.getLong();
+        final Type type = Type.values()[buffer.get()];
+        final LedgerEntry entry;
+        if (type == Type.ACCOUNT) {
+            final int id = buffer.getInt();
+            final long balance = buffer.getLong();
+            final boolean active = buffer.get() != 0;
+            final byte[] emailBytes = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(emailBytes);
+            entry = account(sequence, id, new String(emailBytes, StandardCharsets.UTF_8), balance, active);
+        } else {
+            entry = transfer(sequence, buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getLong(),
+                    buffer.getLong());
+        }
+        buffer.position(start + 4 + length + 4);
+        return entry;
+    }
+}
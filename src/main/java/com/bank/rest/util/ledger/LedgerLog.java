@@ -0,0 +1,158 @@
+package com.bank.rest.util.ledger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log of a {@link Ledger}: entries are appended to memory-mapped segment files of a fixed size,
+ * named after the sequence of their first entry.
+ * <p>
+ * An appended entry survives a crash of the process as soon as {@link #append} returns. It survives a crash of the host
+ * once the segment has been forced, which the ledger does periodically rather than per entry.
+ * Appends are not thread-safe, the ledger serializes them.
+ */
+final class LedgerLog implements AutoCloseable {
+
+    static final String SEGMENT_PREFIX = "log-";
+    static final String SEGMENT_SUFFIX = ".dat";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final ByteBuffer scratch = ByteBuffer.allocate(LedgerEntry.MAX_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel channel;
+    private volatile MappedByteBuffer segment;
+
+    LedgerLog(Path directory, int segmentBytes) {
+        if (segmentBytes < LedgerEntry.MAX_SIZE + 4) {
+            throw new IllegalArgumentException("Log segment is too small for an entry");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Appends the entry, starting a new segment if it doesn't fit into the current one
+     */
+    void append(LedgerEntry entry) throws IOException {
+        scratch.clear();
+        entry.encode(scratch, crc);
+        scratch.flip();
+        // Keeps room for the zero length that ends the written data
+        if (segment == null || segment.remaining() < scratch.remaining() + 4) {
+            roll();
+            open(entry.getSequence());
+        }
+        segment.put(scratch);
+    }
+
+    /**
+     * Closes the current segment, the next entry starts a new one
+     */
+    void roll() throws IOException {
+        if (channel != null) {
+            segment.force();
+            channel.close();
+            channel = null;
+            segment = null;
+        }
+    }
+
+    /**
+     * Forces the appended entries of the current segment to disk, may run concurrently to appends
+     */
+    void force() {
+        final MappedByteBuffer current = segment;
+        if (current != null) {
+            current.force();
+        }
+    }
+
+    /**
+     * Passes the entries of all segments with a sequence greater than the provided one to the consumer, in order.
+     * Reading stops at the first torn or corrupt entry of a segment.
+     */
+    void replay(long afterSequence, Consumer<LedgerEntry> consumer) throws IOException {
+        final CRC32 replayCrc = new CRC32();
+        final List<Path> segments = segments();
+        for (int i = 0; i < segments.size(); i++) {
+            if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= afterSequence + 1) {
+                continue;
+            }
+            try (FileChannel file = FileChannel.open(segments.get(i), StandardOpenOption.READ)) {
+                final MappedByteBuffer buffer = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+                LedgerEntry entry;
+                while ((entry = LedgerEntry.decode(buffer, replayCrc)) != null) {
+                    if (entry.getSequence() > afterSequence) {
+                        consumer.accept(entry);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the segments holding only entries up to the provided sequence, the current segment is kept
+     */
+    void deleteUpTo(long sequence) throws IOException {
+        final List<Path> segments = segments();
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (firstSequence(segments.get(i + 1)) > sequence + 1) {
+                break;
+            }
+            Files.delete(segments.get(i));
+        }
+    }
+
+    /**
+     * Closes the current segment, cutting off its unwritten tail
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            final int written = segment.position();
+            segment.force();
+            channel.truncate(written + 4);
+            channel.close();
+            channel = null;
+            segment = null;
+        }
+    }
+
+    private void open(long firstSequence) throws IOException {
+        final Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        // An existing file of that name holds no valid entry, e.g. a segment created right before a crash
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+    }
+
+    private List<Path> segments() throws IOException {
+        final List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                segments.add(file);
+            }
+        }
+        // Names hold the zero-padded first sequence, so name order is sequence order
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static long firstSequence(Path segment) {
+        final String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
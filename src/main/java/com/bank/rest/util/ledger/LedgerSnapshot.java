@@ -0,0 +1,146 @@
+package com.bank.rest.util.ledger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Copy of all accounts of a {@link Ledger} as of a log sequence, indexed by account id.
+ * <p>
+ * Written to a temporary file that is renamed when complete, so a snapshot file is either whole or absent.
+ * Its name holds the zero-padded sequence, the file ends with the CRC32 of its content.
+ */
+final class LedgerSnapshot {
+
+    static final String FILE_PREFIX = "snapshot-";
+    static final String FILE_SUFFIX = ".dat";
+
+    private static final int MAGIC = 0x4C444753;
+
+    final long sequence;
+    final int nextAccountId;
+    final int nextTransactionId;
+    final long[] balances;
+    final byte[] states;
+    final String[] emails;
+
+    /**
+     * @param balances balance per account id, up to the next account id
+     * @param states   {@link Ledger#MISSING}, {@link Ledger#ACTIVE} or {@link Ledger#DELETED} per account id
+     * @param emails   email per account id
+     */
+    LedgerSnapshot(long sequence, int nextAccountId, int nextTransactionId, long[] balances, byte[] states, String[] emails) {
+        this.sequence = sequence;
+        this.nextAccountId = nextAccountId;
+        this.nextTransactionId = nextTransactionId;
+        this.balances = balances;
+        this.states = states;
+        this.emails = emails;
+    }
+
+    void write(Path directory) throws IOException {
+        final Path file = directory.resolve(String.format("%s%020d%s", FILE_PREFIX, sequence, FILE_SUFFIX));
+        final Path temporary = directory.resolve(file.getFileName() + ".tmp");
+        final CRC32 crc = new CRC32();
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16), crc))) {
+            out.writeInt(MAGIC);
+            out.writeLong(sequence);
+            out.writeInt(nextAccountId);
+            out.writeInt(nextTransactionId);
+            for (int id = 0; id < nextAccountId; id++) {
+                out.writeByte(states[id]);
+                if (states[id] != Ledger.MISSING) {
+                    out.writeLong(balances[id]);
+                    out.writeUTF(emails[id]);
+                }
+            }
+            out.writeInt((int) crc.getValue());
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the snapshot with the highest sequence that reads back intact, or null if there is none
+     */
+    static LedgerSnapshot readLatest(Path directory) throws IOException {
+        final List<Path> files = files(directory);
+        for (int i = files.size() - 1; i >= 0; i--) {
+            final LedgerSnapshot snapshot = read(files.get(i));
+            if (snapshot != null) {
+                return snapshot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Deletes the snapshots older than the provided sequence
+     */
+    static void deleteBefore(Path directory, long sequence) throws IOException {
+        for (Path file : files(directory)) {
+            if (sequenceOf(file) < sequence) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static LedgerSnapshot read(Path file) throws IOException {
+        final CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16), crc))) {
+            if (in.readInt() != MAGIC) {
+                return null;
+            }
+            final long sequence = in.readLong();
+            final int nextAccountId = in.readInt();
+            final int nextTransactionId = in.readInt();
+            final long[] balances = new long[nextAccountId];
+            final byte[] states = new byte[nextAccountId];
+            final String[] emails = new String[nextAccountId];
+            for (int id = 0; id < nextAccountId; id++) {
+                states[id] = in.readByte();
+                if (states[id] != Ledger.MISSING) {
+                    balances[id] = in.readLong();
+                    emails[id] = in.readUTF();
+                }
+            }
+            final int checksum = (int) crc.getValue();
+            if (in.readInt() != checksum) {
+                return null;
+            }
+            return new LedgerSnapshot(sequence, nextAccountId, nextTransactionId, balances, states, emails);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static List<Path> files(Path directory) throws IOException {
+        final List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    private static long sequenceOf(Path file) {
+        final String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+    }
+}
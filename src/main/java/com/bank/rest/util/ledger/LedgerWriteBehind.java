@@ -0,0 +1,188 @@
+package com.bank.rest.util.ledger;
+
+import com.bank.rest.model.Money;
+import com.bank.rest.util.batch.BatchWriter;
+import org.jooq.BatchBindStep;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.bank.rest.jooq.bank_schema.tables.Account.ACCOUNT;
+import static com.bank.rest.jooq.bank_schema.tables.LedgerState.LEDGER_STATE;
+import static com.bank.rest.jooq.bank_schema.tables.Transaction.TRANSACTION;
+
+/**
+ * Copies ledger entries to the account and transaction tables on the thread of a {@link BatchWriter}, in sequence order.
+ * <p>
+ * Each drained batch of entries is one DB transaction that also stores the sequence of its last entry
+ * in the ledger_state table, so after a crash the ledger knows which logged entries the database is missing.
+ * Runs of transfers are written as one JDBC batch of ledger inserts and one of relative balance updates.
+ * A failed batch is retried until it succeeds: entries are never skipped, the ledger rejects changes once the queue is full.
+ */
+final class LedgerWriteBehind implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LedgerWriteBehind.class);
+
+    private static final long RETRY_DELAY_MILLIS = 1_000;
+    private static final long AWAIT_TIMEOUT_MILLIS = 30_000;
+
+    private final DSLContext ctx;
+    private final BatchWriter<LedgerEntry> writer;
+    private final Object appliedMonitor = new Object();
+    private volatile long appliedSequence;
+
+    LedgerWriteBehind(DSLContext ctx, long appliedSequence, int queueCapacity, int batchSize) {
+        this.ctx = ctx;
+        this.appliedSequence = appliedSequence;
+
+        writer = new BatchWriter<>("ledger-write-behind", queueCapacity, batchSize, 0, 0, this::applyUntilDone);
+    }
+
+    /**
+     * Queues the entry, the caller has checked {@link #getRemainingCapacity()} before
+     */
+    void enqueue(LedgerEntry entry) {
+        if (!writer.offer(entry)) {
+            throw new IllegalStateException("Write-behind queue is full at ledger entry " + entry.getSequence());
+        }
+    }
+
+    /**
+     * Queues the entry, waiting while the queue is full
+     */
+    void enqueueWaiting(LedgerEntry entry) {
+        try {
+            writer.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing ledger entry " + entry.getSequence(), e);
+        }
+    }
+
+    long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    int getQueueSize() {
+        return writer.getQueueSize();
+    }
+
+    int getRemainingCapacity() {
+        return writer.getRemainingCapacity();
+    }
+
+    /**
+     * Waits until the entries up to the provided sequence are in the database
+     */
+    void awaitApplied(long sequence) {
+        if (appliedSequence >= sequence) {
+            return;
+        }
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(AWAIT_TIMEOUT_MILLIS);
+        synchronized (appliedMonitor) {
+            while (appliedSequence < sequence) {
+                final long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    throw new IllegalStateException("Database is behind the ledger, applied " + appliedSequence
+                            + " of " + sequence);
+                }
+                try {
+                    appliedMonitor.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the database", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the queued entries and waits for the writer to finish
+     */
+    @Override
+    public void close() throws InterruptedException {
+        writer.close();
+    }
+
+    /**
+     * An interrupt stops the writer without skipping the batch, the entries stay in the ledger log for recovery
+     */
+    private void applyUntilDone(List<LedgerEntry> batch) throws InterruptedException {
+        while (true) {
+            try {
+                ctx.transaction(configuration -> apply(batch));
+                break;
+            } catch (RuntimeException e) {
+                LOG.error("Could not write ledger entries {}-{} to the database, retrying", batch.get(0).getSequence(),
+                        batch.get(batch.size() - 1).getSequence(), e);
+                Thread.sleep(RETRY_DELAY_MILLIS);
+            }
+        }
+        synchronized (appliedMonitor) {
+            appliedSequence = batch.get(batch.size() - 1).getSequence();
+            appliedMonitor.notifyAll();
+        }
+    }
+
+    private void apply(List<LedgerEntry> batch) {
+        final List<LedgerEntry> transfers = new ArrayList<>();
+        for (LedgerEntry entry : batch) {
+            if (entry.getType() == LedgerEntry.Type.TRANSFER) {
+                transfers.add(entry);
+                continue;
+            }
+            // Account entries carry absolute balances, so earlier transfers have to be written first
+            writeTransfers(transfers);
+            transfers.clear();
+            ctx.mergeInto(ACCOUNT, ACCOUNT.ID, ACCOUNT.EMAIL, ACCOUNT.BALANCE, ACCOUNT.ACTIVE, ACCOUNT.VERSION)
+                    .key(ACCOUNT.ID)
+                    .values(entry.getId(), entry.getEmail(), Money.ofUnits(entry.getUnits()), entry.isActive(),
+                            entry.getSequence())
+                    .execute();
+        }
+        writeTransfers(transfers);
+
+        ctx.update(LEDGER_STATE)
+                .set(LEDGER_STATE.APPLIED_SEQUENCE, batch.get(batch.size() - 1).getSequence())
+                .where(LEDGER_STATE.ID.eq(Ledger.STATE_ID))
+                .execute();
+    }
+
+    private void writeTransfers(List<LedgerEntry> transfers) {
+        if (transfers.isEmpty()) {
+            return;
+        }
+        final Map<Integer, Long> deltas = new HashMap<>();
+        // The account version is the sequence of the last transfer touching it, as in the ledger
+        final Map<Integer, Long> versions = new HashMap<>();
+        final BatchBindStep ledgerInserts = ctx.batch(ctx.insertInto(TRANSACTION,
+                TRANSACTION.ID, TRANSACTION.SOURCE, TRANSACTION.TARGET, TRANSACTION.AMOUNT, TRANSACTION.TRANSACTION_TIME)
+                .values((Integer) null, null, null, null, null));
+        for (LedgerEntry transfer : transfers) {
+            ledgerInserts.bind(transfer.getId(), transfer.getSource(), transfer.getTarget(),
+                    Money.ofUnits(transfer.getUnits()), new Timestamp(transfer.getTimestampMillis()));
+            deltas.merge(transfer.getSource(), -transfer.getUnits(), Long::sum);
+            deltas.merge(transfer.getTarget(), transfer.getUnits(), Long::sum);
+            versions.put(transfer.getSource(), transfer.getSequence());
+            versions.put(transfer.getTarget(), transfer.getSequence());
+        }
+        ledgerInserts.execute();
+
+        final BatchBindStep balanceUpdates = ctx.batch(ctx.update(ACCOUNT)
+                .set(ACCOUNT.BALANCE, ACCOUNT.BALANCE.add(DSL.val((Money) null, ACCOUNT.BALANCE)))
+                .set(ACCOUNT.VERSION, (Long) null)
+                .where(ACCOUNT.ID.eq((Integer) null)));
+        for (Map.Entry<Integer, Long> delta : deltas.entrySet()) {
+            balanceUpdates.bind(Money.ofUnits(delta.getValue()), versions.get(delta.getKey()), delta.getKey());
+        }
+        balanceUpdates.execute();
+    }
+}
@@ -0,0 +1,127 @@
+package com.bank.rest.util.lock;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-JVM lock table for accounts, one of a fixed number of stripes per account id.
+ * <p>
+ * Locks of a transfer are always taken in ascending stripe order. Ordering by stripe rather than by account id
+ * is what rules out deadlocks: two different account pairs may share stripes in opposite id order.
+ */
+public class StripedAccountLocks {
+
+    private final ReentrantLock[] stripes;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contendedAcquisitions = new LongAdder();
+    private final LongAdder waitTimeNanos = new LongAdder();
+
+    public StripedAccountLocks(int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("Stripe count must be positive");
+        }
+        stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Locks the stripes of both accounts, lower stripe first
+     *
+     * @param firstAccountId  account id
+     * @param secondAccountId other account id
+     * @return held locks, to be closed when done
+     */
+    public Held lock(int firstAccountId, int secondAccountId) {
+        final int first = stripeOf(firstAccountId);
+        final int second = stripeOf(secondAccountId);
+        if (first == second) {
+            return acquire(new int[]{first});
+        }
+        return acquire(first < second ? new int[]{first, second} : new int[]{second, first});
+    }
+
+    /**
+     * Locks the stripes of all provided accounts in ascending stripe order
+     *
+     * @param accountIds account ids, duplicates allowed
+     * @return held locks, to be closed when done
+     */
+    public Held lockAll(Collection<Integer> accountIds) {
+        final BitSet requested = new BitSet(stripes.length);
+        for (int accountId : accountIds) {
+            requested.set(stripeOf(accountId));
+        }
+        return acquire(requested.stream().toArray());
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * @return number of stripe locks taken so far
+     */
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    /**
+     * @return number of stripe locks that were held by another thread when requested
+     */
+    public long getContendedAcquisitions() {
+        return contendedAcquisitions.sum();
+    }
+
+    /**
+     * @return total time threads spent waiting for contended stripe locks
+     */
+    public long getWaitTimeNanos() {
+        return waitTimeNanos.sum();
+    }
+
+    public long getWaitTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(getWaitTimeNanos());
+    }
+
+    private int stripeOf(int accountId) {
+        return Math.floorMod(accountId, stripes.length);
+    }
+
+    private Held acquire(int[] sortedStripes) {
+        for (int stripe : sortedStripes) {
+            final ReentrantLock lock = stripes[stripe];
+            if (!lock.tryLock()) {
+                contendedAcquisitions.increment();
+                final long waitStart = System.nanoTime();
+                lock.lock();
+                waitTimeNanos.add(System.nanoTime() - waitStart);
+            }
+            acquisitions.increment();
+        }
+        return new Held(sortedStripes);
+    }
+
+    /**
+     * Stripe locks held by the current thread
+     */
+    public final class Held implements AutoCloseable {
+        private final int[] heldStripes;
+
+        private Held(int[] heldStripes) {
+            this.heldStripes = heldStripes;
+        }
+
+        @Override
+        public void close() {
+            for (int i = heldStripes.length - 1; i >= 0; i--) {
+                stripes[heldStripes[i]].unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.bank.rest.util.mapper;
+
+import com.bank.rest.dto.AccountDTO;
+import com.bank.rest.model.AccountModel;
+
+/**
+ * Conversions between {@link AccountDTO} and {@link AccountModel}
+ */
+public final class AccountMapper {
+
+    private AccountMapper() {
+    }
+
+    public static AccountDTO toDto(AccountModel model) {
+        final AccountDTO dto = new AccountDTO();
+        dto.setId(model.getId());
+        dto.setEmail(model.getEmail());
+        dto.setBalance(MoneyMapper.toDto(model.getBalance()));
+        return dto;
+    }
+
+    public static AccountModel toModel(AccountDTO dto) {
+        final AccountModel model = new AccountModel();
+        model.setId(dto.getId());
+        model.setEmail(dto.getEmail());
+        model.setBalance(MoneyMapper.toModel(dto.getBalance()));
+        return model;
+    }
+}
@@ -0,0 +1,26 @@
+package com.bank.rest.util.mapper;
+
+import com.bank.rest.model.Money;
+import org.jooq.impl.AbstractConverter;
+
+import java.math.BigDecimal;
+
+/**
+ * Maps the DECIMAL(19, 4) balance and amount columns to {@link Money}, configured for code generation in pom.xml
+ */
+public class MoneyConverter extends AbstractConverter<BigDecimal, Money> {
+
+    public MoneyConverter() {
+        super(BigDecimal.class, Money.class);
+    }
+
+    @Override
+    public Money from(BigDecimal databaseObject) {
+        return databaseObject == null ? null : Money.of(databaseObject);
+    }
+
+    @Override
+    public BigDecimal to(Money userObject) {
+        return userObject == null ? null : userObject.toBigDecimal();
+    }
+}
@@ -0,0 +1,35 @@
+package com.bank.rest.util.mapper;
+
+import com.bank.rest.model.Money;
+import com.bank.rest.util.exception.BadRequestFormatException;
+
+import java.math.BigDecimal;
+
+/**
+ * Conversions between the BigDecimal amounts of the JSON API and {@link Money}
+ */
+public final class MoneyMapper {
+
+    private MoneyMapper() {
+    }
+
+    public static BigDecimal toDto(Money money) {
+        return money == null ? null : money.toBigDecimal();
+    }
+
+    /**
+     * Null stays null and is rejected by the validators,
+     * an amount that cannot be represented is rejected here with BadRequestFormatException
+     */
+    public static Money toModel(BigDecimal amount) {
+        if (amount == null) {
+            return null;
+        }
+        try {
+            return Money.of(amount);
+        } catch (ArithmeticException e) {
+            throw new BadRequestFormatException("Invalid amount. Must have at most " + Money.SCALE
+                    + " decimal places and be less than " + Money.ofUnits(Long.MAX_VALUE));
+        }
+    }
+}
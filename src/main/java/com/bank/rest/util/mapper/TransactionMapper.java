@@ -0,0 +1,35 @@
+package com.bank.rest.util.mapper;
+
+import com.bank.rest.dto.TransactionDTO;
+import com.bank.rest.model.TransactionModel;
+
+/**
+ * Conversions between {@link TransactionDTO} and {@link TransactionModel}
+ */
+public final class TransactionMapper {
+
+    private TransactionMapper() {
+    }
+
+    public static TransactionDTO toDto(TransactionModel model) {
+        final TransactionDTO dto = new TransactionDTO();
+        dto.setId(model.getId());
+        dto.setSource(model.getSource());
+        dto.setTarget(model.getTarget());
+        dto.setAmount(MoneyMapper.toDto(model.getAmount()));
+        dto.setTransactionTime(model.getTransactionTime() == null ? null : model.getTransactionTime().toString());
+        return dto;
+    }
+
+    /**
+     * Transaction time isn't mapped, it is set by the repository when the transaction is performed
+     */
+    public static TransactionModel toModel(TransactionDTO dto) {
+        final TransactionModel model = new TransactionModel();
+        model.setId(dto.getId());
+        model.setSource(dto.getSource());
+        model.setTarget(dto.getTarget());
+        model.setAmount(MoneyMapper.toModel(dto.getAmount()));
+        return model;
+    }
+}
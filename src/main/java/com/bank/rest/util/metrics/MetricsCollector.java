@@ -0,0 +1,15 @@
+package com.bank.rest.util.metrics;
+
+/**
+ * Source of metrics served by {@link MetricsRegistry}
+ */
+@FunctionalInterface
+public interface MetricsCollector {
+
+    /**
+     * Writes current values, called on every scrape
+     *
+     * @param writer target of the samples
+     */
+    void collect(PrometheusWriter writer);
+}
@@ -0,0 +1,113 @@
+package com.bank.rest.util.metrics;
+
+import com.bank.rest.repository.impl.CachingAccountRepository;
+import com.bank.rest.repository.impl.SequencedTransactionRepository;
+import com.bank.rest.util.idempotency.IdempotencyKeys;
+import com.bank.rest.util.journal.TransferJournal;
+import com.bank.rest.util.json.TransactionChunkCache;
+import com.bank.rest.util.ledger.Ledger;
+import com.bank.rest.util.lock.StripedAccountLocks;
+import com.bank.rest.util.pool.ConnectionPool;
+import com.bank.rest.util.server.ServerThreads;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collectors exposing the counters of the application components
+ */
+public final class MetricsCollectors {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private MetricsCollectors() {
+    }
+
+    public static MetricsCollector accountLocks(StripedAccountLocks locks) {
+        return writer -> writer
+                .gauge("bank_account_lock_stripes", "Number of account lock stripes", locks.getStripeCount())
+                .counter("bank_account_lock_acquisitions_total", "Account lock stripes taken", locks.getAcquisitions())
+                .counter("bank_account_lock_contended_total", "Account lock stripes held by another thread when requested",
+                        locks.getContendedAcquisitions())
+                .counter("bank_account_lock_wait_seconds_total", "Time spent waiting for contended account lock stripes",
+                        locks.getWaitTimeNanos() / NANOS_PER_SECOND);
+    }
+
+    public static MetricsCollector connectionPool(ConnectionPool pool) {
+        return writer -> writer
+                .gauge("bank_db_pool_active_connections", "Connections currently borrowed", pool.getActiveConnections())
+                .gauge("bank_db_pool_idle_connections", "Open connections waiting in the pool", pool.getIdleConnections())
+                .gauge("bank_db_pool_max_connections", "Maximum pool size", pool.getMaximumSize())
+                .counter("bank_db_pool_acquisitions_total", "Connections borrowed", pool.getAcquisitions())
+                .counter("bank_db_pool_wait_seconds_total", "Time spent obtaining connections",
+                        pool.getWaitTimeNanos() / NANOS_PER_SECOND);
+    }
+
+    public static MetricsCollector accountCache(CachingAccountRepository cache) {
+        return writer -> writer
+                .gauge("bank_account_cache_size", "Cached accounts", cache.getSize())
+                .counter("bank_account_cache_hits_total", "Account lookups served from the cache", cache.getHitCount())
+                .counter("bank_account_cache_misses_total", "Account lookups read from the database", cache.getMissCount())
+                .counter("bank_account_cache_evictions_total", "Accounts dropped from the cache by size or age",
+                        cache.getEvictionCount());
+    }
+
+    public static MetricsCollector transferJournal(TransferJournal journal) {
+        return writer -> writer
+                .gauge("bank_journal_queue_size", "Transfers waiting for the journal writer", journal.getQueueSize())
+                .counter("bank_journal_records_total", "Transfers written to the journal", journal.getWritten())
+                .counter("bank_journal_blocked_total", "Transfers that waited for room in the journal queue",
+                        journal.getBlocked())
+                .counter("bank_journal_dropped_total", "Transfers not journaled", journal.getDropped())
+                .counter("bank_journal_segments_total", "Journal segment files started", journal.getSegments());
+    }
+
+    public static MetricsCollector transferSequencer(SequencedTransactionRepository sequencer) {
+        return writer -> writer
+                .gauge("bank_sequencer_queue_size", "Transfers waiting for the sequencer", sequencer.getQueueSize())
+                .counter("bank_sequencer_batches_total", "Group commits made by the sequencer", sequencer.getBatches())
+                .counter("bank_sequencer_transfers_total", "Transfers applied by the sequencer", sequencer.getTransfers());
+    }
+
+    public static MetricsCollector ledger(Ledger ledger) {
+        return writer -> writer
+                .gauge("bank_ledger_sequence", "Sequence of the last ledger change", ledger.getSequence())
+                .gauge("bank_ledger_applied_sequence", "Sequence of the last ledger change written to the database",
+                        ledger.getAppliedSequence())
+                .gauge("bank_ledger_write_behind_queue_size", "Ledger changes waiting to be written to the database",
+                        ledger.getWriteBehindQueueSize())
+                .counter("bank_ledger_snapshots_total", "Ledger snapshots written", ledger.getSnapshots());
+    }
+
+    public static MetricsCollector idempotencyKeys(IdempotencyKeys keys) {
+        return writer -> writer
+                .gauge("bank_idempotency_keys_cached", "Idempotency keys held in memory", keys.getSize())
+                .counter("bank_idempotency_performed_total", "Transfers made with a new idempotency key", keys.getPerformed())
+                .counter("bank_idempotency_replayed_total", "Transfers answered from an already used idempotency key",
+                        keys.getReplayed())
+                .counter("bank_idempotency_conflicts_total",
+                        "Requests refused because their idempotency key is in progress or was used for another transfer",
+                        keys.getConflicts());
+    }
+
+    public static MetricsCollector transactionChunkCache(TransactionChunkCache cache) {
+        return writer -> writer
+                .gauge("bank_transaction_chunks_cached", "Encoded transaction chunks held in memory", cache.getSize())
+                .gauge("bank_transaction_chunk_cache_bytes", "Encoded bytes held by the transaction chunk cache",
+                        cache.getWeightedSize())
+                .counter("bank_transaction_chunk_hits_total", "Transaction chunks written from the cache",
+                        cache.getHitCount())
+                .counter("bank_transaction_chunk_misses_total", "Transaction chunks read from the database and encoded",
+                        cache.getMissCount());
+    }
+
+    public static MetricsCollector serverThreads(ThreadPool pool) {
+        return writer -> writer
+                .gauge("bank_http_threads", "Server threads, running a task or idle", pool.getThreads())
+                .gauge("bank_http_idle_threads", "Server threads waiting for a task", pool.getIdleThreads())
+                .gauge("bank_http_queued_tasks", "Tasks waiting for a free server thread", ServerThreads.getQueueSize(pool))
+                .gauge("bank_http_virtual_threads", "Virtual threads running a request", ServerThreads.getVirtualThreads(pool))
+                .counter("bank_http_virtual_tasks_total", "Tasks started on a virtual thread",
+                        ServerThreads.getVirtualTasks(pool));
+    }
+}
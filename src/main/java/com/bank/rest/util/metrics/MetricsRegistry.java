@@ -0,0 +1,28 @@
+package com.bank.rest.util.metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Collects metrics of all registered sources for {@code GET /metrics}
+ */
+public class MetricsRegistry {
+
+    private final List<MetricsCollector> collectors = new CopyOnWriteArrayList<>();
+
+    public MetricsRegistry register(MetricsCollector collector) {
+        collectors.add(collector);
+        return this;
+    }
+
+    /**
+     * @return current values of all sources in Prometheus text format
+     */
+    public String scrape() {
+        final PrometheusWriter writer = new PrometheusWriter();
+        for (MetricsCollector collector : collectors) {
+            collector.collect(writer);
+        }
+        return writer.toString();
+    }
+}
@@ -0,0 +1,97 @@
+package com.bank.rest.util.metrics;
+
+/**
+ * Builds the Prometheus text exposition format (version 0.0.4).
+ * Samples of one metric family must follow its {@link #family} header without other families in between.
+ */
+public class PrometheusWriter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final StringBuilder out = new StringBuilder(4096);
+
+    /**
+     * Starts a metric family
+     *
+     * @param name metric name
+     * @param type counter, gauge, summary, histogram or untyped
+     * @param help description
+     */
+    public PrometheusWriter family(String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    /**
+     * @param labels label names and values, alternating
+     */
+    public PrometheusWriter sample(String name, long value, String... labels) {
+        appendName(name, labels);
+        out.append(value).append('\n');
+        return this;
+    }
+
+    /**
+     * @param labels label names and values, alternating
+     */
+    public PrometheusWriter sample(String name, double value, String... labels) {
+        appendName(name, labels);
+        if (Double.isNaN(value)) {
+            out.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            out.append(value > 0 ? "+Inf" : "-Inf");
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+        return this;
+    }
+
+    public PrometheusWriter counter(String name, String help, long value) {
+        return family(name, "counter", help).sample(name, value);
+    }
+
+    public PrometheusWriter counter(String name, String help, double value) {
+        return family(name, "counter", help).sample(name, value);
+    }
+
+    public PrometheusWriter gauge(String name, String help, long value) {
+        return family(name, "gauge", help).sample(name, value);
+    }
+
+    private void appendName(String name, String[] labels) {
+        out.append(name);
+        if (labels.length > 0) {
+            out.append('{');
+            for (int i = 0; i + 1 < labels.length; i += 2) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append(labels[i]).append("=\"");
+                appendEscaped(labels[i + 1]);
+                out.append('"');
+            }
+            out.append('}');
+        }
+        out.append(' ');
+    }
+
+    private void appendEscaped(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                out.append('\\').append(c);
+            } else if (c == '\n') {
+                out.append("\\n");
+            } else {
+                out.append(c);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
@@ -0,0 +1,114 @@
+package com.bank.rest.util.metrics;
+
+import org.HdrHistogram.Histogram;
+import spark.ExceptionHandler;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Instruments Spark routes and exception handlers.
+ * <p>
+ * Metrics of a route are created when the route is registered, so a request only reads the clock twice and records
+ * into its route's {@link RouteMetrics}. A request failing with an exception is recorded by the exception handler,
+ * once the handler has set the response status.
+ */
+public class RequestMetrics implements MetricsCollector {
+
+    private static final String IN_FLIGHT_ATTRIBUTE = RequestMetrics.class.getName() + ".inFlight";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<String, RouteMetrics> routes = new ConcurrentSkipListMap<>();
+    private final Map<String, LongAdder> exceptions = new ConcurrentSkipListMap<>();
+
+    /**
+     * @param method HTTP method of the route
+     * @param path   full path pattern of the route, used as label
+     * @param route  route to be timed
+     * @return route recording count, status and latency of every request
+     */
+    public Route timed(String method, String path, Route route) {
+        final RouteMetrics metrics = routes.computeIfAbsent(method + " " + path, key -> new RouteMetrics(method, path));
+        return (req, res) -> {
+            final long start = System.nanoTime();
+            final Object body;
+            try {
+                body = route.handle(req, res);
+            } catch (Exception e) {
+                req.raw().setAttribute(IN_FLIGHT_ATTRIBUTE, new InFlight(metrics, start));
+                throw e;
+            }
+            metrics.record(res.raw().getStatus(), System.nanoTime() - start);
+            return body;
+        };
+    }
+
+    /**
+     * @param type    exception type the handler is registered for, used as label
+     * @param handler handler to be counted
+     * @return handler counting its invocations and recording the failed request on its route
+     */
+    public <T extends Exception> ExceptionHandler<T> counted(Class<T> type, ExceptionHandler<? super T> handler) {
+        final LongAdder counter = exceptions.computeIfAbsent(type.getSimpleName(), key -> new LongAdder());
+        return (e, req, res) -> {
+            handler.handle(e, req, res);
+            counter.increment();
+            recordFailed(req, res);
+        };
+    }
+
+    private static void recordFailed(Request req, Response res) {
+        final Object inFlight = req.raw().getAttribute(IN_FLIGHT_ATTRIBUTE);
+        if (inFlight instanceof InFlight) {
+            req.raw().removeAttribute(IN_FLIGHT_ATTRIBUTE);
+            final InFlight request = (InFlight) inFlight;
+            request.metrics.record(res.raw().getStatus(), System.nanoTime() - request.start);
+        }
+    }
+
+    @Override
+    public void collect(PrometheusWriter writer) {
+        writer.family("http_requests_total", "counter", "Requests by route and response status");
+        for (RouteMetrics route : routes.values()) {
+            for (int status : route.getStatuses()) {
+                writer.sample("http_requests_total", route.getCount(status),
+                        "method", route.getMethod(), "route", route.getRoute(), "status", String.valueOf(status));
+            }
+        }
+
+        writer.family("http_request_duration_seconds", "summary", "Request latency by route since start");
+        for (RouteMetrics route : routes.values()) {
+            final Histogram histogram = route.snapshot();
+            for (double quantile : QUANTILES) {
+                writer.sample("http_request_duration_seconds",
+                        histogram.getValueAtPercentile(quantile * 100) / NANOS_PER_SECOND,
+                        "method", route.getMethod(), "route", route.getRoute(), "quantile", String.valueOf(quantile));
+            }
+            writer.sample("http_request_duration_seconds_sum", route.getDurationNanos() / NANOS_PER_SECOND,
+                    "method", route.getMethod(), "route", route.getRoute());
+            writer.sample("http_request_duration_seconds_count", histogram.getTotalCount(),
+                    "method", route.getMethod(), "route", route.getRoute());
+        }
+
+        writer.family("http_exceptions_total", "counter", "Requests failed with an exception, by exception handler");
+        for (Map.Entry<String, LongAdder> exception : exceptions.entrySet()) {
+            writer.sample("http_exceptions_total", exception.getValue().sum(), "exception", exception.getKey());
+        }
+    }
+
+    private static final class InFlight {
+        private final RouteMetrics metrics;
+        private final long start;
+
+        private InFlight(RouteMetrics metrics, long start) {
+            this.metrics = metrics;
+            this.start = start;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.bank.rest.util.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request counts by status and latency histogram of one route.
+ * <p>
+ * Recording is lock-free: latencies go to an HdrHistogram {@link Recorder}, whose interval histograms are
+ * merged into the cumulative one only when metrics are read.
+ */
+public class RouteMetrics {
+
+    private static final int MAX_STATUS = 600;
+
+    private final String method;
+    private final String route;
+    private final Recorder recorder = new Recorder(3);
+    private final LongAdder durationNanos = new LongAdder();
+    private final AtomicReferenceArray<LongAdder> statusCounts = new AtomicReferenceArray<>(MAX_STATUS);
+
+    // guarded by this
+    private final Histogram total = new Histogram(3);
+    private Histogram interval;
+
+    public RouteMetrics(String method, String route) {
+        this.method = method;
+        this.route = route;
+    }
+
+    /**
+     * @param status        HTTP status of the response
+     * @param durationNanos time spent handling the request
+     */
+    public void record(int status, long durationNanos) {
+        final long nanos = Math.max(durationNanos, 0);
+        recorder.recordValue(nanos);
+        this.durationNanos.add(nanos);
+        statusCounter(status).increment();
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    /**
+     * @return latencies in nanoseconds recorded since creation
+     */
+    public synchronized Histogram snapshot() {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+        return total.copy();
+    }
+
+    /**
+     * @return sum of all recorded latencies
+     */
+    public long getDurationNanos() {
+        return durationNanos.sum();
+    }
+
+    /**
+     * @param status HTTP status
+     * @return number of requests answered with the status
+     */
+    public long getCount(int status) {
+        final LongAdder counter = statusCounts.get(index(status));
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * @return statuses with at least one request, ascending
+     */
+    public int[] getStatuses() {
+        int count = 0;
+        for (int i = 0; i < MAX_STATUS; i++) {
+            if (statusCounts.get(i) != null) {
+                count++;
+            }
+        }
+        final int[] statuses = new int[count];
+        for (int i = 0, j = 0; i < MAX_STATUS && j < count; i++) {
+            if (statusCounts.get(i) != null) {
+                statuses[j++] = i;
+            }
+        }
+        return statuses;
+    }
+
+    private LongAdder statusCounter(int status) {
+        final int index = index(status);
+        LongAdder counter = statusCounts.get(index);
+        if (counter == null) {
+            statusCounts.compareAndSet(index, null, new LongAdder());
+            counter = statusCounts.get(index);
+        }
+        return counter;
+    }
+
+    // Out of range statuses are counted as 0
+    private static int index(int status) {
+        return status > 0 && status < MAX_STATUS ? status : 0;
+    }
+}
@@ -0,0 +1,147 @@
+package com.bank.rest.util.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListener;
+import org.jooq.ExecuteListenerProvider;
+import org.jooq.impl.DefaultExecuteListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Times every statement executed by jOOQ, grouped by statement shape, and logs slow ones.
+ * <p>
+ * The shape is the rendered SQL with bind placeholders, where IN lists of any length count as one shape.
+ * Slow statements go to the "slow-query" logger with their placeholders, bind values are not logged.
+ */
+public class SqlMetrics implements ExecuteListenerProvider, MetricsCollector {
+
+    private static final Logger SLOW_QUERY_LOG = LoggerFactory.getLogger("slow-query");
+
+    private static final int MAX_STATEMENTS = 256;
+    private static final String OTHER_STATEMENTS = "other";
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin \\(\\?(?:, \\?)*\\)");
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long slowQueryThresholdNanos;
+    private final Map<String, StatementMetrics> statements = new ConcurrentHashMap<>();
+
+    /**
+     * @param slowQueryThresholdMillis statements taking longer are logged, negative disables the log
+     */
+    public SqlMetrics(long slowQueryThresholdMillis) {
+        this.slowQueryThresholdNanos = slowQueryThresholdMillis < 0 ? Long.MAX_VALUE
+                : TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMillis);
+    }
+
+    /**
+     * jOOQ asks for a listener per execution, so the listener can keep its state in plain fields
+     */
+    @Override
+    public ExecuteListener provide() {
+        return new TimingListener();
+    }
+
+    /**
+     * @param sql executed SQL
+     * @return metrics of the statement shape
+     */
+    public StatementMetrics statement(String sql) {
+        StatementMetrics metrics = statements.get(sql);
+        if (metrics == null) {
+            final String shape = shapeOf(sql);
+            metrics = statements.get(shape);
+            if (metrics == null) {
+                metrics = statements.size() < MAX_STATEMENTS
+                        ? statements.computeIfAbsent(shape, StatementMetrics::new)
+                        : statements.computeIfAbsent(OTHER_STATEMENTS, StatementMetrics::new);
+            }
+        }
+        return metrics;
+    }
+
+    static String shapeOf(String sql) {
+        return sql.indexOf('?') < 0 ? sql : IN_LIST.matcher(sql).replaceAll("in (?...)");
+    }
+
+    @Override
+    public void collect(PrometheusWriter writer) {
+        writer.family("bank_sql_duration_seconds", "summary", "Statement latency by statement shape since start");
+        for (StatementMetrics statement : statements.values()) {
+            final Histogram histogram = statement.snapshot();
+            for (double quantile : QUANTILES) {
+                writer.sample("bank_sql_duration_seconds", histogram.getValueAtPercentile(quantile * 100) / NANOS_PER_SECOND,
+                        "statement", statement.getSql(), "quantile", String.valueOf(quantile));
+            }
+            writer.sample("bank_sql_duration_seconds_sum", statement.getDurationNanos() / NANOS_PER_SECOND,
+                    "statement", statement.getSql());
+            writer.sample("bank_sql_duration_seconds_count", histogram.getTotalCount(), "statement", statement.getSql());
+        }
+
+        writer.family("bank_sql_rows_total", "counter", "Rows affected or fetched by statement shape");
+        for (StatementMetrics statement : statements.values()) {
+            writer.sample("bank_sql_rows_total", statement.getRows(), "statement", statement.getSql());
+        }
+
+        writer.family("bank_sql_errors_total", "counter", "Failed executions by statement shape");
+        for (StatementMetrics statement : statements.values()) {
+            writer.sample("bank_sql_errors_total", statement.getErrors(), "statement", statement.getSql());
+        }
+    }
+
+    private class TimingListener extends DefaultExecuteListener {
+        private long start;
+        private long fetchedRows;
+
+        @Override
+        public void start(ExecuteContext ctx) {
+            start = System.nanoTime();
+        }
+
+        @Override
+        public void recordEnd(ExecuteContext ctx) {
+            fetchedRows++;
+        }
+
+        @Override
+        public void end(ExecuteContext ctx) {
+            final long duration = System.nanoTime() - start;
+            final String sql = sqlOf(ctx);
+            if (sql == null) {
+                return;
+            }
+            final long rows = rowsOf(ctx);
+            statement(sql).record(duration, rows, ctx.exception() != null);
+
+            if (duration > slowQueryThresholdNanos) {
+                SLOW_QUERY_LOG.warn("{} ms, {} rows: {}", TimeUnit.NANOSECONDS.toMillis(duration), rows, sql);
+            }
+        }
+
+        private String sqlOf(ExecuteContext ctx) {
+            if (ctx.sql() != null) {
+                return ctx.sql();
+            }
+            final String[] batchSql = ctx.batchSQL();
+            return batchSql.length > 0 ? batchSql[0] : null;
+        }
+
+        private long rowsOf(ExecuteContext ctx) {
+            final int[] batchRows = ctx.batchRows();
+            if (batchRows.length > 0) {
+                long rows = 0;
+                for (int batchRow : batchRows) {
+                    rows += Math.max(batchRow, 0);
+                }
+                return rows;
+            }
+            return ctx.rows() >= 0 ? ctx.rows() : fetchedRows;
+        }
+    }
+}
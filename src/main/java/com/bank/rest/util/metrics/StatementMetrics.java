@@ -0,0 +1,66 @@
+package com.bank.rest.util.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executions, row counts and latency histogram of one SQL statement shape
+ */
+public class StatementMetrics {
+
+    private final String sql;
+    private final Recorder recorder = new Recorder(3);
+    private final LongAdder durationNanos = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    // guarded by this
+    private final Histogram total = new Histogram(3);
+    private Histogram interval;
+
+    public StatementMetrics(String sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * @param durationNanos time from execution start until the result is fetched or the cursor is closed
+     * @param rows          rows affected or fetched
+     * @param failed        whether the execution ended with an exception
+     */
+    public void record(long durationNanos, long rows, boolean failed) {
+        final long nanos = Math.max(durationNanos, 0);
+        recorder.recordValue(nanos);
+        this.durationNanos.add(nanos);
+        this.rows.add(rows);
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return latencies in nanoseconds recorded since creation
+     */
+    public synchronized Histogram snapshot() {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+        return total.copy();
+    }
+
+    public long getDurationNanos() {
+        return durationNanos.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+}
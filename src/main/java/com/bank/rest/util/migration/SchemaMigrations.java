@@ -0,0 +1,209 @@
+package com.bank.rest.util.migration;
+
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned schema changes, applied once per database in version order.
+ * <p>
+ * Migrations are classpath scripts named {@code V<version>__<description>.sql} in one directory, which is also what
+ * the jOOQ code generator reads. Applied versions are recorded in PUBLIC.schema_history with a checksum of the script,
+ * so an applied script that has been edited since stops the start instead of leaving the schema behind the code.
+ * H2 commits DDL statements on its own, so a failing script is not rolled back and the database has to be fixed by hand.
+ */
+public class SchemaMigrations {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaMigrations.class);
+
+    public static final String DEFAULT_LOCATION = "db/migration";
+
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private static final Table<Record> HISTORY = DSL.table(DSL.name("PUBLIC", "SCHEMA_HISTORY"));
+    private static final Field<Integer> VERSION = DSL.field(DSL.name("VERSION"), SQLDataType.INTEGER.nullable(false));
+    private static final Field<String> DESCRIPTION = DSL.field(DSL.name("DESCRIPTION"), SQLDataType.VARCHAR(200).nullable(false));
+    private static final Field<Long> CHECKSUM = DSL.field(DSL.name("CHECKSUM"), SQLDataType.BIGINT.nullable(false));
+    private static final Field<Timestamp> INSTALLED_AT = DSL.field(DSL.name("INSTALLED_AT"), SQLDataType.TIMESTAMP.nullable(false));
+    private static final Field<Long> EXECUTION_MS = DSL.field(DSL.name("EXECUTION_MS"), SQLDataType.BIGINT.nullable(false));
+
+    private final DSLContext ctx;
+    private final String location;
+
+    public SchemaMigrations(DSLContext ctx) {
+        this(ctx, DEFAULT_LOCATION);
+    }
+
+    /**
+     * @param location classpath directory of the migration scripts
+     */
+    public SchemaMigrations(DSLContext ctx, String location) {
+        this.ctx = ctx;
+        this.location = location;
+    }
+
+    /**
+     * @return highest applied version, 0 for a new database
+     */
+    public int getCurrentVersion() {
+        createHistory();
+        final Integer version = ctx.select(DSL.max(VERSION)).from(HISTORY).fetchOne().value1();
+        return version == null ? 0 : version;
+    }
+
+    /**
+     * Checks the applied migrations and applies the pending ones, or throws IllegalStateException
+     * if an applied script has changed or is missing
+     *
+     * @return number of migrations applied now
+     */
+    public int migrate() {
+        createHistory();
+        final Map<Integer, Long> applied = ctx.select(VERSION, CHECKSUM).from(HISTORY).fetchMap(VERSION, CHECKSUM);
+        final List<Migration> migrations = findMigrations();
+
+        int count = 0;
+        for (Migration migration : migrations) {
+            final Long checksum = applied.remove(migration.version);
+            if (checksum != null) {
+                if (checksum != migration.checksum) {
+                    throw new IllegalStateException("Migration " + migration.script + " has changed since it was applied");
+                }
+                continue;
+            }
+            final long started = System.nanoTime();
+            ctx.execute("RUNSCRIPT FROM 'classpath:" + location + "/" + migration.script + "'");
+            final long executionMillis = (System.nanoTime() - started) / 1_000_000;
+            ctx.insertInto(HISTORY, VERSION, DESCRIPTION, CHECKSUM, INSTALLED_AT, EXECUTION_MS)
+                    .values(migration.version, migration.description, migration.checksum,
+                            new Timestamp(System.currentTimeMillis()), executionMillis)
+                    .execute();
+            LOG.info("Applied migration {} in {} ms", migration.script, executionMillis);
+            count++;
+        }
+        if (!applied.isEmpty()) {
+            throw new IllegalStateException("Database has migrations " + applied.keySet() + " that are no longer known");
+        }
+        return count;
+    }
+
+    private void createHistory() {
+        ctx.createTableIfNotExists(HISTORY)
+                .columns(VERSION, DESCRIPTION, CHECKSUM, INSTALLED_AT, EXECUTION_MS)
+                .constraints(DSL.constraint("PK_SCHEMA_HISTORY").primaryKey(VERSION))
+                .execute();
+    }
+
+    private List<Migration> findMigrations() {
+        final List<Migration> migrations = new ArrayList<>();
+        for (String name : listScripts()) {
+            final Matcher matcher = SCRIPT_NAME.matcher(name);
+            if (matcher.matches()) {
+                migrations.add(new Migration(name, Integer.parseInt(matcher.group(1)),
+                        matcher.group(2).replace('_', ' '), checksum(name)));
+            }
+        }
+        migrations.sort(Comparator.comparingInt(migration -> migration.version));
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).version == migrations.get(i - 1).version) {
+                throw new IllegalStateException("Migrations " + migrations.get(i - 1).script + " and "
+                        + migrations.get(i).script + " have the same version");
+            }
+        }
+        return migrations;
+    }
+
+    /**
+     * Lists the directory from the file system when running from classes, or from the jar when running from the jar
+     */
+    private List<String> listScripts() {
+        final URL url = SchemaMigrations.class.getClassLoader().getResource(location);
+        if (url == null) {
+            throw new IllegalStateException("No migrations found in classpath:" + location);
+        }
+        final List<String> names = new ArrayList<>();
+        try {
+            if ("jar".equals(url.getProtocol())) {
+                final JarURLConnection connection = (JarURLConnection) url.openConnection();
+                connection.setUseCaches(false);
+                try (JarFile jar = connection.getJarFile()) {
+                    final String prefix = location + "/";
+                    for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements(); ) {
+                        final String entry = entries.nextElement().getName();
+                        if (entry.startsWith(prefix) && entry.indexOf('/', prefix.length()) < 0) {
+                            names.add(entry.substring(prefix.length()));
+                        }
+                    }
+                }
+            } else {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(url.toURI()))) {
+                    for (Path file : files) {
+                        names.add(file.getFileName().toString());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list migrations in classpath:" + location, e);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Could not list migrations in classpath:" + location, e);
+        }
+        return names;
+    }
+
+    private long checksum(String script) {
+        try (InputStream in = SchemaMigrations.class.getClassLoader().getResourceAsStream(location + "/" + script)) {
+            final ByteArrayOutputStream content = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                content.write(buffer, 0, read);
+            }
+            final CRC32 crc = new CRC32();
+            crc.update(content.toByteArray());
+            return crc.getValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read migration " + script, e);
+        }
+    }
+
+    private static final class Migration {
+        private final String script;
+        private final int version;
+        private final String description;
+        private final long checksum;
+
+        private Migration(String script, int version, String description, long checksum) {
+            this.script = script;
+            this.version = version;
+            this.description = description;
+            this.checksum = checksum;
+        }
+    }
+}
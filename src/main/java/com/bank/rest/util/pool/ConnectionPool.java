@@ -0,0 +1,103 @@
+package com.bank.rest.util.pool;
+
+import org.jooq.ConnectionProvider;
+import org.jooq.exception.DataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JDBC connection pool handing out connections to jOOQ.
+ * <p>
+ * Connections are borrowed through {@link #getConnectionProvider()}, which counts borrows and the time spent
+ * waiting for them, whatever the pool implementation.
+ */
+public abstract class ConnectionPool implements AutoCloseable {
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder waitTimeNanos = new LongAdder();
+    private final ConnectionProvider connectionProvider = new MeteredConnectionProvider();
+
+    /**
+     * Creates the pool implementation selected by the config
+     *
+     * @param config pool config
+     * @return started pool
+     */
+    public static ConnectionPool create(ConnectionPoolConfig config) {
+        switch (config.getType()) {
+            case DBCP:
+                return new DbcpConnectionPool(config);
+            case HIKARI:
+            default:
+                return new HikariConnectionPool(config);
+        }
+    }
+
+    public abstract DataSource getDataSource();
+
+    public ConnectionProvider getConnectionProvider() {
+        return connectionProvider;
+    }
+
+    /**
+     * @return number of connections currently borrowed
+     */
+    public abstract int getActiveConnections();
+
+    /**
+     * @return number of open connections waiting in the pool
+     */
+    public abstract int getIdleConnections();
+
+    public abstract int getMaximumSize();
+
+    /**
+     * @return number of connections borrowed so far
+     */
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    /**
+     * @return total time callers spent obtaining connections, including waiting for a free one
+     */
+    public long getWaitTimeNanos() {
+        return waitTimeNanos.sum();
+    }
+
+    public long getWaitTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(getWaitTimeNanos());
+    }
+
+    @Override
+    public abstract void close();
+
+    private class MeteredConnectionProvider implements ConnectionProvider {
+
+        @Override
+        public Connection acquire() {
+            final long start = System.nanoTime();
+            try {
+                return getDataSource().getConnection();
+            } catch (SQLException e) {
+                throw new DataAccessException("Error getting connection from pool", e);
+            } finally {
+                waitTimeNanos.add(System.nanoTime() - start);
+                acquisitions.increment();
+            }
+        }
+
+        @Override
+        public void release(Connection connection) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                throw new DataAccessException("Error closing connection " + connection, e);
+            }
+        }
+    }
+}
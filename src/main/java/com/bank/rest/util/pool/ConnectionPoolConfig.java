@@ -0,0 +1,182 @@
+package com.bank.rest.util.pool;
+
+import java.util.Properties;
+
+/**
+ * Connection and sizing settings of a {@link ConnectionPool}
+ */
+public class ConnectionPoolConfig {
+
+    /**
+     * Pool implementation
+     */
+    public enum Type {
+        /**
+         * HikariCP, lock-free borrowing of connections
+         */
+        HIKARI,
+        /**
+         * commons-dbcp 1.4, every borrow and return synchronizes on the whole pool
+         */
+        DBCP
+    }
+
+    private Type type = Type.HIKARI;
+    private String driverClassName;
+    private String url;
+    private String username;
+    private String password;
+    private int maximumSize = 16;
+    private int minimumIdle = 4;
+    private long connectionTimeoutMillis = 30_000;
+    private long idleTimeoutMillis = 600_000;
+    private long maxLifetimeMillis = 1_800_000;
+    private int statementCacheSize = 64;
+
+    /**
+     * Reads the db.* properties, missing db.pool.* properties keep their defaults
+     *
+     * @param properties application properties
+     * @return pool config
+     */
+    public static ConnectionPoolConfig fromProperties(Properties properties) {
+        final ConnectionPoolConfig config = new ConnectionPoolConfig()
+                .withDriverClassName(properties.getProperty("db.driver"))
+                .withUrl(properties.getProperty("db.url"))
+                .withUsername(properties.getProperty("db.username"))
+                .withPassword(properties.getProperty("db.password"));
+        if (properties.getProperty("db.pool.type") != null) {
+            config.withType(Type.valueOf(properties.getProperty("db.pool.type").toUpperCase()));
+        }
+        if (properties.getProperty("db.pool.maximum-size") != null) {
+            config.withMaximumSize(Integer.parseInt(properties.getProperty("db.pool.maximum-size")));
+        }
+        if (properties.getProperty("db.pool.minimum-idle") != null) {
+            config.withMinimumIdle(Integer.parseInt(properties.getProperty("db.pool.minimum-idle")));
+        }
+        if (properties.getProperty("db.pool.connection-timeout-ms") != null) {
+            config.withConnectionTimeoutMillis(Long.parseLong(properties.getProperty("db.pool.connection-timeout-ms")));
+        }
+        if (properties.getProperty("db.pool.idle-timeout-ms") != null) {
+            config.withIdleTimeoutMillis(Long.parseLong(properties.getProperty("db.pool.idle-timeout-ms")));
+        }
+        if (properties.getProperty("db.pool.max-lifetime-ms") != null) {
+            config.withMaxLifetimeMillis(Long.parseLong(properties.getProperty("db.pool.max-lifetime-ms")));
+        }
+        if (properties.getProperty("db.pool.statement-cache-size") != null) {
+            config.withStatementCacheSize(Integer.parseInt(properties.getProperty("db.pool.statement-cache-size")));
+        }
+        return config;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public ConnectionPoolConfig withType(Type type) {
+        this.type = type;
+        return this;
+    }
+
+    public String getDriverClassName() {
+        return driverClassName;
+    }
+
+    public ConnectionPoolConfig withDriverClassName(String driverClassName) {
+        this.driverClassName = driverClassName;
+        return this;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public ConnectionPoolConfig withUrl(String url) {
+        this.url = url;
+        return this;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public ConnectionPoolConfig withUsername(String username) {
+        this.username = username;
+        return this;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public ConnectionPoolConfig withPassword(String password) {
+        this.password = password;
+        return this;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public ConnectionPoolConfig withMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    public int getMinimumIdle() {
+        return minimumIdle;
+    }
+
+    public ConnectionPoolConfig withMinimumIdle(int minimumIdle) {
+        this.minimumIdle = minimumIdle;
+        return this;
+    }
+
+    /**
+     * @return how long a caller waits for a free connection before failing
+     */
+    public long getConnectionTimeoutMillis() {
+        return connectionTimeoutMillis;
+    }
+
+    public ConnectionPoolConfig withConnectionTimeoutMillis(long connectionTimeoutMillis) {
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * @return how long a connection above the minimum idle count may stay unused before it is closed
+     */
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public ConnectionPoolConfig withIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * @return how long a connection is used before it is replaced, not supported by {@link Type#DBCP}
+     */
+    public long getMaxLifetimeMillis() {
+        return maxLifetimeMillis;
+    }
+
+    public ConnectionPoolConfig withMaxLifetimeMillis(long maxLifetimeMillis) {
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        return this;
+    }
+
+    /**
+     * @return number of prepared statements cached per connection, 0 disables the cache
+     */
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public ConnectionPoolConfig withStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+        return this;
+    }
+}
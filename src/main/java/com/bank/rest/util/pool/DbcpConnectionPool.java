@@ -0,0 +1,62 @@
+package com.bank.rest.util.pool;
+
+import org.apache.commons.dbcp.BasicDataSource;
+import org.jooq.exception.DataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * commons-dbcp 1.4 pool, kept for comparison. Connections aren't retired by age, max lifetime is ignored.
+ */
+public class DbcpConnectionPool extends ConnectionPool {
+
+    private final BasicDataSource dataSource;
+
+    public DbcpConnectionPool(ConnectionPoolConfig config) {
+        dataSource = new BasicDataSource();
+        dataSource.setDriverClassName(config.getDriverClassName());
+        dataSource.setUrl(config.getUrl());
+        dataSource.setUsername(config.getUsername());
+        dataSource.setPassword(config.getPassword());
+        dataSource.setMaxActive(config.getMaximumSize());
+        dataSource.setMaxIdle(config.getMaximumSize());
+        dataSource.setMinIdle(config.getMinimumIdle());
+        dataSource.setMaxWait(config.getConnectionTimeoutMillis());
+        dataSource.setMinEvictableIdleTimeMillis(config.getIdleTimeoutMillis());
+        dataSource.setTimeBetweenEvictionRunsMillis(config.getIdleTimeoutMillis());
+        if (config.getStatementCacheSize() > 0) {
+            dataSource.setPoolPreparedStatements(true);
+            dataSource.setMaxOpenPreparedStatements(config.getStatementCacheSize());
+        }
+    }
+
+    @Override
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return dataSource.getNumActive();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        return dataSource.getNumIdle();
+    }
+
+    @Override
+    public int getMaximumSize() {
+        return dataSource.getMaxActive();
+    }
+
+    @Override
+    public void close() {
+        try {
+            dataSource.close();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error closing connection pool", e);
+        }
+    }
+}
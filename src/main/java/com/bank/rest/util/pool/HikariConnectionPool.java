@@ -0,0 +1,58 @@
+package com.bank.rest.util.pool;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * HikariCP pool. Hikari doesn't cache statements itself, so for H2 the statement cache size
+ * is passed to the driver as its per-connection query cache.
+ */
+public class HikariConnectionPool extends ConnectionPool {
+
+    private final HikariDataSource dataSource;
+
+    public HikariConnectionPool(ConnectionPoolConfig config) {
+        final HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setPoolName("bank");
+        hikariConfig.setDriverClassName(config.getDriverClassName());
+        hikariConfig.setJdbcUrl(config.getUrl());
+        hikariConfig.setUsername(config.getUsername());
+        hikariConfig.setPassword(config.getPassword());
+        hikariConfig.setMaximumPoolSize(config.getMaximumSize());
+        hikariConfig.setMinimumIdle(config.getMinimumIdle());
+        hikariConfig.setConnectionTimeout(config.getConnectionTimeoutMillis());
+        hikariConfig.setIdleTimeout(config.getIdleTimeoutMillis());
+        hikariConfig.setMaxLifetime(config.getMaxLifetimeMillis());
+        if (config.getStatementCacheSize() > 0 && config.getUrl().startsWith("jdbc:h2:")) {
+            hikariConfig.addDataSourceProperty("QUERY_CACHE_SIZE", config.getStatementCacheSize());
+        }
+        dataSource = new HikariDataSource(hikariConfig);
+    }
+
+    @Override
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return dataSource.getHikariPoolMXBean().getActiveConnections();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        return dataSource.getHikariPoolMXBean().getIdleConnections();
+    }
+
+    @Override
+    public int getMaximumSize() {
+        return dataSource.getMaximumPoolSize();
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+}
@@ -0,0 +1,59 @@
+package com.bank.rest.util.server;
+
+import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+/**
+ * Creates the thread pool of the embedded Jetty server
+ */
+public final class ServerThreads {
+
+    private ServerThreads() {
+    }
+
+    /**
+     * Creates the pool selected by the config, Jetty starts and stops it with the server
+     *
+     * @param config thread config
+     * @return thread pool, not started
+     */
+    public static ThreadPool create(ServerThreadsConfig config) {
+        final QueuedThreadPool pool;
+        switch (config.getMode()) {
+            case VIRTUAL:
+                pool = new VirtualThreadPool(config.getMaxThreads(), config.getMinThreads(), config.getIdleTimeoutMillis(),
+                        "http-virtual-");
+                break;
+            case POOLED:
+            default:
+                pool = new QueuedThreadPool(config.getMaxThreads(), config.getMinThreads(), config.getIdleTimeoutMillis(),
+                        config.getQueueCapacity() < 0 ? null
+                                : new BlockingArrayQueue<>(config.getMinThreads(), config.getMinThreads(), config.getQueueCapacity()));
+                break;
+        }
+        pool.setName("http");
+        return pool;
+    }
+
+    /**
+     * @return tasks waiting for a free thread, 0 if the pool doesn't queue them
+     */
+    public static int getQueueSize(ThreadPool pool) {
+        return pool instanceof QueuedThreadPool ? ((QueuedThreadPool) pool).getQueueSize() : 0;
+    }
+
+    /**
+     * @return virtual threads currently running a request, 0 if the pool doesn't start any
+     */
+    public static int getVirtualThreads(ThreadPool pool) {
+        return pool instanceof VirtualThreadPool ? ((VirtualThreadPool) pool).getVirtualThreads() : 0;
+    }
+
+    /**
+     * @return tasks started on a virtual thread so far, 0 if the pool doesn't start any
+     */
+    public static long getVirtualTasks(ThreadPool pool) {
+        return pool instanceof VirtualThreadPool ? ((VirtualThreadPool) pool).getVirtualTasks() : 0;
+    }
+}
@@ -0,0 +1,113 @@
+package com.bank.rest.util.server;
+
+import java.util.Properties;
+
+/**
+ * Threads the embedded Jetty server runs requests on, created by {@link ServerThreads#create}
+ */
+public class ServerThreadsConfig {
+
+    /**
+     * How requests are executed
+     */
+    public enum Mode {
+        /**
+         * Bounded pool of platform threads, a request waits in the queue while all threads are blocked
+         */
+        POOLED,
+        /**
+         * A new virtual thread per request, a request blocked on JDBC or a lock only holds its stack, not an OS thread.
+         * The pooled threads only run Jetty's acceptors, selectors and internal tasks.
+         */
+        VIRTUAL
+    }
+
+    private Mode mode = Mode.POOLED;
+    private int minThreads = 8;
+    private int maxThreads = 200;
+    private int idleTimeoutMillis = 60_000;
+    private int queueCapacity = -1;
+
+    /**
+     * Reads the spark.threads.* properties, missing properties keep their defaults
+     *
+     * @param properties application properties
+     * @return thread config
+     */
+    public static ServerThreadsConfig fromProperties(Properties properties) {
+        final ServerThreadsConfig config = new ServerThreadsConfig();
+        if (properties.getProperty("spark.threads.mode") != null) {
+            config.withMode(Mode.valueOf(properties.getProperty("spark.threads.mode").toUpperCase()));
+        }
+        if (properties.getProperty("spark.threads.min") != null) {
+            config.withMinThreads(Integer.parseInt(properties.getProperty("spark.threads.min")));
+        }
+        if (properties.getProperty("spark.threads.max") != null) {
+            config.withMaxThreads(Integer.parseInt(properties.getProperty("spark.threads.max")));
+        }
+        if (properties.getProperty("spark.threads.idle-timeout-ms") != null) {
+            config.withIdleTimeoutMillis(Integer.parseInt(properties.getProperty("spark.threads.idle-timeout-ms")));
+        }
+        if (properties.getProperty("spark.threads.queue-capacity") != null) {
+            config.withQueueCapacity(Integer.parseInt(properties.getProperty("spark.threads.queue-capacity")));
+        }
+        return config;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public ServerThreadsConfig withMode(Mode mode) {
+        this.mode = mode;
+        return this;
+    }
+
+    /**
+     * @return platform threads kept alive when idle
+     */
+    public int getMinThreads() {
+        return minThreads;
+    }
+
+    public ServerThreadsConfig withMinThreads(int minThreads) {
+        this.minThreads = minThreads;
+        return this;
+    }
+
+    /**
+     * @return platform threads running at most, Jetty's acceptors and selectors included
+     */
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    public ServerThreadsConfig withMaxThreads(int maxThreads) {
+        this.maxThreads = maxThreads;
+        return this;
+    }
+
+    /**
+     * @return how long a platform thread above the minimum may stay idle before it ends
+     */
+    public int getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public ServerThreadsConfig withIdleTimeoutMillis(int idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * @return tasks waiting for a free thread at most, -1 for no bound, ignored by {@link Mode#VIRTUAL}
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public ServerThreadsConfig withQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+}
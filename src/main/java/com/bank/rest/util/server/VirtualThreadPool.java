@@ -0,0 +1,87 @@
+package com.bank.rest.util.server;
+
+import org.eclipse.jetty.util.thread.Invocable;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Jetty thread pool running request handling on a new virtual thread per task.
+ * <p>
+ * Jetty's acceptors, selectors and other internal tasks stay on the pooled platform threads, so accepting and reading
+ * connections never waits for a carrier thread. Tasks Jetty declares as blocking, i.e. reading a connection and
+ * handling its requests, get a virtual thread, with no queue and no upper bound: a request blocked on a JDBC connection
+ * or a lock parks its virtual thread and frees the carrier, so the connection pool and the account locks bound
+ * the concurrency instead. Code blocking inside a synchronized block pins its carrier thread, so a few such requests
+ * at a time can still stall all of them, e.g. in the synchronized borrowing of commons-dbcp.
+ */
+public class VirtualThreadPool extends QueuedThreadPool {
+
+    private final String virtualNamePrefix;
+    private final AtomicInteger virtualThreads = new AtomicInteger();
+    private final LongAdder virtualTasks = new LongAdder();
+    private volatile ExecutorService virtualExecutor;
+
+    /**
+     * @param maxThreads        platform threads at most, for Jetty's acceptors, selectors and internal tasks
+     * @param minThreads        platform threads kept alive when idle
+     * @param idleTimeoutMillis how long a platform thread above the minimum may stay idle
+     * @param virtualNamePrefix virtual thread names are the prefix followed by a counter
+     */
+    public VirtualThreadPool(int maxThreads, int minThreads, int idleTimeoutMillis, String virtualNamePrefix) {
+        super(maxThreads, minThreads, idleTimeoutMillis);
+        this.virtualNamePrefix = virtualNamePrefix;
+        // A reserved thread would run the request on the selector's platform thread, none makes Jetty dispatch every request
+        setReservedThreads(0);
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        virtualExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(virtualNamePrefix, 0).factory());
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        super.doStop();
+        virtualExecutor.shutdown();
+        if (!virtualExecutor.awaitTermination(getStopTimeout(), TimeUnit.MILLISECONDS)) {
+            virtualExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!(task instanceof Invocable) || Invocable.getInvocationType(task) != Invocable.InvocationType.BLOCKING) {
+            super.execute(task);
+            return;
+        }
+        virtualTasks.increment();
+        virtualExecutor.execute(() -> {
+            virtualThreads.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                virtualThreads.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * @return virtual threads currently running a task
+     */
+    public int getVirtualThreads() {
+        return virtualThreads.get();
+    }
+
+    /**
+     * @return tasks started on a virtual thread so far
+     */
+    public long getVirtualTasks() {
+        return virtualTasks.sum();
+    }
+}
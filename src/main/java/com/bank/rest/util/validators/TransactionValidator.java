@@ -1,14 +1,13 @@
 package com.bank.rest.util.validators;
 
+import com.bank.rest.model.Money;
 import com.bank.rest.model.TransactionModel;
 import com.bank.rest.util.exception.BadRequestFormatException;
 import com.bank.rest.util.exception.ValidationNotEnouhMoneyException;
 
-import java.math.BigDecimal;
-
 public class TransactionValidator {
-    public void validateSourceRecord(BigDecimal balance, BigDecimal amount) {
-        if (balance == null || amount == null || balance.compareTo(amount) < 0) {
+    public void validateSourceRecord(Money balance, Money amount) {
+        if (balance == null || amount == null || balance.isLessThan(amount)) {
             throw new ValidationNotEnouhMoneyException("Not enough money on source account.");
         }
     }
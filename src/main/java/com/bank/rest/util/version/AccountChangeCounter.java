@@ -0,0 +1,36 @@
+package com.bank.rest.util.version;
+
+import com.bank.rest.model.TransactionModel;
+import com.bank.rest.repository.TransferListener;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-JVM count of committed account changes, used as the version of the account list.
+ * <p>
+ * It is increased after each change is committed, so a count read before the accounts never belongs to newer data
+ * than it was read with. The count only covers changes made through this instance and starts at zero on every start.
+ */
+public class AccountChangeCounter implements TransferListener {
+
+    private final LongAdder changes = new LongAdder();
+
+    /**
+     * Called after an account has been created, updated or deleted
+     */
+    public void increment() {
+        changes.increment();
+    }
+
+    @Override
+    public void onTransferCommitted(TransactionModel transaction) {
+        changes.increment();
+    }
+
+    /**
+     * @return number of changes so far, never decreasing
+     */
+    public long get() {
+        return changes.sum();
+    }
+}
@@ -0,0 +1,52 @@
+CREATE SCHEMA IF NOT EXISTS BANK_SCHEMA;
+SET SCHEMA BANK_SCHEMA;
+
+CREATE TABLE account
+(
+    id      INT AUTO_INCREMENT PRIMARY KEY,
+    email   VARCHAR(100)         NOT NULL,
+    balance DECIMAL(19, 4)       NOT NULL,
+    active  BOOLEAN DEFAULT TRUE NOT NULL,
+    -- Increased by every change of the row, ETags of GET /accounts/{id} are derived from it
+    version BIGINT  DEFAULT 0    NOT NULL,
+
+    CONSTRAINT uq_email UNIQUE (email)
+);
+
+CREATE TABLE transaction
+(
+    id               INT AUTO_INCREMENT PRIMARY KEY,
+    source           INT            NOT NULL,
+    target           INT            NOT NULL,
+    amount           DECIMAL(19, 4) NOT NULL,
+    transaction_time TIMESTAMP      NOT NULL
+);
+
+-- Created before the foreign keys, so H2 uses them for the constraints instead of adding single-column indexes
+CREATE INDEX idx_transaction_source_time ON transaction (source, transaction_time);
+CREATE INDEX idx_transaction_target_time ON transaction (target, transaction_time);
+
+ALTER TABLE transaction
+    ADD CONSTRAINT fk_ac_source FOREIGN KEY (source) REFERENCES account (id);
+ALTER TABLE transaction
+    ADD CONSTRAINT fk_ac_target FOREIGN KEY (target) REFERENCES account (id);
+
+-- Written by the in-memory ledger (storage.engine=ledger): the last ledger sequence applied to the tables above.
+-- No row means the database is new and the ledger has to be seeded from it
+CREATE TABLE ledger_state
+(
+    id               INT PRIMARY KEY,
+    applied_sequence BIGINT NOT NULL
+);
+
+-- Idempotency-Key header values of POST /transactions: the transfer a key was first used for
+-- and when it was completed, null while the transfer is in progress
+CREATE TABLE idempotency_key
+(
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    request         VARCHAR(100) NOT NULL,
+    created_at      TIMESTAMP    NOT NULL,
+    completed_at    TIMESTAMP
+);
+
+CREATE INDEX idx_idempotency_key_created_at ON idempotency_key (created_at);
@@ -0,0 +1,21 @@
+SET SCHEMA BANK_SCHEMA;
+
+-- Account history pages are read in id order after an id cursor, which (source, transaction_time) can't serve
+-- without reading and sorting the account's whole history. transaction_time is kept in the new indexes,
+-- so the from/to window is checked on the index entries as well.
+-- The foreign keys are dropped first, H2 doesn't drop an index that backs a constraint
+ALTER TABLE transaction
+    DROP CONSTRAINT fk_ac_source;
+ALTER TABLE transaction
+    DROP CONSTRAINT fk_ac_target;
+
+DROP INDEX idx_transaction_source_time;
+DROP INDEX idx_transaction_target_time;
+
+CREATE INDEX idx_transaction_source_id ON transaction (source, id, transaction_time);
+CREATE INDEX idx_transaction_target_id ON transaction (target, id, transaction_time);
+
+ALTER TABLE transaction
+    ADD CONSTRAINT fk_ac_source FOREIGN KEY (source) REFERENCES account (id);
+ALTER TABLE transaction
+    ADD CONSTRAINT fk_ac_target FOREIGN KEY (target) REFERENCES account (id);
@@ -0,0 +1,10 @@
+-- Sample data of a new database, see db.seed-script
+SET SCHEMA BANK_SCHEMA;
+
+INSERT INTO account (id, email, balance, active)
+VALUES (1, 'john@john.com', 10.10, true),
+       (2, 'tom@tom.com', 20.20, true),
+       (3, 'matt@matt.com', 30.30, true);
+
+INSERT INTO transaction
+VALUES (1, 1, 3, 10, CURRENT_TIMESTAMP());
@@ -0,0 +1,60 @@
+package com.bank.rest.controller;
+
+import com.bank.rest.Application;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.List;
+
+import static io.restassured.RestAssured.get;
+import static io.restassured.RestAssured.given;
+import static java.net.HttpURLConnection.HTTP_CREATED;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Restarts the application on a file database, which keeps its data and is not migrated or seeded again
+ */
+public class FileDatabaseTest {
+
+    private static final String URI_ACCOUNTS = "http://localhost:9090/api/v1/accounts";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void useFileDatabase() {
+        System.setProperty("db.url", "jdbc:h2:file:" + folder.getRoot().toPath().resolve("bank"));
+    }
+
+    @After
+    public void restoreDatabase() {
+        Application.stop();
+        System.clearProperty("db.url");
+    }
+
+    @Test
+    public void testDataSurvivesRestart() {
+        Application.start();
+        given()
+                .body("{\"balance\":555.55,\"email\":\"eric@eric.com\"}")
+                .when()
+                .post(URI_ACCOUNTS)
+                .then()
+                .assertThat()
+                .statusCode(HTTP_CREATED);
+        Application.stop();
+
+        Application.start();
+        final List<String> emails = get(URI_ACCOUNTS).then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .extract()
+                .jsonPath().getList("email");
+        assertEquals(4, emails.size());
+        assertEquals("eric@eric.com", emails.get(3));
+    }
+}
@@ -0,0 +1,27 @@
+package com.bank.rest.controller;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Runs the API tests against the in-memory ledger engine
+ */
+public class LedgerRestControllerTest extends RestControllerTest {
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void useLedger() {
+        System.setProperty("storage.engine", "ledger");
+        System.setProperty("ledger.directory", folder.getRoot().getPath());
+    }
+
+    @AfterClass
+    public static void restoreEngine() {
+        System.clearProperty("storage.engine");
+        System.clearProperty("ledger.directory");
+    }
+}
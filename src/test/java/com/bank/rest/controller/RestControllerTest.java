@@ -2,23 +2,38 @@ package com.bank.rest.controller;
 
 import com.bank.rest.Application;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.restassured.RestAssured;
+import io.restassured.config.DecoderConfig;
+import io.restassured.path.json.JsonPath;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import static io.restassured.RestAssured.get;
 import static io.restassured.RestAssured.given;
 import static java.net.HttpURLConnection.*;
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.startsWith;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class RestControllerTest {
 
 
     private static final String URI_BASE = "http://localhost:9090/api/v1";
+    private static final String URI_METRICS = "http://localhost:9090/metrics";
     private static final String URI_ACCOUNTS = "/accounts";
     private static final String URI_TRANSACTIONS = "/transactions";
     private static final ObjectMapper mapper = new ObjectMapper();
@@ -77,6 +92,95 @@ public class RestControllerTest {
                 .body(equalTo("Invalid ID parameter. Must be integer"));
     }
 
+    @Test
+    public void testGetAccountByIdNotModified() {
+        final String tag = get(URI_BASE + URI_ACCOUNTS + "/1").then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .extract()
+                .header("ETag");
+        final String untouchedTag = get(URI_BASE + URI_ACCOUNTS + "/3").header("ETag");
+
+        given()
+                .header("If-None-Match", tag)
+                .when()
+                .get(URI_BASE + URI_ACCOUNTS + "/1")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_NOT_MODIFIED)
+                .header("ETag", equalTo(tag))
+                .body(equalTo(""));
+
+        given()
+                .body("{\"source\":1, \"target\":2, \"amount\":2.22}")
+                .when()
+                .post(URI_BASE + URI_TRANSACTIONS)
+                .then()
+                .assertThat()
+                .statusCode(HTTP_CREATED);
+
+        given()
+                .header("If-None-Match", tag)
+                .when()
+                .get(URI_BASE + URI_ACCOUNTS + "/1")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .header("ETag", not(equalTo(tag)))
+                .body("balance", equalTo(7.88f));
+        given()
+                .header("If-None-Match", untouchedTag)
+                .when()
+                .get(URI_BASE + URI_ACCOUNTS + "/3")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_NOT_MODIFIED);
+    }
+
+    @Test
+    public void testGetAllAccountsNotModified() {
+        final String tag = get(URI_BASE + URI_ACCOUNTS).then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .extract()
+                .header("ETag");
+
+        given()
+                .header("If-None-Match", "\"other\", " + tag)
+                .when()
+                .get(URI_BASE + URI_ACCOUNTS)
+                .then()
+                .assertThat()
+                .statusCode(HTTP_NOT_MODIFIED)
+                .body(equalTo(""));
+        given()
+                .header("If-None-Match", tag)
+                .header("Accept", "application/cbor")
+                .when()
+                .get(URI_BASE + URI_ACCOUNTS)
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK);
+
+        given()
+                .body("{\"balance\":11.11,\"email\":\"john@john.com\"}")
+                .when()
+                .put(URI_BASE + URI_ACCOUNTS + "/1")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK);
+
+        given()
+                .header("If-None-Match", tag)
+                .when()
+                .get(URI_BASE + URI_ACCOUNTS)
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .header("ETag", not(equalTo(tag)))
+                .body("[0].balance", equalTo(11.11f));
+    }
+
     @Test
     public void testPostNewAccount() {
         final List<Map<String, Object>> accounts = get(URI_BASE + URI_ACCOUNTS).then()
@@ -105,6 +209,46 @@ public class RestControllerTest {
         assertEquals(555.55f, insertedAccount.get("balance"));
     }
 
+    @Test
+    public void testImportAccounts() {
+        final String body = "{\"email\":\"a@a.com\", \"balance\":1.5}\n"
+                + "\n"
+                + "{\"email\":\"john@john.com\", \"balance\":1}\n"
+                + "{\"email\":\"b@b.com\", \"balance\":2}\n"
+                + "{\"email\":\"a@a.com\", \"balance\":3}\n"
+                + "{\"email\":\"c@c.com\"\n"
+                + "{\"email\":\"d@d.com\"}\n"
+                + "{\"email\":\"e@e.com\", \"balance\":0.00001}\n"
+                + "{\"email\":\"" + String.join("", Collections.nCopies(95, "f")) + "@f.com\", \"balance\":4}";
+
+        final JsonPath result = given()
+                .body(body)
+                .when()
+                .post(URI_BASE + URI_ACCOUNTS + "/import")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .extract()
+                .jsonPath();
+        assertEquals(2, result.getInt("imported"));
+        assertEquals(6, result.getInt("failed"));
+        assertEquals(Arrays.asList(3, 5, 6, 7, 8, 9), result.getList("failures.line"));
+        assertEquals("Email is already taken", result.getString("failures[0].message"));
+        assertEquals("Email is already taken", result.getString("failures[1].message"));
+        assertEquals("Account must have email and balance", result.getString("failures[3].message"));
+        assertEquals("Email cannot be longer than 100 characters", result.getString("failures[5].message"));
+
+        final List<Map<String, Object>> accounts = get(URI_BASE + URI_ACCOUNTS).then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .extract()
+                .jsonPath().getList("$");
+        assertEquals(5, accounts.size());
+        assertEquals("a@a.com", accounts.get(3).get("email"));
+        assertEquals(1.5f, accounts.get(3).get("balance"));
+        assertEquals("b@b.com", accounts.get(4).get("email"));
+    }
+
     @Test
     public void testPostNewAccountInvalidJson() {
         final List<Map<String, Object>> accounts = get(URI_BASE + URI_ACCOUNTS).then()
@@ -235,6 +379,145 @@ public class RestControllerTest {
         assertEquals(2.22f, transaction.get("amount"));
     }
 
+    @Test
+    public void testPostNewTransactionRetriedWithIdempotencyKey() {
+        for (int i = 0; i < 2; i++) {
+            given()
+                    .header("Idempotency-Key", "3f2b7c1e-transfer")
+                    .body("{\"source\":1, \"target\":2, \"amount\":2.22}")
+                    .when()
+                    .post(URI_BASE + URI_TRANSACTIONS)
+                    .then()
+                    .assertThat()
+                    .statusCode(HTTP_CREATED)
+                    .header("Idempotent-Replayed", i == 0 ? nullValue() : equalTo("true"));
+        }
+
+        get(URI_BASE + URI_ACCOUNTS + "/1")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .body("balance", equalTo(7.88f));
+
+        final List<Map<String, Object>> transactions = get(URI_BASE + URI_TRANSACTIONS).then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .extract()
+                .jsonPath().getList("$");
+        assertEquals(2, transactions.size());
+    }
+
+    @Test
+    public void testPostNewTransactionWithIdempotencyKeyAndNoAmount() {
+        given()
+                .header("Idempotency-Key", "3f2b7c1e-transfer")
+                .body("{\"source\":1, \"target\":2}")
+                .when()
+                .post(URI_BASE + URI_TRANSACTIONS)
+                .then()
+                .assertThat()
+                .statusCode(HTTP_BAD_REQUEST)
+                .body(equalTo("Bad request"));
+    }
+
+    @Test
+    public void testPostNewTransactionIdempotencyKeyReusedForDifferentTransfer() {
+        given()
+                .header("Idempotency-Key", "3f2b7c1e-transfer")
+                .body("{\"source\":1, \"target\":2, \"amount\":2.22}")
+                .when()
+                .post(URI_BASE + URI_TRANSACTIONS)
+                .then()
+                .assertThat()
+                .statusCode(HTTP_CREATED);
+
+        given()
+                .header("Idempotency-Key", "3f2b7c1e-transfer")
+                .body("{\"source\":1, \"target\":2, \"amount\":3.33}")
+                .when()
+                .post(URI_BASE + URI_TRANSACTIONS)
+                .then()
+                .assertThat()
+                .statusCode(HTTP_BAD_REQUEST)
+                .body(equalTo("Idempotency-Key has already been used for a different transfer"));
+
+        get(URI_BASE + URI_ACCOUNTS + "/1")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .body("balance", equalTo(7.88f));
+    }
+
+    @Test
+    public void testPostNewTransactionWithIdempotencyKeyRetriedAfterFailure() {
+        given()
+                .header("Idempotency-Key", "3f2b7c1e-transfer")
+                .body("{\"source\":1, \"target\":2, \"amount\":100}")
+                .when()
+                .post(URI_BASE + URI_TRANSACTIONS)
+                .then()
+                .assertThat()
+                .statusCode(HTTP_BAD_REQUEST);
+
+        given()
+                .header("Idempotency-Key", "3f2b7c1e-transfer")
+                .body("{\"source\":1, \"target\":2, \"amount\":100}")
+                .when()
+                .post(URI_BASE + URI_TRANSACTIONS)
+                .then()
+                .assertThat()
+                .statusCode(HTTP_BAD_REQUEST);
+    }
+
+    @Test
+    public void testGetAllAccountsAsCbor() throws Exception {
+        final byte[] body = given()
+                .header("Accept", "application/cbor")
+                .when()
+                .get(URI_BASE + URI_ACCOUNTS)
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .contentType("application/cbor")
+                .extract()
+                .asByteArray();
+
+        final List<?> accounts = new ObjectMapper(new CBORFactory()).readValue(body, List.class);
+        assertEquals(3, accounts.size());
+        assertEquals("matt@matt.com", ((Map<?, ?>) accounts.get(2)).get("email"));
+    }
+
+    @Test
+    public void testPostNewTransactionAsSmile() throws Exception {
+        final Map<String, Object> transaction = new HashMap<>();
+        transaction.put("source", 1);
+        transaction.put("target", 2);
+        transaction.put("amount", new BigDecimal("2.22"));
+
+        given()
+                .contentType("application/x-jackson-smile")
+                .body(new ObjectMapper(new SmileFactory()).writeValueAsBytes(transaction))
+                .when()
+                .post(URI_BASE + URI_TRANSACTIONS)
+                .then()
+                .assertThat()
+                .statusCode(HTTP_CREATED);
+
+        final byte[] body = given()
+                .header("Accept", "application/x-jackson-smile")
+                .when()
+                .get(URI_BASE + URI_ACCOUNTS + "/1")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .contentType("application/x-jackson-smile")
+                .extract()
+                .asByteArray();
+        final Map<?, ?> account = new ObjectMapper(new SmileFactory()).readValue(body, Map.class);
+        assertEquals(1, account.get("id"));
+        assertEquals("7.8800", account.get("balance").toString());
+    }
+
     @Test
     public void testPostNewTransactionSameSourceTargetAccount() {
         final List<Map<String, Object>> accounts = get(URI_BASE + URI_ACCOUNTS).then()
@@ -276,6 +559,15 @@ public class RestControllerTest {
                 .statusCode(HTTP_BAD_REQUEST)
                 .body(equalTo("Source account ID cannot be equal to target account ID"));
 
+        given()
+                .body("{\"source\":2, \"target\":1, \"amount\":0.00001}")
+                .when()
+                .post(URI_BASE + URI_TRANSACTIONS)
+                .then()
+                .assertThat()
+                .statusCode(HTTP_BAD_REQUEST)
+                .body(startsWith("Invalid amount"));
+
         final List<Map<String, Object>> accountsAfterInsert = get(URI_BASE + URI_ACCOUNTS).then()
                 .assertThat()
                 .statusCode(HTTP_OK)
@@ -441,4 +733,313 @@ public class RestControllerTest {
                 .jsonPath().getList("$");
         assertEquals(1, transactionsAfter.size());
     }
+
+    @Test
+    public void testPostTransactionBatchBestEffort() {
+        final List<Map<String, Object>> results = given()
+                .body("[{\"source\":1, \"target\":2, \"amount\":10}," +
+                        "{\"source\":2, \"target\":3, \"amount\":1000}," +
+                        "{\"source\":2, \"target\":1, \"amount\":30.2}]")
+                .when()
+                .post(URI_BASE + URI_TRANSACTIONS + "/batch?mode=best_effort")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .extract()
+                .jsonPath().getList("$");
+        assertEquals(3, results.size());
+        assertEquals("COMPLETED", results.get(0).get("status"));
+        assertEquals("REJECTED", results.get(1).get("status"));
+        assertEquals("Not enough money on source account.", results.get(1).get("message"));
+        assertEquals("COMPLETED", results.get(2).get("status"));
+
+        get(URI_BASE + URI_ACCOUNTS + "/1")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .body("balance", equalTo(30.3f));
+
+        get(URI_BASE + URI_ACCOUNTS + "/2")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .body("balance", equalTo(0f));
+
+        final List<Map<String, Object>> transactionsAfter = get(URI_BASE + URI_TRANSACTIONS).then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .extract()
+                .jsonPath().getList("$");
+        assertEquals(3, transactionsAfter.size());
+    }
+
+    @Test
+    public void testPostTransactionBatchAllOrNothing() {
+        final List<Map<String, Object>> results = given()
+                .body("[{\"source\":1, \"target\":2, \"amount\":10}," +
+                        "{\"source\":2, \"target\":333, \"amount\":1}]")
+                .when()
+                .post(URI_BASE + URI_TRANSACTIONS + "/batch")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .extract()
+                .jsonPath().getList("$");
+        assertEquals(2, results.size());
+        assertEquals("ROLLED_BACK", results.get(0).get("status"));
+        assertEquals("REJECTED", results.get(1).get("status"));
+        assertEquals("Account ID not found", results.get(1).get("message"));
+
+        get(URI_BASE + URI_ACCOUNTS + "/1")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .body("balance", equalTo(10.1f));
+
+        final List<Map<String, Object>> transactionsAfter = get(URI_BASE + URI_TRANSACTIONS).then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .extract()
+                .jsonPath().getList("$");
+        assertEquals(1, transactionsAfter.size());
+    }
+
+    @Test
+    public void testGetTransactionsPage() {
+        for (int i = 0; i < 2; i++) {
+            given()
+                    .body("{\"source\":3, \"target\":1, \"amount\":1}")
+                    .when()
+                    .post(URI_BASE + URI_TRANSACTIONS)
+                    .then()
+                    .assertThat()
+                    .statusCode(HTTP_CREATED);
+        }
+
+        get(URI_BASE + URI_TRANSACTIONS + "?limit=2")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .body("items.id", equalTo(Arrays.asList(1, 2)))
+                .body("nextAfterId", equalTo(2));
+
+        get(URI_BASE + URI_TRANSACTIONS + "?after_id=2&limit=2")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .body("items.id", equalTo(Collections.singletonList(3)))
+                .body("nextAfterId", equalTo(null));
+
+        get(URI_BASE + URI_TRANSACTIONS + "?after_id=abc")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_BAD_REQUEST)
+                .body(equalTo("Invalid after_id parameter. Must be integer"));
+    }
+
+    @Test
+    public void testGetTransactionsSinceId() {
+        for (int i = 0; i < 2; i++) {
+            given()
+                    .body("{\"source\":3, \"target\":2, \"amount\":1}")
+                    .when()
+                    .post(URI_BASE + URI_TRANSACTIONS)
+                    .then()
+                    .assertThat()
+                    .statusCode(HTTP_CREATED);
+        }
+
+        final List<Integer> ids = get(URI_BASE + URI_TRANSACTIONS + "?since_id=1").then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .extract()
+                .jsonPath().getList("id");
+        assertEquals(Arrays.asList(2, 3), ids);
+
+        get(URI_BASE + URI_TRANSACTIONS + "?since_id=3")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .body(equalTo("[]"));
+
+        get(URI_BASE + URI_TRANSACTIONS + "?since_id=-1")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_BAD_REQUEST)
+                .body(equalTo("Invalid since_id parameter. Must not be negative"));
+    }
+
+    @Test
+    public void testGetTransactionsStream() {
+        given()
+                .body("{\"source\":1, \"target\":2, \"amount\":2.22}")
+                .when()
+                .post(URI_BASE + URI_TRANSACTIONS)
+                .then()
+                .assertThat()
+                .statusCode(HTTP_CREATED);
+
+        final List<Map<String, Object>> transactions = get(URI_BASE + URI_TRANSACTIONS + "?stream=true").then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .contentType("application/json")
+                .extract()
+                .jsonPath().getList("$");
+        assertEquals(2, transactions.size());
+        final Map<String, Object> transaction = transactions.get(1);
+        assertEquals(2, transaction.get("id"));
+        assertEquals(1, transaction.get("source"));
+        assertEquals(2, transaction.get("target"));
+        assertEquals(2.22f, transaction.get("amount"));
+    }
+
+    @Test
+    public void testExportTransactionsAsNdjson() throws Exception {
+        given()
+                .body("{\"source\":1, \"target\":2, \"amount\":2.22}")
+                .when()
+                .post(URI_BASE + URI_TRANSACTIONS)
+                .then()
+                .assertThat()
+                .statusCode(HTTP_CREATED);
+
+        final String body = given()
+                .header("Accept", "application/x-ndjson")
+                .when()
+                .get(URI_BASE + URI_TRANSACTIONS + "/export")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .contentType("application/x-ndjson")
+                .header("Content-Encoding", "gzip")
+                .extract()
+                .asString();
+        final String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        final Map<?, ?> transaction = mapper.readValue(lines[1], Map.class);
+        assertEquals(2, transaction.get("id"));
+        assertEquals(1, transaction.get("source"));
+        assertEquals(2, transaction.get("target"));
+        assertEquals(2.22, transaction.get("amount"));
+    }
+
+    @Test
+    public void testExportTransactionsAsCsv() {
+        given()
+                .body("{\"source\":1, \"target\":2, \"amount\":2.22}")
+                .when()
+                .post(URI_BASE + URI_TRANSACTIONS)
+                .then()
+                .assertThat()
+                .statusCode(HTTP_CREATED);
+
+        final String body = given()
+                .config(RestAssured.config().decoderConfig(DecoderConfig.decoderConfig().noContentDecoders()))
+                .header("Accept", "text/csv")
+                .when()
+                .get(URI_BASE + URI_TRANSACTIONS + "/export")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .contentType(startsWith("text/csv"))
+                .header("Content-Encoding", nullValue())
+                .extract()
+                .asString();
+        final String[] lines = body.split("\r\n");
+        assertEquals(3, lines.length);
+        assertEquals("id,source,target,amount,transaction_time", lines[0]);
+        assertTrue(lines[2].startsWith("2,1,2,2.2200,"));
+    }
+
+    @Test
+    public void testExportTransactionsNotAcceptable() {
+        given()
+                .header("Accept", "application/xml")
+                .when()
+                .get(URI_BASE + URI_TRANSACTIONS + "/export")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_NOT_ACCEPTABLE);
+    }
+
+    @Test
+    public void testGetAccountTransactions() {
+        given()
+                .body("{\"source\":2, \"target\":3, \"amount\":1}")
+                .when()
+                .post(URI_BASE + URI_TRANSACTIONS)
+                .then()
+                .assertThat()
+                .statusCode(HTTP_CREATED);
+        given()
+                .body("{\"source\":1, \"target\":2, \"amount\":1}")
+                .when()
+                .post(URI_BASE + URI_TRANSACTIONS)
+                .then()
+                .assertThat()
+                .statusCode(HTTP_CREATED);
+
+        get(URI_BASE + URI_ACCOUNTS + "/3/transactions")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .body("items.id", equalTo(Arrays.asList(1, 2)))
+                .body("nextAfterId", equalTo(null));
+
+        get(URI_BASE + URI_ACCOUNTS + "/2/transactions?limit=1")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .body("items.id", equalTo(Collections.singletonList(2)))
+                .body("nextAfterId", equalTo(2));
+
+        get(URI_BASE + URI_ACCOUNTS + "/2/transactions?after_id=2")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .body("items.id", equalTo(Collections.singletonList(3)));
+
+        get(URI_BASE + URI_ACCOUNTS + "/2/transactions?to=2000-01-01T00:00:00")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .body("items", equalTo(Collections.emptyList()));
+
+        get(URI_BASE + URI_ACCOUNTS + "/333/transactions")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_NOT_FOUND)
+                .body(equalTo("Account ID not found"));
+
+        given()
+                .when()
+                .delete(URI_BASE + URI_ACCOUNTS + "/3")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK);
+        get(URI_BASE + URI_ACCOUNTS + "/3/transactions?after_id=2")
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .body("items", equalTo(Collections.emptyList()));
+    }
+
+    @Test
+    public void testGetMetrics() {
+        get(URI_BASE + URI_ACCOUNTS + "/1").then().assertThat().statusCode(HTTP_OK);
+        get(URI_BASE + URI_ACCOUNTS + "/333").then().assertThat().statusCode(HTTP_NOT_FOUND);
+
+        get(URI_METRICS)
+                .then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .contentType(containsString("text/plain"))
+                .body(containsString("http_requests_total{method=\"GET\",route=\"/api/v1/accounts/:id\",status=\"200\"} 1\n"))
+                .body(containsString("http_requests_total{method=\"GET\",route=\"/api/v1/accounts/:id\",status=\"404\"} 1\n"))
+                .body(containsString("http_request_duration_seconds_count{method=\"GET\",route=\"/api/v1/accounts/:id\"} 2\n"))
+                .body(containsString("http_exceptions_total{exception=\"ResourceNotFoundException\"} 1\n"))
+                .body(containsString("bank_db_pool_max_connections 16\n"))
+                .body(containsString("bank_account_lock_acquisitions_total "))
+                .body(containsString("bank_sql_rows_total{statement=\"select "));
+    }
 }
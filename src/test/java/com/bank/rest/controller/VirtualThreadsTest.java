@@ -0,0 +1,62 @@
+package com.bank.rest.controller;
+
+import com.bank.rest.Application;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static io.restassured.RestAssured.get;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs the application with requests on virtual threads
+ */
+public class VirtualThreadsTest {
+
+    private static final String URI_ACCOUNT = "http://localhost:9090/api/v1/accounts/1";
+    private static final String URI_METRICS = "http://localhost:9090/metrics";
+
+    @Before
+    public void useVirtualThreads() {
+        System.setProperty("spark.threads.mode", "virtual");
+        Application.start();
+    }
+
+    @After
+    public void restoreThreads() {
+        Application.stop();
+        System.clearProperty("spark.threads.mode");
+    }
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        final ExecutorService clients = Executors.newFixedThreadPool(32);
+        try {
+            final List<Callable<Integer>> requests = new ArrayList<>();
+            for (int i = 0; i < 256; i++) {
+                requests.add(() -> get(URI_ACCOUNT).statusCode());
+            }
+            for (Future<Integer> status : clients.invokeAll(requests)) {
+                assertEquals(HTTP_OK, (int) status.get());
+            }
+        } finally {
+            clients.shutdown();
+        }
+
+        get(URI_METRICS).then()
+                .assertThat()
+                .statusCode(HTTP_OK)
+                .body(containsString("bank_http_virtual_threads"))
+                .body(not(containsString("bank_http_virtual_tasks_total 0")));
+    }
+}
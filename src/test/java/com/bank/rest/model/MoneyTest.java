@@ -0,0 +1,48 @@
+package com.bank.rest.model;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MoneyTest {
+
+    @Test
+    public void testConvertsFromAndToBigDecimal() {
+        assertEquals(101_000, Money.of(new BigDecimal("10.10")).getUnits());
+        assertEquals(Money.of(new BigDecimal("10.1")), Money.of(new BigDecimal("10.1000")));
+        assertEquals(new BigDecimal("10.1000"), Money.ofUnits(101_000).toBigDecimal());
+        assertEquals(Money.ofUnits(-5), Money.of(new BigDecimal("-0.0005")));
+        assertEquals(Money.of(new BigDecimal("3")), Money.of(3));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testRejectsMoreDecimalPlaces() {
+        Money.of(new BigDecimal("0.00001"));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testRejectsAmountsOutOfRange() {
+        Money.of(new BigDecimal("1000000000000000"));
+    }
+
+    @Test
+    public void testArithmetic() {
+        final Money balance = Money.of(new BigDecimal("10.10"));
+        final Money amount = Money.of(new BigDecimal("2.22"));
+
+        assertEquals(Money.of(new BigDecimal("7.88")), balance.minus(amount));
+        assertEquals(Money.of(new BigDecimal("12.32")), balance.plus(amount));
+        assertEquals(-1, amount.negate().signum());
+        assertTrue(amount.isLessThan(balance));
+        assertTrue(balance.compareTo(amount) > 0);
+        assertEquals("7.8800", balance.minus(amount).toString());
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testOverflowIsNotSilent() {
+        Money.ofUnits(Long.MAX_VALUE).plus(Money.ofUnits(1));
+    }
+}
@@ -0,0 +1,185 @@
+package com.bank.rest.repository.impl;
+
+import com.bank.rest.jooq.bank_schema.tables.records.AccountRecord;
+import com.bank.rest.model.AccountModel;
+import com.bank.rest.model.Money;
+import com.bank.rest.model.TransactionModel;
+import com.bank.rest.repository.AccountRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CachingAccountRepositoryTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private StubAccountRepository delegate;
+    private CachingAccountRepository repository;
+
+    @Before
+    public void setUp() {
+        delegate = new StubAccountRepository();
+        delegate.put(1, "10.00");
+        delegate.put(2, "20.00");
+        delegate.put(3, "30.00");
+        repository = new CachingAccountRepository(delegate, 2, Duration.ofSeconds(60), nanos::get);
+    }
+
+    @Test
+    public void testFindByIdIsCached() {
+        assertEquals(money("10.00"), repository.findById(1).getBalance());
+        assertEquals(money("10.00"), repository.findById(1).getBalance());
+
+        assertEquals(1, delegate.lookups);
+        assertEquals(1, repository.getHitCount());
+        assertEquals(1, repository.getMissCount());
+    }
+
+    @Test
+    public void testUnknownAccountIsNotCached() {
+        assertNull(repository.findById(42));
+        delegate.put(42, "1.00");
+
+        assertEquals(money("1.00"), repository.findById(42).getBalance());
+    }
+
+    @Test
+    public void testReturnedModelDoesNotChangeCache() {
+        repository.findById(1).setBalance(Money.ZERO);
+
+        assertEquals(money("10.00"), repository.findById(1).getBalance());
+    }
+
+    @Test
+    public void testUpdateInvalidates() {
+        repository.findById(1);
+        final AccountModel account = delegate.findById(1);
+        account.setBalance(money("11.00"));
+        repository.update(account);
+
+        assertEquals(money("11.00"), repository.findById(1).getBalance());
+    }
+
+    @Test
+    public void testDeleteInvalidates() {
+        repository.findById(1);
+        repository.delete(1);
+
+        assertNull(repository.findById(1));
+    }
+
+    @Test
+    public void testCommittedTransferInvalidatesBothAccounts() {
+        repository.findById(1);
+        repository.findById(2);
+        delegate.put(1, "9.00");
+        delegate.put(2, "21.00");
+
+        final TransactionModel transaction = new TransactionModel();
+        transaction.setSource(1);
+        transaction.setTarget(2);
+        transaction.setAmount(Money.of(1));
+        repository.onTransferCommitted(transaction);
+
+        assertEquals(money("9.00"), repository.findById(1).getBalance());
+        assertEquals(money("21.00"), repository.findById(2).getBalance());
+    }
+
+    @Test
+    public void testEntriesExpire() {
+        repository.findById(1);
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        repository.findById(1);
+
+        assertEquals(2, delegate.lookups);
+        assertEquals(1, repository.getEvictionCount());
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        for (int round = 0; round < 3; round++) {
+            repository.findById(1);
+            repository.findById(2);
+            repository.findById(3);
+        }
+
+        assertEquals(2, repository.getSize());
+        assertEquals(repository.getMissCount() - repository.getSize(), repository.getEvictionCount());
+    }
+
+    private static Money money(String amount) {
+        return Money.of(new BigDecimal(amount));
+    }
+
+    private static class StubAccountRepository implements AccountRepository {
+        private final Map<Integer, AccountModel> accounts = new HashMap<>();
+        private int lookups;
+
+        void put(int id, String balance) {
+            final AccountModel account = new AccountModel();
+            account.setId(id);
+            account.setEmail(id + "@bank.com");
+            account.setBalance(money(balance));
+            accounts.put(id, account);
+        }
+
+        @Override
+        public List<AccountModel> findAll() {
+            return new ArrayList<>(accounts.values());
+        }
+
+        @Override
+        public void create(AccountModel account) {
+            accounts.put(account.getId(), account);
+        }
+
+        @Override
+        public List<String> createBatch(List<AccountModel> batch) {
+            final List<String> failures = new ArrayList<>();
+            for (AccountModel account : batch) {
+                create(account);
+                failures.add(null);
+            }
+            return failures;
+        }
+
+        @Override
+        public AccountModel findById(int id) {
+            lookups++;
+            final AccountModel account = accounts.get(id);
+            if (account == null) {
+                return null;
+            }
+            final AccountModel copy = new AccountModel();
+            copy.setId(account.getId());
+            copy.setEmail(account.getEmail());
+            copy.setBalance(account.getBalance());
+            return copy;
+        }
+
+        @Override
+        public AccountRecord findRecordById(int id) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void update(AccountModel account) {
+            accounts.put(account.getId(), account);
+        }
+
+        @Override
+        public void delete(int accountId) {
+            accounts.remove(accountId);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.bank.rest.repository.impl;
+
+import com.bank.rest.model.AccountModel;
+import com.bank.rest.model.Money;
+import com.bank.rest.util.ledger.Ledger;
+import com.bank.rest.util.ledger.LedgerConfig;
+import com.bank.rest.util.migration.SchemaMigrations;
+import org.apache.commons.dbcp.BasicDataSource;
+import org.jooq.ConnectionProvider;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.conf.Settings;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DataSourceConnectionProvider;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.impl.ThreadLocalTransactionProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LedgerAccountRepositoryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private BasicDataSource dataSource;
+    private Ledger ledger;
+    private LedgerAccountRepository repository;
+
+    @Before
+    public void setUp() throws Exception {
+        dataSource = new BasicDataSource();
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setUrl("jdbc:h2:mem:ledger-accounts-" + UUID.randomUUID());
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        final ConnectionProvider cp = new DataSourceConnectionProvider(dataSource);
+        final DSLContext ctx = DSL.using(new DefaultConfiguration()
+                .set(cp)
+                .set(SQLDialect.H2)
+                .set(new ThreadLocalTransactionProvider(cp, true))
+                .set(new Settings().withExecuteLogging(false)));
+        new SchemaMigrations(ctx).migrate();
+
+        ledger = Ledger.open(new LedgerConfig()
+                .withDirectory(folder.getRoot().toPath())
+                .withMaxAccounts(100)
+                .withWriteBehindQueueCapacity(1), ctx);
+        repository = new LedgerAccountRepository(ledger);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        ledger.close();
+        dataSource.close();
+    }
+
+    @Test
+    public void testCreateBatchReportsRowsRejectedWhileWriteBehindIsFull() throws Exception {
+        final List<AccountModel> accounts = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            accounts.add(account("import" + i + "@bank.com"));
+        }
+
+        final List<String> failures;
+        try (Connection blocker = dataSource.getConnection()) {
+            // Holds the ledger_state row, so the write-behind cannot finish its batch until the rollback
+            blocker.setAutoCommit(false);
+            try (Statement statement = blocker.createStatement()) {
+                statement.executeUpdate("UPDATE BANK_SCHEMA.ledger_state SET applied_sequence = applied_sequence");
+            }
+            failures = repository.createBatch(accounts);
+            blocker.rollback();
+        }
+
+        assertEquals(accounts.size(), failures.size());
+        int created = 0;
+        while (created < failures.size() && failures.get(created) == null) {
+            created++;
+        }
+        // One entry may be taken by the blocked writer and one waits in the queue
+        assertTrue(created >= 1 && created <= 2);
+        for (int i = created; i < failures.size(); i++) {
+            assertEquals("Database is behind the ledger, try again later", failures.get(i));
+        }
+        assertEquals(created, repository.findAll().size());
+        assertNull(ledger.findAccount(created + 1));
+    }
+
+    private static AccountModel account(String email) {
+        final AccountModel account = new AccountModel();
+        account.setEmail(email);
+        account.setBalance(Money.of(1));
+        return account;
+    }
+}
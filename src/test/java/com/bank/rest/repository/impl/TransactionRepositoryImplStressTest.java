@@ -0,0 +1,234 @@
+package com.bank.rest.repository.impl;
+
+import com.bank.rest.model.Money;
+import com.bank.rest.model.TransactionModel;
+import com.bank.rest.repository.TransactionRepository;
+import com.bank.rest.util.exception.BadRequestFormatException;
+import com.bank.rest.util.exception.ResourceNotFoundException;
+import com.bank.rest.util.exception.ValidationNotEnouhMoneyException;
+import com.bank.rest.util.lock.StripedAccountLocks;
+import com.bank.rest.util.migration.SchemaMigrations;
+import com.bank.rest.util.validators.TransactionValidator;
+import org.apache.commons.dbcp.BasicDataSource;
+import org.jooq.ConnectionProvider;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.conf.Settings;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DataSourceConnectionProvider;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.impl.ThreadLocalTransactionProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.bank.rest.jooq.bank_schema.tables.Account.ACCOUNT;
+import static com.bank.rest.jooq.bank_schema.tables.Transaction.TRANSACTION;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TransactionRepositoryImplStressTest {
+
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 250;
+    private static final int HOT_ACCOUNTS = 5;
+    private static final int LOCK_STRIPES = 4;
+
+    private BasicDataSource dataSource;
+    private DSLContext ctx;
+
+    @Before
+    public void setUp() {
+        dataSource = new BasicDataSource();
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setUrl("jdbc:h2:mem:stress-" + UUID.randomUUID());
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setMaxActive(THREADS);
+
+        final ConnectionProvider cp = new DataSourceConnectionProvider(dataSource);
+        ctx = DSL.using(new DefaultConfiguration()
+                .set(cp)
+                .set(SQLDialect.H2)
+                .set(new ThreadLocalTransactionProvider(cp, true))
+                .set(new Settings().withExecuteWithOptimisticLocking(true).withExecuteLogging(false)));
+        new SchemaMigrations(ctx).migrate();
+        ctx.execute("RUNSCRIPT FROM 'classpath:db/seed.sql'");
+        ctx.execute("INSERT INTO BANK_SCHEMA.account (email, balance, active) " +
+                "SELECT CONCAT('stress', X, '@bank.com'), 100, TRUE FROM SYSTEM_RANGE(1, " + (HOT_ACCOUNTS - 3) + ")");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        dataSource.close();
+    }
+
+    @Test
+    public void testAtomicTransfersKeepTotalBalance() throws InterruptedException {
+        final StripedAccountLocks locks = new StripedAccountLocks(LOCK_STRIPES);
+        runOppositeDirectionTransfers(repository(TransactionRepositoryImpl.TransferMode.ATOMIC, locks));
+        assertTrue(locks.getAcquisitions() > 0);
+    }
+
+    @Test
+    public void testRecordTransfersKeepTotalBalance() throws InterruptedException {
+        final StripedAccountLocks locks = new StripedAccountLocks(LOCK_STRIPES);
+        runOppositeDirectionTransfers(repository(TransactionRepositoryImpl.TransferMode.RECORD, locks));
+        assertTrue(locks.getAcquisitions() > 0);
+    }
+
+    @Test
+    public void testSequencedTransfersKeepTotalBalance() throws InterruptedException {
+        try (SequencedTransactionRepository sequencer = sequenced()) {
+            runOppositeDirectionTransfers(sequencer);
+            assertEquals(THREADS * TRANSFERS_PER_THREAD, sequencer.getTransfers());
+            assertTrue(sequencer.getBatches() < sequencer.getTransfers());
+        }
+    }
+
+    @Test
+    public void testSequencedTransferRejectionsKeepTheirExceptions() throws InterruptedException {
+        try (SequencedTransactionRepository sequencer = sequenced()) {
+            try {
+                sequencer.create(transaction(1, 2, new BigDecimal("1000000")));
+                fail("Expected not enough money");
+            } catch (ValidationNotEnouhMoneyException e) {
+                // expected
+            }
+            try {
+                sequencer.create(transaction(1, 999, BigDecimal.ONE));
+                fail("Expected unknown account");
+            } catch (ResourceNotFoundException e) {
+                // expected
+            }
+            try {
+                sequencer.create(transaction(1, 1, BigDecimal.ONE));
+                fail("Expected invalid transfer");
+            } catch (BadRequestFormatException e) {
+                // expected
+            }
+            sequencer.create(transaction(1, 2, BigDecimal.ONE));
+            assertEquals(3, sequencer.getTransfers());
+        }
+    }
+
+    @Test
+    public void testBatchedTransferRejectionsKeepTheirExceptions() throws Exception {
+        // Lingers long enough for the three transfers to be applied as one batch
+        try (SequencedTransactionRepository sequencer = new SequencedTransactionRepository(
+                repository(TransactionRepositoryImpl.TransferMode.ATOMIC, new StripedAccountLocks(LOCK_STRIPES)),
+                new TransactionValidator(), 64, Duration.ofSeconds(1), THREADS)) {
+            final ExecutorService executor = Executors.newFixedThreadPool(3);
+            final Future<?> notEnoughMoney = executor.submit(() -> sequencer.create(transaction(1, 2, new BigDecimal("1000000"))));
+            final Future<?> unknownAccount = executor.submit(() -> sequencer.create(transaction(1, 999, BigDecimal.ONE)));
+            final Future<?> completed = executor.submit(() -> sequencer.create(transaction(1, 2, BigDecimal.ONE)));
+            executor.shutdown();
+
+            completed.get(1, TimeUnit.MINUTES);
+            assertTrue(failureOf(notEnoughMoney) instanceof ValidationNotEnouhMoneyException);
+            assertTrue(failureOf(unknownAccount) instanceof ResourceNotFoundException);
+            assertEquals(1, sequencer.getBatches());
+        }
+    }
+
+    @Test
+    public void testTransfersAfterCloseFail() throws InterruptedException {
+        final SequencedTransactionRepository sequencer = sequenced();
+        sequencer.close();
+        try {
+            sequencer.create(transaction(1, 2, BigDecimal.ONE));
+            fail("Expected closed sequencer");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private static Throwable failureOf(Future<?> future) throws Exception {
+        try {
+            future.get(1, TimeUnit.MINUTES);
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+    }
+
+    private TransactionRepository repository(TransactionRepositoryImpl.TransferMode mode, StripedAccountLocks locks) {
+        return new TransactionRepositoryImpl(ctx, new AccountRepositoryImpl(ctx), new TransactionValidator(), mode, locks);
+    }
+
+    private SequencedTransactionRepository sequenced() {
+        return new SequencedTransactionRepository(
+                repository(TransactionRepositoryImpl.TransferMode.ATOMIC, new StripedAccountLocks(LOCK_STRIPES)),
+                new TransactionValidator(), 64, Duration.ofMillis(1), THREADS);
+    }
+
+    private void runOppositeDirectionTransfers(TransactionRepository repository) throws InterruptedException {
+        final BigDecimal totalBefore = totalBalance();
+        final int ledgerBefore = ctx.fetchCount(TRANSACTION);
+
+        final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final int[] succeeded = new int[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    final ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        final int source = 1 + random.nextInt(HOT_ACCOUNTS);
+                        final int target = 1 + (source + random.nextInt(HOT_ACCOUNTS - 1)) % HOT_ACCOUNTS;
+                        try {
+                            repository.create(transaction(source, target, BigDecimal.valueOf(1 + random.nextInt(500), 2)));
+                            succeeded[thread]++;
+                        } catch (ValidationNotEnouhMoneyException e) {
+                            // expected once a hot account is drained
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue("Transfers did not finish in time", executor.awaitTermination(2, TimeUnit.MINUTES));
+
+        assertTrue("Unexpected transfer failures: " + failures, failures.isEmpty());
+        int totalSucceeded = 0;
+        for (int count : succeeded) {
+            totalSucceeded += count;
+        }
+
+        assertEquals(0, totalBefore.compareTo(totalBalance()));
+        assertEquals(ledgerBefore + totalSucceeded, ctx.fetchCount(TRANSACTION));
+        assertEquals(0, ctx.fetchCount(ACCOUNT, ACCOUNT.BALANCE.lt(Money.ZERO)));
+    }
+
+    private BigDecimal totalBalance() {
+        return ctx.select(DSL.sum(ACCOUNT.BALANCE.coerce(BigDecimal.class))).from(ACCOUNT).fetchOne().value1();
+    }
+
+    private static TransactionModel transaction(int source, int target, BigDecimal amount) {
+        final TransactionModel transaction = new TransactionModel();
+        transaction.setSource(source);
+        transaction.setTarget(target);
+        transaction.setAmount(Money.of(amount));
+        return transaction;
+    }
+}
@@ -0,0 +1,78 @@
+package com.bank.rest.util.batch;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BatchWriterTest {
+
+    @Test
+    public void testCloseWritesQueuedItemsInOrder() throws InterruptedException {
+        final List<Integer> written = new CopyOnWriteArrayList<>();
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        final CountDownLatch release = new CountDownLatch(1);
+        final BatchWriter<Integer> writer = new BatchWriter<>("test-writer", 100, 3, 0, 0, batch -> {
+            release.await();
+            written.addAll(batch);
+            batchSizes.add(batch.size());
+        });
+        for (int i = 0; i < 10; i++) {
+            writer.put(i);
+        }
+        release.countDown();
+        writer.close();
+
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), written);
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 3));
+        assertFalse(writer.isRunning());
+    }
+
+    @Test
+    public void testFailedHandlerDiscardsQueuedItems() throws InterruptedException {
+        final CountDownLatch failing = new CountDownLatch(1);
+        final List<Integer> discarded = new ArrayList<>();
+        final BatchWriter<Integer> writer = new BatchWriter<>("test-writer", 100, 1, 0, 0,
+                new BatchWriter.Handler<Integer>() {
+                    @Override
+                    public void write(List<Integer> batch) throws InterruptedException {
+                        failing.await();
+                        throw new IllegalStateException("Write failed");
+                    }
+
+                    @Override
+                    public void discard(List<Integer> items) {
+                        discarded.addAll(items);
+                    }
+                });
+        writer.put(1);
+        writer.put(2);
+        writer.put(3);
+        failing.countDown();
+        writer.close();
+
+        assertEquals(Arrays.asList(1, 2, 3), discarded);
+        assertFalse(writer.offer(4) && writer.isRunning());
+    }
+
+    @Test
+    public void testBatchLingersForMoreItems() throws InterruptedException {
+        final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        final BatchWriter<Integer> writer = new BatchWriter<>("test-writer", 100, 10,
+                TimeUnit.SECONDS.toNanos(1), 0, batch -> batches.add(new ArrayList<>(batch)));
+        writer.put(1);
+        Thread.sleep(50);
+        writer.put(2);
+        writer.close();
+
+        assertEquals(Arrays.asList(Arrays.asList(1, 2)), batches);
+    }
+}
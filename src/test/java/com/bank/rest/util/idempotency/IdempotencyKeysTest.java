@@ -0,0 +1,235 @@
+package com.bank.rest.util.idempotency;
+
+import com.bank.rest.model.IdempotencyKeyModel;
+import com.bank.rest.repository.IdempotencyRepository;
+import com.bank.rest.util.exception.BadRequestFormatException;
+import com.bank.rest.util.exception.IdempotencyConflictException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class IdempotencyKeysTest {
+
+    private static final Duration RETENTION = Duration.ofHours(24);
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final MutableClock clock = new MutableClock();
+    private final AtomicInteger runs = new AtomicInteger();
+    private StubIdempotencyRepository repository;
+    private IdempotencyKeys keys;
+
+    @Before
+    public void setUp() {
+        repository = new StubIdempotencyRepository();
+        keys = new IdempotencyKeys(repository, 2, RETENTION, clock, nanos::get);
+    }
+
+    @Test
+    public void testRetryIsNotRunAgain() {
+        assertTrue(keys.execute("key", "1:2:100", runs::incrementAndGet));
+        assertFalse(keys.execute("key", "1:2:100", runs::incrementAndGet));
+
+        assertEquals(1, runs.get());
+        assertEquals(1, keys.getPerformed());
+        assertEquals(1, keys.getReplayed());
+        assertNotNull(repository.rows.get("key").getCompletedAt());
+    }
+
+    @Test
+    public void testConcurrentRequestsWithSameKeyRunOnce() throws Exception {
+        final int threads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return keys.execute("key", "1:2:100", () -> {
+                        runs.incrementAndGet();
+                        sleep(50);
+                    });
+                }));
+            }
+            start.countDown();
+
+            int performed = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(10, TimeUnit.SECONDS)) {
+                    performed++;
+                }
+            }
+            assertEquals(1, performed);
+            assertEquals(1, runs.get());
+            assertEquals(threads - 1, keys.getReplayed());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailedActionReleasesKey() {
+        try {
+            keys.execute("key", "1:2:100", () -> {
+                throw new IllegalStateException("failed");
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("failed", e.getMessage());
+        }
+        assertNull(repository.rows.get("key"));
+
+        assertTrue(keys.execute("key", "1:2:100", runs::incrementAndGet));
+        assertEquals(1, runs.get());
+    }
+
+    @Test(expected = BadRequestFormatException.class)
+    public void testKeyUsedForDifferentRequest() {
+        keys.execute("key", "1:2:100", runs::incrementAndGet);
+        keys.execute("key", "1:2:200", runs::incrementAndGet);
+    }
+
+    @Test(expected = BadRequestFormatException.class)
+    public void testEmptyKey() {
+        keys.execute("", "1:2:100", runs::incrementAndGet);
+    }
+
+    @Test
+    public void testCompletedKeyIsReplayedFromDatabase() {
+        repository.insert("key", "1:2:100", clock.now());
+        repository.complete("key", clock.now());
+
+        assertFalse(keys.execute("key", "1:2:100", runs::incrementAndGet));
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    public void testKeyInProgressInDatabaseIsConflict() {
+        repository.insert("key", "1:2:100", clock.now());
+
+        try {
+            keys.execute("key", "1:2:100", runs::incrementAndGet);
+            fail();
+        } catch (IdempotencyConflictException e) {
+            assertEquals(1, keys.getConflicts());
+        }
+        assertEquals(0, runs.get());
+        // The row belongs to another request, so it is kept
+        assertNotNull(repository.rows.get("key"));
+    }
+
+    @Test
+    public void testExpiredKeyIsUsedAgain() {
+        keys.execute("key", "1:2:100", runs::incrementAndGet);
+        clock.advance(RETENTION.plusMinutes(1));
+        nanos.addAndGet(RETENTION.plusMinutes(1).toNanos());
+
+        assertTrue(keys.execute("key", "1:2:200", runs::incrementAndGet));
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void testEvictedKeyIsFoundInDatabase() {
+        keys.execute("key", "1:2:100", runs::incrementAndGet);
+        keys.execute("other-1", "1:2:100", runs::incrementAndGet);
+        keys.execute("other-2", "1:2:100", runs::incrementAndGet);
+        keys.execute("other-3", "1:2:100", runs::incrementAndGet);
+
+        assertFalse(keys.execute("key", "1:2:100", runs::incrementAndGet));
+        assertEquals(4, runs.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class MutableClock extends Clock {
+        private volatile Instant instant = Instant.parse("2020-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        LocalDateTime now() {
+            return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+
+    private static class StubIdempotencyRepository implements IdempotencyRepository {
+        final Map<String, IdempotencyKeyModel> rows = new ConcurrentHashMap<>();
+
+        @Override
+        public boolean insert(String key, String request, LocalDateTime createdAt) {
+            final IdempotencyKeyModel model = new IdempotencyKeyModel();
+            model.setKey(key);
+            model.setRequest(request);
+            model.setCreatedAt(createdAt);
+            return rows.putIfAbsent(key, model) == null;
+        }
+
+        @Override
+        public IdempotencyKeyModel findByKey(String key) {
+            return rows.get(key);
+        }
+
+        @Override
+        public void complete(String key, LocalDateTime completedAt) {
+            rows.get(key).setCompletedAt(completedAt);
+        }
+
+        @Override
+        public void delete(String key) {
+            rows.remove(key);
+        }
+
+        @Override
+        public int deleteCreatedBefore(LocalDateTime time) {
+            final int size = rows.size();
+            rows.values().removeIf(row -> row.getCreatedAt().isBefore(time));
+            return size - rows.size();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.bank.rest.util.journal;
+
+import com.bank.rest.model.Money;
+import com.bank.rest.model.TransactionModel;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TransferJournalTest {
+
+    private static final int SEGMENT_RECORDS = 4;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRecordsAreNumberedAcrossSegments() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        try (TransferJournal journal = new TransferJournal(directory, SEGMENT_RECORDS, 2, 10)) {
+            for (int i = 1; i <= 10; i++) {
+                journal.onTransferCommitted(transaction(i, i + 1, BigDecimal.valueOf(i, 2)));
+            }
+        }
+
+        final List<JournalRecord> records = read(directory);
+        assertEquals(10, records.size());
+        for (int i = 1; i <= 10; i++) {
+            final JournalRecord record = records.get(i - 1);
+            assertEquals(i, record.getSequence());
+            assertEquals(i, record.getSource());
+            assertEquals(i + 1, record.getTarget());
+            assertEquals(Money.of(BigDecimal.valueOf(i, 2)), record.getAmount());
+        }
+        assertEquals(3, JournalReader.segments(directory).size());
+    }
+
+    @Test
+    public void testReopenedJournalContinuesSequence() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        try (TransferJournal journal = new TransferJournal(directory, SEGMENT_RECORDS, 16, 10)) {
+            journal.onTransferCommitted(transaction(1, 2, BigDecimal.ONE));
+            journal.onTransferCommitted(transaction(2, 1, BigDecimal.ONE));
+        }
+        try (TransferJournal journal = new TransferJournal(directory, SEGMENT_RECORDS, 16, 10)) {
+            journal.onTransferCommitted(transaction(1, 3, new BigDecimal("12.3456")));
+            assertEquals(0, journal.getDropped());
+        }
+
+        final List<JournalRecord> records = read(directory);
+        assertEquals(3, records.size());
+        assertEquals(3, records.get(2).getSequence());
+        assertEquals(Money.of(new BigDecimal("12.3456")), records.get(2).getAmount());
+        assertEquals(3, JournalReader.lastSequence(directory));
+    }
+
+    @Test
+    public void testTransfersAfterCloseAreDropped() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        final TransferJournal journal = new TransferJournal(directory, SEGMENT_RECORDS, 16, 10);
+        journal.close();
+        journal.onTransferCommitted(transaction(1, 2, BigDecimal.ONE));
+
+        assertEquals(1, journal.getDropped());
+        assertEquals(0, read(directory).size());
+    }
+
+    private static List<JournalRecord> read(Path directory) throws IOException {
+        final List<JournalRecord> records = new ArrayList<>();
+        JournalReader.forEach(directory, records::add);
+        return records;
+    }
+
+    private static TransactionModel transaction(int source, int target, BigDecimal amount) {
+        final TransactionModel transaction = new TransactionModel();
+        transaction.setSource(source);
+        transaction.setTarget(target);
+        transaction.setAmount(Money.of(amount));
+        return transaction;
+    }
+}
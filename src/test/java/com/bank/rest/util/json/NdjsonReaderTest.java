@@ -0,0 +1,63 @@
+package com.bank.rest.util.json;
+
+import com.bank.rest.dto.AccountDTO;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class NdjsonReaderTest {
+
+    private final JsonCodec codec = new JsonCodec();
+
+    @Test
+    public void testReadsLinesAndSkipsBlankOnes() throws IOException {
+        final NdjsonReader<AccountDTO> reader = reader("{\"email\":\"a@a.com\"}\r\n\n  \n{\"email\":\"b@b.com\"}");
+
+        final NdjsonReader.Line<AccountDTO> first = reader.next();
+        assertEquals(1, first.getNumber());
+        assertEquals("a@a.com", first.getValue().getEmail());
+        final NdjsonReader.Line<AccountDTO> second = reader.next();
+        assertEquals(4, second.getNumber());
+        assertEquals("b@b.com", second.getValue().getEmail());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void testInvalidLineDoesNotStopReading() throws IOException {
+        final NdjsonReader<AccountDTO> reader = reader("{\"email\":\n{\"email\":\"b@b.com\"}\n");
+
+        final NdjsonReader.Line<AccountDTO> invalid = reader.next();
+        assertNull(invalid.getValue());
+        assertNotNull(invalid.getError());
+        assertEquals("b@b.com", reader.next().getValue().getEmail());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void testTooLongLineIsSkipped() throws IOException {
+        final StringBuilder input = new StringBuilder("{\"email\":\"");
+        for (int i = 0; i < NdjsonReader.MAX_LINE_LENGTH; i++) {
+            input.append('a');
+        }
+        input.append("\"}\n{\"email\":\"b@b.com\"}");
+        final NdjsonReader<AccountDTO> reader = reader(input.toString());
+
+        final NdjsonReader.Line<AccountDTO> tooLong = reader.next();
+        assertEquals(1, tooLong.getNumber());
+        assertEquals("Line is longer than " + NdjsonReader.MAX_LINE_LENGTH + " characters", tooLong.getError());
+        final NdjsonReader.Line<AccountDTO> next = reader.next();
+        assertEquals(2, next.getNumber());
+        assertEquals("b@b.com", next.getValue().getEmail());
+        assertNull(reader.next());
+    }
+
+    private NdjsonReader<AccountDTO> reader(String input) {
+        return codec.readAccountLines(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+    }
+}
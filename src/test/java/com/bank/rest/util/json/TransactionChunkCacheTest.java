@@ -0,0 +1,96 @@
+package com.bank.rest.util.json;
+
+import com.bank.rest.dto.TransactionDTO;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TransactionChunkCacheTest {
+
+    private final JsonCodec codec = new JsonCodec();
+    private final List<TransactionDTO> ledger = new ArrayList<>();
+    private int reads;
+
+    @Test
+    public void testCompleteChunksAreReused() throws IOException {
+        final TransactionChunkCache cache = new TransactionChunkCache(codec, 10, 1024 * 1024);
+        append(25);
+
+        assertEquals(ids(1, 25), read(cache, 0));
+        assertEquals(3, reads);
+        assertEquals(2, cache.getSize());
+
+        reads = 0;
+        assertEquals(ids(1, 25), read(cache, 0));
+        assertEquals(1, reads);
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void testDeltaSeesTransactionsAddedToTheLastChunk() throws IOException {
+        final TransactionChunkCache cache = new TransactionChunkCache(codec, 10, 1024 * 1024);
+        append(5);
+        assertEquals(ids(1, 5), read(cache, 0));
+
+        append(12);
+        assertEquals(ids(4, 12), read(cache, 3));
+        assertEquals(ids(11, 12), read(cache, 10));
+        assertEquals(ids(1, 12), read(cache, 0));
+        assertEquals(new ArrayList<Integer>(), read(cache, 12));
+    }
+
+    @Test
+    public void testCacheIsBoundedByEncodedSize() throws IOException {
+        final TransactionChunkCache cache = new TransactionChunkCache(codec, 10, 4 * 1024);
+        append(1000);
+
+        assertEquals(ids(1, 1000), read(cache, 0));
+        assertTrue(cache.getWeightedSize() <= 4 * 1024);
+        assertTrue(cache.getSize() < 100);
+    }
+
+    private void append(int lastId) {
+        for (int id = ledger.size() + 1; id <= lastId; id++) {
+            final TransactionDTO transaction = new TransactionDTO();
+            transaction.setId(id);
+            transaction.setSource(1);
+            transaction.setTarget(2);
+            transaction.setAmount(new BigDecimal("1.0000"));
+            transaction.setTransactionTime("2020-02-17T02:55:00.167");
+            ledger.add(transaction);
+        }
+    }
+
+    private List<Integer> read(TransactionChunkCache cache, int sinceId) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.writeArray(sinceId, out, (afterId, limit) -> {
+            reads++;
+            return ledger.stream()
+                    .filter(transaction -> transaction.getId() > afterId)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        });
+        final List<TransactionDTO> transactions = new ObjectMapper().readValue(out.toByteArray(),
+                new TypeReference<List<TransactionDTO>>() {
+                });
+        return transactions.stream().map(TransactionDTO::getId).collect(Collectors.toList());
+    }
+
+    private static List<Integer> ids(int first, int last) {
+        final List<Integer> ids = new ArrayList<>();
+        for (int id = first; id <= last; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+}
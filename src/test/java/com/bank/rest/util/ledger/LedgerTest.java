@@ -0,0 +1,237 @@
+package com.bank.rest.util.ledger;
+
+import com.bank.rest.model.Money;
+import com.bank.rest.model.TransactionModel;
+import com.bank.rest.model.TransactionResultModel;
+import com.bank.rest.util.exception.BadRequestFormatException;
+import com.bank.rest.util.exception.ResourceNotFoundException;
+import com.bank.rest.util.exception.ServiceUnavailableException;
+import com.bank.rest.util.exception.ValidationNotEnouhMoneyException;
+import com.bank.rest.util.migration.SchemaMigrations;
+import org.apache.commons.dbcp.BasicDataSource;
+import org.jooq.ConnectionProvider;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.conf.Settings;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DataSourceConnectionProvider;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.impl.ThreadLocalTransactionProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static com.bank.rest.jooq.bank_schema.tables.Account.ACCOUNT;
+import static com.bank.rest.jooq.bank_schema.tables.Transaction.TRANSACTION;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class LedgerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private BasicDataSource dataSource;
+    private DSLContext ctx;
+    private LedgerConfig config;
+
+    @Before
+    public void setUp() {
+        dataSource = new BasicDataSource();
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setUrl("jdbc:h2:mem:ledger-" + UUID.randomUUID());
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+
+        final ConnectionProvider cp = new DataSourceConnectionProvider(dataSource);
+        ctx = DSL.using(new DefaultConfiguration()
+                .set(cp)
+                .set(SQLDialect.H2)
+                .set(new ThreadLocalTransactionProvider(cp, true))
+                .set(new Settings().withExecuteLogging(false)));
+        createDatabase();
+        config = new LedgerConfig()
+                .withDirectory(folder.getRoot().toPath())
+                .withMaxAccounts(100)
+                .withLogSegmentBytes(4096);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        dataSource.close();
+    }
+
+    @Test
+    public void testTransfersAreWrittenBehind() throws Exception {
+        try (Ledger ledger = Ledger.open(config, ctx)) {
+            final TransactionModel transfer = ledger.transfer(1, 2, money("2.22"));
+            assertEquals(2, (int) transfer.getId());
+            assertEquals(money("7.88"), ledger.findAccount(1).getBalance());
+            assertEquals(money("22.42"), ledger.findAccount(2).getBalance());
+
+            ledger.awaitWriteBehind();
+            assertEquals(2, ctx.fetchCount(TRANSACTION));
+            assertEquals(money("7.88"), balanceInDatabase(1));
+            assertEquals(money("22.42"), balanceInDatabase(2));
+        }
+    }
+
+    @Test
+    public void testRejectedTransfers() throws Exception {
+        try (Ledger ledger = Ledger.open(config, ctx)) {
+            try {
+                ledger.transfer(1, 2, money("10.11"));
+                fail("Expected not enough money");
+            } catch (ValidationNotEnouhMoneyException e) {
+                // expected
+            }
+            try {
+                ledger.transfer(1, 99, Money.of(1));
+                fail("Expected unknown account");
+            } catch (ResourceNotFoundException e) {
+                // expected
+            }
+            try {
+                ledger.transfer(1, 2, null);
+                fail("Expected missing amount");
+            } catch (BadRequestFormatException e) {
+                // expected
+            }
+            assertEquals(0, ledger.getSequence());
+        }
+    }
+
+    @Test
+    public void testTransferAllSeesEarlierTransfersOfTheBatch() throws Exception {
+        try (Ledger ledger = Ledger.open(config, ctx)) {
+            final List<TransactionModel> transfers = Arrays.asList(
+                    transaction(1, 2, "10.10"), transaction(2, 3, "30.30"), transaction(2, 3, "0.01"));
+            final TransactionResultModel[] results = new TransactionResultModel[transfers.size()];
+
+            assertEquals(2, ledger.transferAll(transfers, results, false).size());
+            assertEquals(TransactionResultModel.Status.COMPLETED, results[0].getStatus());
+            assertEquals(TransactionResultModel.Status.COMPLETED, results[1].getStatus());
+            assertEquals(TransactionResultModel.Status.REJECTED, results[2].getStatus());
+            assertEquals(Money.ZERO, ledger.findAccount(2).getBalance());
+        }
+    }
+
+    @Test
+    public void testReopenedLedgerReplaysLogAfterSnapshot() throws Exception {
+        try (Ledger ledger = Ledger.open(config, ctx)) {
+            ledger.createAccount("new@bank.com", money("100"));
+            ledger.transfer(4, 1, money("0.5"));
+            ledger.snapshot();
+            ledger.transfer(4, 2, money("0.25"));
+            ledger.deleteAccount(3);
+        }
+        try (Ledger ledger = Ledger.open(config, ctx)) {
+            assertEquals(4, ledger.getSequence());
+            assertEquals(money("99.25"), ledger.findAccount(4).getBalance());
+            assertEquals(money("10.6"), ledger.findAccount(1).getBalance());
+            assertNull(ledger.findAccount(3));
+            assertEquals(4, (int) ledger.transfer(4, 1, Money.of(1)).getId());
+
+            ledger.awaitWriteBehind();
+            assertEquals(4, ctx.fetchCount(TRANSACTION));
+            assertEquals(1, ctx.fetchCount(ACCOUNT, ACCOUNT.ACTIVE.eq(false)));
+        }
+    }
+
+    @Test
+    public void testNewDatabaseReseedsLedger() throws Exception {
+        try (Ledger ledger = Ledger.open(config, ctx)) {
+            ledger.transfer(1, 2, Money.of(1));
+        }
+        ctx.execute("DROP ALL OBJECTS");
+        createDatabase();
+        try (Ledger ledger = Ledger.open(config, ctx)) {
+            assertEquals(0, ledger.getSequence());
+            assertEquals(money("10.1"), ledger.findAccount(1).getBalance());
+        }
+    }
+
+    @Test
+    public void testInvalidatedLedgerReseedsFromDatabase() throws Exception {
+        try (Ledger ledger = Ledger.open(config, ctx)) {
+            ledger.transfer(1, 2, Money.of(1));
+        }
+        // Changes made without the ledger, as the h2 storage engine does
+        Ledger.invalidate(ctx);
+        ctx.update(ACCOUNT).set(ACCOUNT.BALANCE, money("50")).where(ACCOUNT.ID.eq(1)).execute();
+        ctx.insertInto(TRANSACTION, TRANSACTION.ID, TRANSACTION.SOURCE, TRANSACTION.TARGET, TRANSACTION.AMOUNT,
+                TRANSACTION.TRANSACTION_TIME)
+                .values(3, 2, 1, money("1"), new Timestamp(System.currentTimeMillis()))
+                .execute();
+        try (Ledger ledger = Ledger.open(config, ctx)) {
+            assertEquals(money("50"), ledger.findAccount(1).getBalance());
+            assertEquals(4, (int) ledger.transfer(1, 2, Money.of(1)).getId());
+
+            ledger.awaitWriteBehind();
+            assertEquals(4, ctx.fetchCount(TRANSACTION));
+            assertEquals(money("49"), balanceInDatabase(1));
+        }
+    }
+
+    @Test
+    public void testChangesAreRejectedWhileWriteBehindIsFull() throws Exception {
+        try (Ledger ledger = Ledger.open(config.withWriteBehindQueueCapacity(1), ctx)) {
+            int accepted = 0;
+            try (Connection blocker = dataSource.getConnection()) {
+                // Holds the ledger_state row, so the writer cannot finish its batch until the rollback
+                blocker.setAutoCommit(false);
+                try (Statement statement = blocker.createStatement()) {
+                    statement.executeUpdate("UPDATE BANK_SCHEMA.ledger_state SET applied_sequence = applied_sequence");
+                }
+                try {
+                    // One entry may be taken by the blocked writer and one waits in the queue, the next is rejected
+                    while (accepted < 3) {
+                        ledger.transfer(1, 2, money("1"));
+                        accepted++;
+                    }
+                    fail();
+                } catch (ServiceUnavailableException e) {
+                    // expected
+                }
+                assertEquals(money("10.1").minus(money(String.valueOf(accepted))), ledger.findAccount(1).getBalance());
+                blocker.rollback();
+            }
+
+            ledger.awaitWriteBehind();
+            assertEquals(1 + accepted, ctx.fetchCount(TRANSACTION));
+            assertEquals(money("20.2").plus(money(String.valueOf(accepted))), balanceInDatabase(2));
+        }
+    }
+
+    private Money balanceInDatabase(int accountId) {
+        return ctx.select(ACCOUNT.BALANCE).from(ACCOUNT).where(ACCOUNT.ID.eq(accountId)).fetchOne().value1();
+    }
+
+    private static Money money(String amount) {
+        return Money.of(new BigDecimal(amount));
+    }
+
+    private static TransactionModel transaction(int source, int target, String amount) {
+        final TransactionModel transaction = new TransactionModel();
+        transaction.setSource(source);
+        transaction.setTarget(target);
+        transaction.setAmount(money(amount));
+        return transaction;
+    }
+
+    private void createDatabase() {
+        new SchemaMigrations(ctx).migrate();
+        ctx.execute("RUNSCRIPT FROM 'classpath:db/seed.sql'");
+    }
+}
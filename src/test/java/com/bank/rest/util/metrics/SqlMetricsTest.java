@@ -0,0 +1,28 @@
+package com.bank.rest.util.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class SqlMetricsTest {
+
+    @Test
+    public void testInListsShareShape() {
+        final SqlMetrics metrics = new SqlMetrics(-1);
+
+        final StatementMetrics one = metrics.statement("select id from account where id in (?) for update");
+        final StatementMetrics three = metrics.statement("select id from account where id in (?, ?, ?) for update");
+
+        assertSame(one, three);
+        assertEquals("select id from account where id in (?...) for update", one.getSql());
+    }
+
+    @Test
+    public void testShapeKeepsOtherPlaceholders() {
+        assertEquals("update account set balance = (balance + ?) where id = ?",
+                SqlMetrics.shapeOf("update account set balance = (balance + ?) where id = ?"));
+        assertEquals("insert into transaction (source, target) values (?, ?)",
+                SqlMetrics.shapeOf("insert into transaction (source, target) values (?, ?)"));
+    }
+}
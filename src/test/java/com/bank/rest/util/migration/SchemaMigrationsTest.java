@@ -0,0 +1,70 @@
+package com.bank.rest.util.migration;
+
+import org.apache.commons.dbcp.BasicDataSource;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.conf.Settings;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DataSourceConnectionProvider;
+import org.jooq.impl.DefaultConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static com.bank.rest.jooq.bank_schema.tables.Account.ACCOUNT;
+import static org.junit.Assert.assertEquals;
+
+public class SchemaMigrationsTest {
+
+    private BasicDataSource dataSource;
+    private DSLContext ctx;
+    private SchemaMigrations migrations;
+
+    @Before
+    public void setUp() {
+        dataSource = new BasicDataSource();
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setUrl("jdbc:h2:mem:migrations-" + UUID.randomUUID());
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        ctx = DSL.using(new DefaultConfiguration()
+                .set(new DataSourceConnectionProvider(dataSource))
+                .set(SQLDialect.H2)
+                .set(new Settings().withExecuteLogging(false)));
+        migrations = new SchemaMigrations(ctx);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        dataSource.close();
+    }
+
+    @Test
+    public void testAppliesMigrationsOnce() {
+        assertEquals(0, migrations.getCurrentVersion());
+
+        final int applied = migrations.migrate();
+        assertEquals(applied, migrations.getCurrentVersion());
+        assertEquals(0, ctx.fetchCount(ACCOUNT));
+
+        assertEquals(0, migrations.migrate());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testChangedMigrationIsRefused() {
+        migrations.migrate();
+        ctx.execute("UPDATE PUBLIC.SCHEMA_HISTORY SET CHECKSUM = CHECKSUM + 1 WHERE VERSION = 1");
+
+        migrations.migrate();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnknownAppliedMigrationIsRefused() {
+        migrations.migrate();
+        ctx.execute("INSERT INTO PUBLIC.SCHEMA_HISTORY VALUES (999, 'future', 0, CURRENT_TIMESTAMP(), 0)");
+
+        migrations.migrate();
+    }
+}